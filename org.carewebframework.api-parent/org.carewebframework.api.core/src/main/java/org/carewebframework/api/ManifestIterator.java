@@ -35,6 +35,7 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.spring.ResourceIndex;
 import org.fujion.common.StrUtil;
 import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
@@ -50,24 +51,35 @@ public class ManifestIterator implements Iterable<Manifest>, ApplicationContextA
 
         private final String path;
 
-        private ManifestEx(Resource resource) throws IOException {
+        private ManifestEx(Resource resource, ResourceIndex resourceIndex) throws IOException {
             super(resource.getInputStream());
             path = StringUtils.removeEnd(resource.getURL().getPath(), MANIFEST_PATH);
-            processFiles(resource, LICENSE_FILES, "License");
-            processFiles(resource, README_FILES, "Description");
+            processFiles(resource, resourceIndex, LICENSE_FILES, "License");
+            processFiles(resource, resourceIndex, README_FILES, "Description");
         }
 
-        private void processFiles(Resource resource, String[] files, String attributeName) throws IOException {
+        private void processFiles(Resource resource, ResourceIndex resourceIndex, String[] files,
+                                  String attributeName) throws IOException {
             for (String file : files) {
                 Resource res = resource.createRelative(file);
 
-                if (res.exists()) {
+                if (exists(res, resourceIndex)) {
                     String text = new String(IOUtils.toCharArray(res.getInputStream(), StrUtil.UTF8));
                     getMainAttributes().putValue(attributeName, text);
                     break;
                 }
             }
         }
+
+        /**
+         * Checks for the existence of a resource, consulting the resource index first to avoid
+         * opening an indexed archive. Because entries added at packaging time are not indexed, only
+         * a positive answer from the index is trusted; otherwise, a real lookup is performed.
+         */
+        private boolean exists(Resource resource, ResourceIndex resourceIndex) throws IOException {
+            Boolean exists = resourceIndex == null ? null : resourceIndex.exists(resource.getURL().toString());
+            return Boolean.TRUE.equals(exists) || resource.exists();
+        }
     }
 
     private static final ManifestIterator instance = new ManifestIterator();
@@ -82,6 +94,8 @@ public class ManifestIterator implements Iterable<Manifest>, ApplicationContextA
 
     private ApplicationContext applicationContext;
     
+    private ResourceIndex resourceIndex;
+
     private Manifest primaryManifest;
 
     private List<Manifest> manifests;
@@ -104,13 +118,15 @@ public class ManifestIterator implements Iterable<Manifest>, ApplicationContextA
 
     /**
      * Initialize the manifest list if not already done. This is done by iterating over the class
-     * path to locate all manifest files.
+     * path to locate all manifest files. Where available, resource indexes are used to locate
+     * license and readme files without opening the containing archive.
      */
     public void init() {
         if (manifests == null) {
             manifests = new ArrayList<>();
             
             try {
+                resourceIndex = ResourceIndex.getInstance(applicationContext.getClassLoader());
                 primaryManifest = addToList(applicationContext.getResource(MANIFEST_PATH));
                 Resource[] resources = applicationContext.getResources("classpath*:/" + MANIFEST_PATH);
 
@@ -177,7 +193,7 @@ public class ManifestIterator implements Iterable<Manifest>, ApplicationContextA
     private Manifest addToList(Resource resource) {
         try {
             if (resource != null && resource.exists()) {
-                Manifest manifest = new ManifestEx(resource);
+                Manifest manifest = new ManifestEx(resource, resourceIndex);
                 manifests.add(manifest);
                 return manifest;
             }
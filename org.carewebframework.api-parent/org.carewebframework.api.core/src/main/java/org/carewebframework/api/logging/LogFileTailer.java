@@ -27,10 +27,28 @@ package org.carewebframework.api.logging;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.RandomAccessFile;
-import java.util.Date;
-import java.util.HashSet;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -45,7 +63,14 @@ import org.apache.commons.logging.LogFactory;
  * It is somewhat equivalent to the unix command <code>tail -f fileToTail</code>
  * <p>
  * It is your job to interpret the results, build meaningful sets of data, etc. This tailer simply
- * fires notifications containing new file lines, one at a time.
+ * fires notifications containing new file lines, in batches of up to <code>batchSize</code> lines.
+ * <p>
+ * The file is read through a {@link FileChannel} into a reusable buffer and decoded using the
+ * configured character set. Where supported, a {@link WatchService} wakes the tailer as soon as
+ * the file's directory changes; otherwise (and as a fallback) the file is polled every
+ * <code>interval</code> milliseconds. Truncation (the file shrinks) and rotation (the file is
+ * replaced by a new one, detected by its file key or inode) are detected, and tailing continues
+ * from the beginning of the new content. A trailing line is not delivered until it is terminated.
  * 
  * @author Steven Haines
  *         <a href="http://www.informit.com/guides/content.aspx?g=java&seqNum=226">project</a>
@@ -55,6 +80,8 @@ public class LogFileTailer implements Runnable {
     
     private static final Log log = LogFactory.getLog(LogFileTailer.class);
     
+    private static final int BUFFER_SIZE = 8192;
+    
     /**
      * How frequently to check for file changes; defaults to 5 seconds
      */
@@ -66,6 +93,16 @@ public class LogFileTailer implements Runnable {
      */
     private long maxActiveInterval = 120000;
     
+    /**
+     * Maximum number of lines delivered to listeners in a single notification
+     */
+    private int batchSize = 100;
+    
+    /**
+     * Character set used to decode the file
+     */
+    private Charset charset = Charset.defaultCharset();
+    
     /**
      * The file to tail
      */
@@ -85,10 +122,33 @@ public class LogFileTailer implements Runnable {
      */
     private volatile boolean tailing;
     
+    /**
+     * Watch service used to wake the tailer when the file changes (null if polling)
+     */
+    private volatile WatchService watchService;
+    
     /**
      * Set of listeners
      */
-    private final Set<LogFileTailerListener> listeners = new HashSet<>();
+    private final Set<LogFileTailerListener> listeners = new CopyOnWriteArraySet<>();
+    
+    // Read state, reused across polls
+    
+    private final ByteBuffer byteBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+    
+    private final CharBuffer charBuffer = CharBuffer.allocate(BUFFER_SIZE);
+    
+    private final StringBuilder partialLine = new StringBuilder();
+    
+    private CharsetDecoder decoder;
+    
+    private boolean skipLineFeed;
+    
+    private FileChannel channel;
+    
+    private Object fileKey;
+    
+    private long filePointer;
     
     /**
      * Creates a new file tailer that tails an existing file and checks the file for updates every
@@ -148,6 +208,16 @@ public class LogFileTailer implements Runnable {
         }
     }
     
+    /**
+     * @param lines Batch of lines read from the <code>file</code>
+     */
+    protected void fireNewFileLines(List<String> lines) {
+        for (LogFileTailerListener fileTailerListener : this.listeners) {
+            LogFileTailerListener l = fileTailerListener;
+            l.newFileLines(lines);
+        }
+    }
+    
     protected void fireMaxActiveIntervalExceeded() {
         for (LogFileTailerListener fileTailerListener : this.listeners) {
             LogFileTailerListener l = fileTailerListener;
@@ -160,6 +230,7 @@ public class LogFileTailer implements Runnable {
      */
     public void stopTailing() {
         this.tailing = false;
+        closeWatchService();
     }
     
     /**
@@ -199,65 +270,260 @@ public class LogFileTailer implements Runnable {
      */
     @Override
     public void run() {
-        // The file pointer keeps track of where we are in the file
-        long filePointer = 0;
-        long startTime = new Date().getTime();
-        
-        // Determine start point
-        if (this.startAtBeginning) {
-            filePointer = 0;
-        } else {
-            filePointer = this.file.length();
-        }
+        long startTime = System.currentTimeMillis();
+        Path path = this.file.toPath();
         
         try {
             // Start tailing
             this.tailing = true;
-            RandomAccessFile file = new RandomAccessFile(this.file, "r");
+            decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            openFile(path, !this.startAtBeginning);
+            watchService = createWatchService(path);
+            
             while (isTailing()) {
                 //check to see if maxActiveInterval has been exceeded
-                if (new Date().getTime() - startTime > this.maxActiveInterval) {
+                if (System.currentTimeMillis() - startTime > this.maxActiveInterval) {
                     if (log.isWarnEnabled()) {
                         log.warn("FileTailer exceeded maxActiveInterval: " + this.maxActiveInterval);
                     }
                     stopTailing();
                     fireMaxActiveIntervalExceeded();
+                    break;
                 }
+                
                 try {
-                    // Compare the length of the file to the file pointer
-                    long fileLength = this.file.length();
-                    if (fileLength < filePointer) {
-                        // file must have been rotated or deleted;
-                        // reopen the file and reset the file pointer
-                        file = new RandomAccessFile(this.file, "r");
-                        filePointer = 0;
-                    }
+                    checkFile(path);
                     
-                    if (fileLength > filePointer) {
-                        // There is data to read
-                        file.seek(filePointer);
-                        String line = file.readLine();
-                        while (line != null) {
-                            fireNewFileLine(line);
-                            line = file.readLine();
-                        }
-                        filePointer = file.getFilePointer();
+                    // Wait for a change or for the specified interval to elapse
+                    if (!awaitChange()) {
+                        break;
                     }
-                    
-                    // Sleep for the specified interval
-                    Thread.sleep(this.interval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
                 } catch (Exception e) {
                     log.error(e.getMessage(), e);
                 }
             }
-            
-            // Close the file that we are tailing
-            file.close();
         } catch (Exception e) {
             log.error(e.getMessage(), e);
+        } finally {
+            this.tailing = false;
+            closeWatchService();
+            closeFile();
+        }
+    }
+    
+    /**
+     * Reads any new content from the file, first checking for truncation or rotation.
+     * 
+     * @param path Path of the file being tailed.
+     * @throws IOException IO exception.
+     */
+    private void checkFile(Path path) throws IOException {
+        BasicFileAttributes attrs;
+        
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // File is being rotated; wait for it to be recreated.
+            return;
+        }
+        
+        if (attrs.fileKey() != null && fileKey != null && !Objects.equals(attrs.fileKey(), fileKey)) {
+            // File was rotated; drain the old file, then tail the new one from the beginning.
+            readLines();
+            flushPartialLine();
+            closeFile();
+            openFile(path, false);
+        } else if (attrs.size() < filePointer) {
+            // File was truncated; tail from the beginning.
+            flushPartialLine();
+            resetDecoder();
+            filePointer = 0;
+        }
+        
+        readLines();
+    }
+    
+    /**
+     * Reads lines from the current file pointer to the end of the file, delivering them to
+     * listeners in batches.
+     * 
+     * @throws IOException IO exception.
+     */
+    private void readLines() throws IOException {
+        List<String> batch = new ArrayList<>();
+        int count;
+        
+        while ((count = channel.read(byteBuffer, filePointer)) > 0) {
+            filePointer += count;
+            byteBuffer.flip();
+            decoder.decode(byteBuffer, charBuffer, false);
+            byteBuffer.compact();
+            charBuffer.flip();
+            
+            while (charBuffer.hasRemaining()) {
+                char c = charBuffer.get();
+                
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    
+                    if (c == '\n') {
+                        continue;
+                    }
+                }
+                
+                if (c == '\n' || c == '\r') {
+                    skipLineFeed = c == '\r';
+                    batch.add(partialLine.toString());
+                    partialLine.setLength(0);
+                    
+                    if (batch.size() >= batchSize) {
+                        fireNewFileLines(batch);
+                        batch = new ArrayList<>();
+                    }
+                } else {
+                    partialLine.append(c);
+                }
+            }
+            
+            charBuffer.clear();
+        }
+        
+        if (!batch.isEmpty()) {
+            fireNewFileLines(batch);
+        }
+    }
+    
+    /**
+     * Delivers an unterminated trailing line, if any. Called when the remainder of the file will
+     * not be read.
+     */
+    private void flushPartialLine() {
+        if (partialLine.length() > 0) {
+            List<String> batch = new ArrayList<>(1);
+            batch.add(partialLine.toString());
+            partialLine.setLength(0);
+            fireNewFileLines(batch);
         }
     }
     
+    /**
+     * Resets the decoder and read buffers.
+     */
+    private void resetDecoder() {
+        decoder.reset();
+        byteBuffer.clear();
+        charBuffer.clear();
+        skipLineFeed = false;
+    }
+    
+    /**
+     * Opens the file for reading.
+     * 
+     * @param path Path of the file to open.
+     * @param atEnd If true, reading starts at the end of the file; otherwise, at the beginning.
+     * @throws IOException IO exception.
+     */
+    private void openFile(Path path, boolean atEnd) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+        filePointer = atEnd ? channel.size() : 0;
+        resetDecoder();
+    }
+    
+    /**
+     * Closes the file, if open.
+     */
+    private void closeFile() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.error(e.getMessage(), e);
+            }
+            
+            channel = null;
+        }
+    }
+    
+    /**
+     * Creates a watch service that monitors the file's directory for changes. If a watch service
+     * is not available, returns null and the tailer relies on polling.
+     * 
+     * @param path Path of the file being tailed.
+     * @return The watch service, or null if not available.
+     */
+    private WatchService createWatchService(Path path) {
+        Path dir = path.toAbsolutePath().getParent();
+        WatchService watcher = null;
+        
+        try {
+            watcher = dir.getFileSystem().newWatchService();
+            dir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+            return watcher;
+        } catch (Exception e) {
+            log.debug("Watch service not available, polling " + path, e);
+            
+            if (watcher != null) {
+                try {
+                    watcher.close();
+                } catch (IOException e2) {
+                    // Ignore
+                }
+            }
+            
+            return null;
+        }
+    }
+    
+    /**
+     * Closes the watch service, if any. This also wakes a tailer waiting for a change.
+     */
+    private void closeWatchService() {
+        WatchService watcher = watchService;
+        watchService = null;
+        
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+    
+    /**
+     * Waits for the watch service to report a change, or for the polling interval to elapse.
+     * 
+     * @return False if tailing has stopped.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    private boolean awaitChange() throws InterruptedException {
+        WatchService watcher = watchService;
+        
+        if (watcher == null) {
+            Thread.sleep(this.interval);
+            return isTailing();
+        }
+        
+        try {
+            WatchKey key = watcher.poll(this.interval, TimeUnit.MILLISECONDS);
+            
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // Tailing was stopped.
+        }
+        
+        return isTailing();
+    }
+    
     /**
      * Auto generated method comment
      * 
@@ -276,4 +542,40 @@ public class LogFileTailer implements Runnable {
         this.maxActiveInterval = maxActiveInterval;
     }
     
+    /**
+     * Returns the maximum number of lines delivered to listeners in a single notification.
+     * 
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+    
+    /**
+     * Sets the maximum number of lines delivered to listeners in a single notification.
+     * 
+     * @param batchSize The batch size.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+    
+    /**
+     * Returns the character set used to decode the file.
+     * 
+     * @return The character set.
+     */
+    public Charset getCharset() {
+        return this.charset;
+    }
+    
+    /**
+     * Sets the character set used to decode the file. Defaults to the platform character set.
+     * 
+     * @param charset The character set.
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset == null ? Charset.defaultCharset() : charset;
+    }
+    
 }
@@ -25,6 +25,8 @@
  */
 package org.carewebframework.api.logging;
 
+import java.util.List;
+
 /**
  * Provides listener notification methods when a tailed file is updated
  * 
@@ -41,6 +43,18 @@ public interface LogFileTailerListener {
      */
     public void newFileLine(String line);
     
+    /**
+     * A batch of new lines has been added to the tailed file. The default implementation calls
+     * {@link #newFileLine(String)} for each line.
+     * 
+     * @param lines The new lines that have been added to the tailed file
+     */
+    default void newFileLines(List<String> lines) {
+        for (String line : lines) {
+            newFileLine(line);
+        }
+    }
+    
     /**
      * FileTailer exceeded {@link LogFileTailer#getMaxActiveInterval()} Note that this means that
      * {@link LogFileTailer#stopTailing()} was called
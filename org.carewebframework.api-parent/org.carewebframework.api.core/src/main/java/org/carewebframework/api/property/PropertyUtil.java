@@ -27,6 +27,7 @@ package org.carewebframework.api.property;
 
 import java.util.List;
 
+import org.carewebframework.api.spring.PropertySourceVersion;
 import org.carewebframework.api.spring.SpringUtil;
 
 /**
@@ -118,6 +119,7 @@ public class PropertyUtil {
      */
     public static void saveValue(String propertyName, String instanceName, boolean asGlobal, String value) {
         getPropertyService().saveValue(propertyName, instanceName, asGlobal, value);
+        PropertySourceVersion.increment();
     }
     
     /**
@@ -131,6 +133,7 @@ public class PropertyUtil {
      */
     public static void saveValues(String propertyName, String instanceName, boolean asGlobal, List<String> value) {
         getPropertyService().saveValues(propertyName, instanceName, asGlobal, value);
+        PropertySourceVersion.increment();
     }
     
     /**
@@ -0,0 +1,389 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.query;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.carewebframework.api.event.IEventManager;
+import org.carewebframework.api.event.IGenericEvent;
+import org.carewebframework.api.query.IQueryResult.CompletionStatus;
+import org.carewebframework.api.thread.IAbortable;
+
+/**
+ * Wraps a query service to cache its results. Results are keyed by the wrapped service and the
+ * query context parameters, so that re-issuing an identical query (for example, when a plugin is
+ * reactivated) returns the cached result. Only results that completed normally are cached. Cached
+ * results are shared by all callers and must not be modified.
+ * <p>
+ * Concurrent identical queries share a single request to the wrapped service. Aborting an
+ * asynchronous query detaches only that caller; the underlying request is aborted once no callers
+ * remain.
+ * <p>
+ * The cache may be invalidated explicitly or by events. For example, subscribing to
+ * "CONTEXT.CHANGED.Patient" discards cached results whenever the patient context changes. Query
+ * contexts that do not expose their parameters (see {@link IQueryContext#getParams()}) bypass the
+ * cache.
+ *
+ * @param <T> Class of query result.
+ */
+public class CachingQueryService<T> implements IQueryService<T> {
+    
+    /**
+     * A cached or in-flight query result.
+     */
+    private class CacheEntry {
+        
+        private final List<Object> key;
+        
+        private final CompletableFuture<IQueryResult<T>> future = new CompletableFuture<>();
+        
+        private volatile long expires = Long.MAX_VALUE;
+        
+        private IAbortable query;
+        
+        private int waiters;
+        
+        CacheEntry(List<Object> key) {
+            this.key = key;
+        }
+        
+        boolean isExpired(long now) {
+            return future.isDone() && now >= expires;
+        }
+        
+        /**
+         * Completes the entry with the specified result. Results that did not complete normally are
+         * removed from the cache.
+         *
+         * @param result The query result.
+         */
+        void complete(IQueryResult<T> result) {
+            if (result.getStatus() == CompletionStatus.COMPLETED) {
+                expires = ttl > 0 ? System.currentTimeMillis() + ttl : Long.MAX_VALUE;
+            } else {
+                remove(this);
+            }
+            
+            future.complete(result);
+        }
+    }
+    
+    /**
+     * A single caller awaiting an asynchronous result.
+     */
+    private class Waiter implements IAbortable {
+        
+        private final CacheEntry entry;
+        
+        private final IQueryCallback<T> callback;
+        
+        private final AtomicBoolean delivered = new AtomicBoolean();
+        
+        Waiter(CacheEntry entry, IQueryCallback<T> callback) {
+            this.entry = entry;
+            this.callback = callback;
+        }
+        
+        void deliver(IQueryResult<T> result) {
+            if (delivered.compareAndSet(false, true)) {
+                callback.onQueryFinish(this, result);
+            }
+        }
+        
+        @Override
+        public void abort() {
+            if (delivered.get()) {
+                return;
+            }
+            
+            IAbortable query = null;
+            
+            synchronized (cache) {
+                if (--entry.waiters == 0 && !entry.future.isDone()) {
+                    query = entry.query;
+                    remove(entry);
+                }
+            }
+            
+            deliver(QueryUtil.<T> abortResult(null));
+            
+            if (query != null) {
+                query.abort();
+            }
+        }
+    }
+    
+    /**
+     * Receives the result of an asynchronous request to the wrapped service.
+     */
+    private class CacheCallback implements IQueryCallback<T> {
+        
+        private final CacheEntry entry;
+        
+        CacheCallback(CacheEntry entry) {
+            this.entry = entry;
+        }
+        
+        @Override
+        public void onQueryStart(IAbortable thread) {
+        }
+        
+        @Override
+        public void onQueryFinish(IAbortable thread, IQueryResult<T> result) {
+            entry.complete(result);
+        }
+    }
+    
+    private final IQueryService<T> service;
+    
+    private final long ttl;
+    
+    private final Map<List<Object>, CacheEntry> cache;
+    
+    private final IGenericEvent<Object> invalidationListener = (eventName, eventData) -> invalidate();
+    
+    /**
+     * Create an instance that wraps the specified query service.
+     *
+     * @param service The wrapped query service.
+     * @param ttl Time in milliseconds that a result remains cached (0 for no expiration).
+     * @param maxSize Maximum number of cached results. When exceeded, the least recently used
+     *            result is discarded.
+     */
+    public CachingQueryService(IQueryService<T> service, long ttl, int maxSize) {
+        this.service = service;
+        this.ttl = ttl;
+        this.cache = new LinkedHashMap<List<Object>, CacheEntry>(16, 0.75f, true) {
+            
+            private static final long serialVersionUID = 1L;
+            
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CacheEntry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+    
+    /**
+     * Returns the cache key for the query context, or null if the context does not expose its
+     * parameters. The key consists of the parameters ordered by name, so that equivalent contexts
+     * produce equal keys regardless of the order in which their parameters were set.
+     *
+     * @param context The query context.
+     * @return The cache key, or null if the context cannot be cached.
+     */
+    private List<Object> getKey(IQueryContext context) {
+        Map<String, Object> params = context.getParams();
+        
+        if (params == null) {
+            return null;
+        }
+        
+        List<Object> key = new ArrayList<>(params.size() * 2);
+        
+        for (Entry<String, Object> param : new TreeMap<>(params).entrySet()) {
+            if (param.getValue() != null) {
+                key.add(param.getKey());
+                key.add(param.getValue());
+            }
+        }
+        
+        return key;
+    }
+    
+    /**
+     * Returns the entry for the key, creating one if there is none or the existing one has expired.
+     * Must be called while synchronized on the cache.
+     *
+     * @param key The cache key.
+     * @param created Receives true if a new entry was created.
+     * @return The cache entry.
+     */
+    private CacheEntry getEntry(List<Object> key, boolean[] created) {
+        CacheEntry entry = cache.get(key);
+        created[0] = entry == null || entry.isExpired(System.currentTimeMillis());
+        
+        if (created[0]) {
+            entry = new CacheEntry(key);
+            cache.put(key, entry);
+        }
+        
+        return entry;
+    }
+    
+    private void remove(CacheEntry entry) {
+        synchronized (cache) {
+            cache.remove(entry.key, entry);
+        }
+    }
+    
+    @Override
+    public boolean hasRequired(IQueryContext context) {
+        return service.hasRequired(context);
+    }
+    
+    @Override
+    public IQueryResult<T> fetch(IQueryContext context) {
+        List<Object> key = getKey(context);
+        
+        if (key == null) {
+            return service.fetch(context);
+        }
+        
+        boolean[] created = new boolean[1];
+        CacheEntry entry;
+        
+        synchronized (cache) {
+            entry = getEntry(key, created);
+        }
+        
+        if (created[0]) {
+            try {
+                entry.complete(service.fetch(context));
+            } catch (RuntimeException | Error e) {
+                remove(entry);
+                entry.future.completeExceptionally(e);
+                throw e;
+            }
+        }
+        
+        try {
+            return entry.future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : e;
+        }
+    }
+    
+    @Override
+    public IAbortable fetch(IQueryContext context, IQueryCallback<T> callback) {
+        List<Object> key = getKey(context);
+        
+        if (key == null) {
+            return service.fetch(context, callback);
+        }
+        
+        boolean[] created = new boolean[1];
+        CacheEntry entry;
+        
+        synchronized (cache) {
+            entry = getEntry(key, created);
+            entry.waiters++;
+        }
+        
+        if (entry.future.isDone() && !entry.future.isCompletedExceptionally()) {
+            callback.onQueryStart(null);
+            callback.onQueryFinish(null, entry.future.join());
+            return null;
+        }
+        
+        Waiter waiter = new Waiter(entry, callback);
+        
+        if (created[0]) {
+            IAbortable query;
+            
+            try {
+                query = service.fetch(context, new CacheCallback(entry));
+            } catch (RuntimeException | Error e) {
+                remove(entry);
+                entry.future.completeExceptionally(e);
+                throw e;
+            }
+            
+            synchronized (cache) {
+                entry.query = query;
+            }
+        }
+        
+        entry.future.whenComplete((result, e) -> waiter.deliver(e == null ? result : QueryUtil.<T> errorResult(e)));
+        return waiter;
+    }
+    
+    /**
+     * Discards all cached results. Queries in progress are not affected, but their results will
+     * not be cached.
+     */
+    public void invalidate() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+    
+    /**
+     * Discards the cached result for the specified query context.
+     *
+     * @param context The query context.
+     */
+    public void invalidate(IQueryContext context) {
+        List<Object> key = getKey(context);
+        
+        if (key != null) {
+            synchronized (cache) {
+                cache.remove(key);
+            }
+        }
+    }
+    
+    /**
+     * Invalidates the cache whenever the specified event is fired.
+     *
+     * @param eventManager The event manager.
+     * @param eventName The name of the event (e.g., "CONTEXT.CHANGED.Patient").
+     */
+    public void invalidateOn(IEventManager eventManager, String eventName) {
+        eventManager.subscribe(eventName, invalidationListener);
+    }
+    
+    /**
+     * Stops invalidating the cache when the specified event is fired.
+     *
+     * @param eventManager The event manager.
+     * @param eventName The name of the event.
+     */
+    public void removeInvalidateOn(IEventManager eventManager, String eventName) {
+        eventManager.unsubscribe(eventName, invalidationListener);
+    }
+    
+    /**
+     * Returns the number of cached (or in-flight) results.
+     *
+     * @return The number of cached results.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+}
@@ -25,7 +25,9 @@
  */
 package org.carewebframework.api.query;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -61,6 +63,51 @@ public class FilteredQueryService<T> implements IQueryService<T> {
         
     }
     
+    /**
+     * Intermediate callback that filters each batch of a paged query before passing it to the real
+     * callback. The unfiltered rows of all batches are retained, so that the final result may be
+     * refiltered as a whole.
+     */
+    private class QueryBatchCallback extends QueryCallback implements IQueryBatchCallback<T> {
+        
+        private final IQueryBatchCallback<T> realCallback;
+        
+        private final List<T> unfiltered = new ArrayList<>();
+        
+        public QueryBatchCallback(IQueryBatchCallback<T> realCallback) {
+            super(realCallback);
+            this.realCallback = realCallback;
+        }
+        
+        @Override
+        public void onQueryBatch(IAbortable thread, IQueryResult<T> batch) {
+            List<T> rows = batch.getResults();
+            
+            if (rows != null) {
+                unfiltered.addAll(rows);
+            }
+            
+            realCallback.onQueryBatch(thread, filteredResult(batch));
+        }
+        
+        @Override
+        public void onQueryFinish(IAbortable thread, IQueryResult<T> result) {
+            List<T> rows = result.getResults();
+            
+            if (unfiltered.isEmpty() || rows == null) {
+                super.onQueryFinish(thread, result);
+                return;
+            }
+            
+            List<T> all = new ArrayList<>(unfiltered.size() + rows.size());
+            all.addAll(unfiltered);
+            all.addAll(rows);
+            realCallback.onQueryFinish(thread,
+                filteredResult(result, QueryUtil.packageResult(all, result.getStatus())));
+        }
+        
+    }
+    
     private final IQueryService<T> service;
     
     private final QueryFilterSet<T> filters;
@@ -78,18 +125,58 @@ public class FilteredQueryService<T> implements IQueryService<T> {
     
     /**
      * Repackages the query result as the filtered result with the unfiltered version stored in the
-     * metadata under the "unfiltered" key.
+     * metadata under the "unfiltered" key. For a partial result, the page cursor is carried over.
      * 
      * @param unfilteredResult The unfiltered query result.
      * @return The filtered query result.
      */
     private IQueryResult<T> filteredResult(IQueryResult<T> unfilteredResult) {
+        return filteredResult(unfilteredResult, unfilteredResult);
+    }
+    
+    /**
+     * Repackages the query result as the filtered result, storing the specified unfiltered result
+     * in the metadata under the "unfiltered" key. For a partial result, the page cursor is carried
+     * over.
+     * 
+     * @param unfilteredResult The unfiltered query result.
+     * @param refilterResult The unfiltered result to be used when refiltering.
+     * @return The filtered query result.
+     */
+    private IQueryResult<T> filteredResult(IQueryResult<T> unfilteredResult, IQueryResult<T> refilterResult) {
         List<T> unfilteredList = unfilteredResult.getResults();
         List<T> filteredList = unfilteredList == null ? null : filters.filter(unfilteredList);
-        Map<String, Object> metadata = Collections.<String, Object> singletonMap("unfiltered", unfilteredResult);
+        Object cursor = QueryUtil.getCursor(unfilteredResult);
+        Map<String, Object> metadata;
+        
+        if (cursor == null) {
+            metadata = Collections.<String, Object> singletonMap("unfiltered", refilterResult);
+        } else {
+            metadata = new HashMap<>();
+            metadata.put("unfiltered", refilterResult);
+            metadata.put("cursor", cursor);
+        }
+        
         return QueryUtil.packageResult(filteredList, unfilteredResult.getStatus(), metadata);
     }
     
+    /**
+     * Reapplies the filters to a previously filtered result, for example after a filter has
+     * changed. Because the same unfiltered list is presented to the filter set, only the filters
+     * that changed are re-evaluated.
+     * <p>
+     * For a paged query delivered in batches, refiltering a batch yields that batch only, whereas
+     * refiltering the final result yields the filtered rows of all batches together.
+     *
+     * @param filteredResult A result previously returned by this service.
+     * @return The refiltered result.
+     */
+    @SuppressWarnings("unchecked")
+    public IQueryResult<T> refilter(IQueryResult<T> filteredResult) {
+        Object unfiltered = filteredResult.getMetadata("unfiltered");
+        return unfiltered == null ? filteredResult : filteredResult((IQueryResult<T>) unfiltered);
+    }
+    
     @Override
     public boolean hasRequired(IQueryContext context) {
         return service.hasRequired(context);
@@ -104,7 +191,8 @@ public class FilteredQueryService<T> implements IQueryService<T> {
     @Override
     public IAbortable fetch(IQueryContext context, IQueryCallback<T> callback) {
         filters.updateContext(context);
-        return service.fetch(context, new QueryCallback(callback));
+        return service.fetch(context, callback instanceof IQueryBatchCallback
+                ? new QueryBatchCallback((IQueryBatchCallback<T>) callback) : new QueryCallback(callback));
     }
     
 }
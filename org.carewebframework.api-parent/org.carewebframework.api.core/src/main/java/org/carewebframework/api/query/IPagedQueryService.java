@@ -0,0 +1,48 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.query;
+
+/**
+ * A query service that can retrieve its results a page at a time. Asynchronous queries against a
+ * paged service deliver each page to an {@link IQueryBatchCallback} as it arrives, so that the
+ * first rows can be shown before the last are fetched.
+ *
+ * @param <T> Query result class.
+ */
+public interface IPagedQueryService<T> extends IQueryService<T> {
+    
+    /**
+     * Fetches a single page of results. Use {@link QueryUtil#pageResult} to package the page.
+     *
+     * @param context The query context that supplies the query parameters.
+     * @param cursor The cursor returned with the previous page, or null to fetch the first page.
+     * @return A PARTIAL result if more pages follow, with the cursor for the next page in the
+     *         metadata. Otherwise, a COMPLETED result for the last page, or an ERROR or ABORTED
+     *         result.
+     */
+    IQueryResult<T> fetchPage(IQueryContext context, Object cursor);
+    
+}
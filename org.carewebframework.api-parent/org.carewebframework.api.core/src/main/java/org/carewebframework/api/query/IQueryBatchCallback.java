@@ -0,0 +1,54 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.query;
+
+import org.carewebframework.api.thread.IAbortable;
+
+/**
+ * Callback that receives the results of a paged query incrementally. When a query against an
+ * {@link IPagedQueryService} is run by the {@link QueryExecutor} (as it is by the default
+ * asynchronous query strategy), each page except the last is delivered to {@link #onQueryBatch} as
+ * it arrives. The last page is delivered to {@link #onQueryFinish}, so the
+ * final result contains only that page rather than the entire result set. Callbacks that do not
+ * implement this interface receive the entire result set in a single final result.
+ * <p>
+ * Batches are delivered on the query thread. The next page is not fetched until the handler
+ * returns, so handlers should not block. If the query is aborted while a batch is being handled,
+ * the abort is reported once the handler returns.
+ *
+ * @param <T> Class of query result.
+ */
+public interface IQueryBatchCallback<T> extends IQueryCallback<T> {
+    
+    /**
+     * Called when a page of results has been retrieved and more pages are to follow.
+     *
+     * @param thread The IAbortable instance associated with the asynchronous query.
+     * @param batch The page of results. Its completion status is PARTIAL.
+     */
+    void onQueryBatch(IAbortable thread, IQueryResult<T> batch);
+    
+}
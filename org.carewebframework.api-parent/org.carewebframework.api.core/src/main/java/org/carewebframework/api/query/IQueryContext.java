@@ -25,6 +25,8 @@
  */
 package org.carewebframework.api.query;
 
+import java.util.Map;
+
 /**
  * Context information to be passed to data service.
  */
@@ -47,6 +49,17 @@ public interface IQueryContext {
      */
     public Object getParam(String name);
     
+    /**
+     * Returns all query parameters. Used to identify equivalent queries, for example when caching
+     * query results. The default implementation returns null, indicating that the parameters cannot
+     * be enumerated.
+     *
+     * @return The query parameters, or null if not supported.
+     */
+    default Map<String, Object> getParams() {
+        return null;
+    }
+    
     /**
      * Returns true if the current context state has changed from the previous snapshot.
      * 
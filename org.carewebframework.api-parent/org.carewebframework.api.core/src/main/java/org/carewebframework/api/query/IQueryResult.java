@@ -34,8 +34,12 @@ import java.util.List;
  */
 public interface IQueryResult<T> {
     
+    /**
+     * Completion status. PARTIAL indicates a page of a larger result set, with more pages to
+     * follow (see {@link IPagedQueryService}).
+     */
     enum CompletionStatus {
-        COMPLETED, ABORTED, ERROR
+        COMPLETED, ABORTED, ERROR, PARTIAL
     };
     
     /**
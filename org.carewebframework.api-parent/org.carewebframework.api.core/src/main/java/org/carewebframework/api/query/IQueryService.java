@@ -59,4 +59,15 @@ public interface IQueryService<T> {
      * @return An object implementing IAbortable, or null if no such implementation is available.
      */
     IAbortable fetch(IQueryContext context, IQueryCallback<T> callback);
+    
+    /**
+     * Called when an asynchronous query against this service is aborted while running. The thread
+     * running the query has already been interrupted. Services whose underlying data source
+     * supports cancellation (for example, by cancelling a statement or closing a connection)
+     * should override this to do so. The default implementation does nothing.
+     *
+     * @param context The query context of the aborted query.
+     */
+    default void cancel(IQueryContext context) {
+    }
 }
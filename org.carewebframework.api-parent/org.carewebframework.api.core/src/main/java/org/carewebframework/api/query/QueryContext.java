@@ -25,6 +25,7 @@
  */
 package org.carewebframework.api.query;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -79,4 +80,9 @@ public class QueryContext implements IQueryContext {
         return params.get(name);
     }
     
+    @Override
+    public Map<String, Object> getParams() {
+        return Collections.unmodifiableMap(params);
+    }
+    
 }
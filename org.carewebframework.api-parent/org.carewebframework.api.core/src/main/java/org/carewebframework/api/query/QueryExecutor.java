@@ -0,0 +1,716 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.query;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.thread.IAbortable;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Dedicated executor for asynchronous queries. Queries run on their own bounded pool rather than
+ * the shared task executor, so that slow queries do not compete with unrelated background work.
+ * <ul>
+ * <li>The number of queries waiting to run is bounded. Queries submitted beyond that limit are
+ * rejected and reported to the callback as an error result.</li>
+ * <li>The number of queries running concurrently against any one query service is limited.
+ * Excess queries for that service wait in a per-service queue without occupying a pool
+ * thread.</li>
+ * <li>Aborting a query removes it from the queue if it has not started. Otherwise, the running
+ * thread is interrupted and the service's {@link IQueryService#cancel cancel} hook is
+ * invoked. In either case, the callback is notified immediately (or, if a batch is being
+ * delivered, as soon as the batch handler returns).</li>
+ * <li>Queries exceeding the configured timeout are aborted in the same manner.</li>
+ * <li>Queries against an {@link IPagedQueryService} deliver each page to an
+ * {@link IQueryBatchCallback} as it arrives.</li>
+ * </ul>
+ */
+@ManagedResource(description = "Executor for asynchronous queries.")
+public class QueryExecutor {
+    
+    private static final Log log = LogFactory.getLog(QueryExecutor.class);
+    
+    private static final QueryExecutor instance = new QueryExecutor();
+    
+    private static final int QUEUED = 0;
+    
+    private static final int RUNNING = 1;
+    
+    private static final int DONE = 2;
+    
+    private static final String SHUTDOWN_REASON = "Query executor was shut down.";
+    
+    /**
+     * Queries waiting for, or holding, a concurrency slot for a single query service.
+     */
+    private static class ServiceLane {
+        
+        private final Deque<QueryTask<?>> waiting = new ArrayDeque<>();
+        
+        private int running;
+        
+        private boolean retired;
+    }
+    
+    /**
+     * A single query submission.
+     *
+     * @param <T> Class of query result.
+     */
+    private class QueryTask<T> implements Runnable, IAbortable {
+        
+        private final IQueryService<T> service;
+        
+        private final IQueryContext context;
+        
+        private final IQueryCallback<T> callback;
+        
+        private final long submitted = System.nanoTime();
+        
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        
+        private final AtomicBoolean finished = new AtomicBoolean();
+        
+        private ServiceLane lane;
+        
+        private Thread runner;
+        
+        private ScheduledFuture<?> timer;
+        
+        private boolean delivering;
+        
+        private IQueryResult<T> deferred;
+        
+        private QueryTask(IQueryService<T> service, IQueryContext context, IQueryCallback<T> callback) {
+            this.service = service;
+            this.context = context;
+            this.callback = callback;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                if (!state.compareAndSet(QUEUED, RUNNING)) {
+                    return;
+                }
+                
+                onStart(this);
+                IQueryResult<T> result;
+                
+                synchronized (this) {
+                    runner = Thread.currentThread();
+                }
+                
+                try {
+                    result = fetch();
+                } catch (Throwable t) {
+                    result = QueryUtil.<T> errorResult(t);
+                } finally {
+                    synchronized (this) {
+                        runner = null;
+                        Thread.interrupted();
+                    }
+                    
+                    active.decrementAndGet();
+                }
+                
+                state.set(DONE);
+                finish(result);
+            } finally {
+                release(this);
+            }
+        }
+        
+        /**
+         * Fetches the query result. If the service is paged and the callback accepts batches, each
+         * page but the last is delivered to the callback as it arrives. Otherwise, the entire
+         * result is returned. No batch is delivered once the result has been claimed. An abort that
+         * occurs while a batch is being delivered is reported once delivery completes, so no batch
+         * can follow an abort notification. Delivery does not hold the task's lock, so such an
+         * abort does not wait on the batch handler.
+         *
+         * @return The query result.
+         */
+        private IQueryResult<T> fetch() {
+            if (!(service instanceof IPagedQueryService) || !(callback instanceof IQueryBatchCallback)) {
+                return service.fetch(context);
+            }
+            
+            IPagedQueryService<T> pagedService = (IPagedQueryService<T>) service;
+            IQueryBatchCallback<T> batchCallback = (IQueryBatchCallback<T>) callback;
+            Object cursor = null;
+            
+            while (true) {
+                IQueryResult<T> page = pagedService.fetchPage(context, cursor);
+                
+                if (page.getStatus() != IQueryResult.CompletionStatus.PARTIAL) {
+                    return page;
+                }
+                
+                synchronized (this) {
+                    if (finished.get() || Thread.currentThread().isInterrupted()) {
+                        return QueryUtil.<T> abortResult(null);
+                    }
+                    
+                    delivering = true;
+                }
+                
+                try {
+                    batchCallback.onQueryBatch(this, page);
+                } finally {
+                    IQueryResult<T> result;
+                    
+                    synchronized (this) {
+                        delivering = false;
+                        result = deferred;
+                        deferred = null;
+                    }
+                    
+                    if (result != null) {
+                        report(result);
+                    }
+                }
+                
+                cursor = QueryUtil.getCursor(page);
+            }
+        }
+        
+        @Override
+        public void abort() {
+            abort(null, cancelledCount);
+        }
+        
+        /**
+         * Aborts the query, reporting an aborted result to the callback.
+         *
+         * @param reason Optional reason for the abort.
+         * @param counter Statistic to increment if the query was actually aborted.
+         */
+        private void abort(String reason, LongAdder counter) {
+            if (finished.get()) {
+                return;
+            }
+            
+            boolean wasQueued = state.compareAndSet(QUEUED, DONE);
+            
+            if (wasQueued) {
+                queued.decrementAndGet();
+                dequeue(this);
+            }
+            
+            if (!claim()) {
+                return;
+            }
+            
+            counter.increment();
+            
+            if (!wasQueued) {
+                synchronized (this) {
+                    if (runner != null && !delivering) {
+                        runner.interrupt();
+                    }
+                }
+                
+                try {
+                    service.cancel(context);
+                } catch (Throwable t) {
+                    log.warn("Error cancelling query.", t);
+                }
+            }
+            
+            IQueryResult<T> result = QueryUtil.<T> abortResult(reason);
+            
+            synchronized (this) {
+                if (delivering) {
+                    deferred = result;
+                    return;
+                }
+            }
+            
+            report(result);
+        }
+        
+        /**
+         * Reports the result to the callback, unless a result has already been reported.
+         *
+         * @param result The query result.
+         * @return True if the result was reported.
+         */
+        private boolean finish(IQueryResult<T> result) {
+            if (!claim()) {
+                return false;
+            }
+            
+            report(result);
+            return true;
+        }
+        
+        /**
+         * Claims the right to report the result, cancelling any pending timeout. Once claimed, no
+         * further batches are delivered.
+         *
+         * @return True if successful, false if a result has already been reported.
+         */
+        private boolean claim() {
+            synchronized (this) {
+                if (!finished.compareAndSet(false, true)) {
+                    return false;
+                }
+            }
+            
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            
+            return true;
+        }
+        
+        private void report(IQueryResult<T> result) {
+            if (result.getStatus() == IQueryResult.CompletionStatus.COMPLETED) {
+                completedCount.increment();
+            }
+            
+            callback.onQueryFinish(this, result);
+        }
+    }
+    
+    private final Map<IQueryService<?>, ServiceLane> lanes = new ConcurrentHashMap<>();
+    
+    private final AtomicInteger queued = new AtomicInteger();
+    
+    private final AtomicInteger active = new AtomicInteger();
+    
+    private final LongAdder submittedCount = new LongAdder();
+    
+    private final LongAdder completedCount = new LongAdder();
+    
+    private final LongAdder rejectedCount = new LongAdder();
+    
+    private final LongAdder cancelledCount = new LongAdder();
+    
+    private final LongAdder timeoutCount = new LongAdder();
+    
+    private final LongAdder startedCount = new LongAdder();
+    
+    private final LongAdder totalWait = new LongAdder();
+    
+    private final LongAccumulator maxWait = new LongAccumulator(Math::max, 0);
+    
+    private int poolSize = 8;
+    
+    private int queueCapacity = 100;
+    
+    private int maxPerService = 4;
+    
+    private long timeout;
+    
+    private boolean virtualThreads;
+    
+    private ExecutorService executor;
+    
+    private ScheduledExecutorService timeoutScheduler;
+    
+    public static QueryExecutor getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Creates a thread factory producing daemon threads with the specified name prefix.
+     *
+     * @param prefix Thread name prefix.
+     * @return A thread factory.
+     */
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Returns an executor that starts a virtual thread per task, or null if the runtime does not
+     * support virtual threads.
+     *
+     * @return A virtual thread executor, or null if not supported.
+     */
+    private static ExecutorService createVirtualThreadExecutor() {
+        try {
+            Method method = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    /**
+     * Enforce singleton instance.
+     */
+    private QueryExecutor() {
+    }
+    
+    /**
+     * Submits a query for asynchronous execution.
+     *
+     * @param <T> Class of query result.
+     * @param service The query service.
+     * @param context The query context.
+     * @param callback The callback to receive the query result.
+     * @return An abortable reference to the submitted query.
+     */
+    public <T> IAbortable submit(IQueryService<T> service, IQueryContext context, IQueryCallback<T> callback) {
+        QueryTask<T> task = new QueryTask<>(service, context, callback);
+        submittedCount.increment();
+        
+        if (queued.incrementAndGet() > queueCapacity) {
+            queued.decrementAndGet();
+            task.state.set(DONE);
+            rejectedCount.increment();
+            task.finish(QueryUtil.<T> errorResult(new RejectedExecutionException("Query queue is full.")));
+            return task;
+        }
+        
+        if (timeout > 0) {
+            task.timer = getTimeoutScheduler().schedule(() -> task.abort("Query timed out.", timeoutCount), timeout,
+                TimeUnit.MILLISECONDS);
+        }
+        
+        enqueue(task);
+        return task;
+    }
+    
+    /**
+     * Places a task in its service lane, dispatching it to the pool if the service has a free
+     * concurrency slot.
+     *
+     * @param task The task.
+     */
+    private void enqueue(QueryTask<?> task) {
+        while (true) {
+            ServiceLane lane = lanes.computeIfAbsent(task.service, key -> new ServiceLane());
+            
+            synchronized (lane) {
+                if (lane.retired) {
+                    continue;
+                }
+                
+                task.lane = lane;
+                
+                if (lane.running < maxPerService) {
+                    lane.running++;
+                } else {
+                    lane.waiting.add(task);
+                    return;
+                }
+            }
+            
+            dispatch(task);
+            return;
+        }
+    }
+    
+    /**
+     * Removes a task that was aborted before starting from its service lane, if it is waiting
+     * there.
+     *
+     * @param task The task.
+     */
+    private void dequeue(QueryTask<?> task) {
+        ServiceLane lane = task.lane;
+        
+        if (lane != null) {
+            synchronized (lane) {
+                lane.waiting.remove(task);
+            }
+        }
+    }
+    
+    /**
+     * Releases the concurrency slot held by a task, passing it to the next waiting task for the
+     * same service, if any.
+     *
+     * @param task The task.
+     */
+    private void release(QueryTask<?> task) {
+        ServiceLane lane = task.lane;
+        QueryTask<?> next;
+        
+        synchronized (lane) {
+            next = lane.waiting.poll();
+            
+            if (next == null && --lane.running == 0) {
+                lane.retired = true;
+                lanes.remove(task.service, lane);
+            }
+        }
+        
+        if (next != null) {
+            dispatch(next);
+        }
+    }
+    
+    private void dispatch(QueryTask<?> task) {
+        try {
+            getExecutor().execute(task);
+        } catch (RejectedExecutionException e) {
+            if (task.state.compareAndSet(QUEUED, DONE)) {
+                queued.decrementAndGet();
+                rejectedCount.increment();
+                finishRejected(task, e);
+            }
+            
+            release(task);
+        }
+    }
+    
+    private <T> void finishRejected(QueryTask<T> task, RejectedExecutionException e) {
+        task.finish(QueryUtil.<T> errorResult(e));
+    }
+    
+    private void onStart(QueryTask<?> task) {
+        long wait = System.nanoTime() - task.submitted;
+        queued.decrementAndGet();
+        active.incrementAndGet();
+        startedCount.increment();
+        totalWait.add(wait);
+        maxWait.accumulate(wait);
+    }
+    
+    private synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = virtualThreads ? createVirtualThreadExecutor() : null;
+            
+            if (virtualThreads && executor == null) {
+                log.warn("Virtual threads are not supported by this runtime; using a platform thread pool.");
+            }
+            
+            if (executor == null) {
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), threadFactory("queryExecutor-"));
+                pool.allowCoreThreadTimeOut(true);
+                executor = pool;
+            }
+        }
+        
+        return executor;
+    }
+    
+    private synchronized ScheduledExecutorService getTimeoutScheduler() {
+        if (timeoutScheduler == null) {
+            ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, threadFactory("queryTimeout-"));
+            scheduler.setRemoveOnCancelPolicy(true);
+            timeoutScheduler = scheduler;
+        }
+        
+        return timeoutScheduler;
+    }
+    
+    /**
+     * Shuts down the executor. Running queries are interrupted. Queries that have not started are
+     * aborted, releasing their concurrency slots and notifying their callbacks. A new pool is
+     * created on the next submission.
+     */
+    public void destroy() {
+        List<QueryTask<?>> waiting = new ArrayList<>();
+        
+        for (ServiceLane lane : lanes.values()) {
+            synchronized (lane) {
+                waiting.addAll(lane.waiting);
+                lane.waiting.clear();
+            }
+        }
+        
+        List<Runnable> dispatched = Collections.emptyList();
+        
+        synchronized (this) {
+            if (executor != null) {
+                dispatched = executor.shutdownNow();
+                executor = null;
+            }
+            
+            if (timeoutScheduler != null) {
+                timeoutScheduler.shutdownNow();
+                timeoutScheduler = null;
+            }
+        }
+        
+        for (QueryTask<?> task : waiting) {
+            task.abort(SHUTDOWN_REASON, cancelledCount);
+        }
+        
+        // Tasks drained from the pool hold a concurrency slot but will never run.
+        for (Runnable runnable : dispatched) {
+            if (runnable instanceof QueryTask) {
+                QueryTask<?> task = (QueryTask<?>) runnable;
+                task.abort(SHUTDOWN_REASON, cancelledCount);
+                release(task);
+            }
+        }
+    }
+    
+    @ManagedAttribute(description = "Maximum number of queries running concurrently.")
+    public int getPoolSize() {
+        return poolSize;
+    }
+    
+    /**
+     * Sets the maximum number of queries running concurrently. Takes effect when the pool is next
+     * created.
+     *
+     * @param poolSize The pool size.
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = Math.max(1, poolSize);
+    }
+    
+    @ManagedAttribute(description = "Maximum number of queries waiting to run.")
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+    
+    @ManagedAttribute
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = Math.max(0, queueCapacity);
+    }
+    
+    @ManagedAttribute(description = "Maximum number of queries running concurrently against a single query service.")
+    public int getMaxPerService() {
+        return maxPerService;
+    }
+    
+    @ManagedAttribute
+    public void setMaxPerService(int maxPerService) {
+        this.maxPerService = Math.max(1, maxPerService);
+    }
+    
+    @ManagedAttribute(description = "Query timeout in milliseconds (0 for none).")
+    public long getTimeout() {
+        return timeout;
+    }
+    
+    @ManagedAttribute
+    public void setTimeout(long timeout) {
+        this.timeout = Math.max(0, timeout);
+    }
+    
+    @ManagedAttribute(description = "True if queries run on virtual threads when the runtime supports them.")
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+    
+    /**
+     * Sets whether queries run on virtual threads. Takes effect when the pool is next created.
+     *
+     * @param virtualThreads True to use virtual threads if supported.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+    
+    @ManagedAttribute(description = "Number of queries waiting to run.")
+    public int getQueueDepth() {
+        return queued.get();
+    }
+    
+    @ManagedAttribute(description = "Number of queries currently running.")
+    public int getActiveCount() {
+        return active.get();
+    }
+    
+    @ManagedAttribute(description = "Number of queries submitted.")
+    public long getSubmittedCount() {
+        return submittedCount.sum();
+    }
+    
+    @ManagedAttribute(description = "Number of queries that completed normally.")
+    public long getCompletedCount() {
+        return completedCount.sum();
+    }
+    
+    @ManagedAttribute(description = "Number of queries rejected because the queue was full.")
+    public long getRejectedCount() {
+        return rejectedCount.sum();
+    }
+    
+    @ManagedAttribute(description = "Number of queries aborted by request.")
+    public long getCancelledCount() {
+        return cancelledCount.sum();
+    }
+    
+    @ManagedAttribute(description = "Number of queries aborted because they exceeded the timeout.")
+    public long getTimeoutCount() {
+        return timeoutCount.sum();
+    }
+    
+    @ManagedAttribute(description = "Average time in milliseconds that a query waited before running.")
+    public double getAverageWaitMillis() {
+        long started = startedCount.sum();
+        return started == 0 ? 0 : totalWait.sum() / 1e6 / started;
+    }
+    
+    @ManagedAttribute(description = "Longest time in milliseconds that a query waited before running.")
+    public double getMaxWaitMillis() {
+        return maxWait.get() / 1e6;
+    }
+    
+    @ManagedOperation(description = "Resets the query statistics.")
+    public void resetStatistics() {
+        submittedCount.reset();
+        completedCount.reset();
+        rejectedCount.reset();
+        cancelledCount.reset();
+        timeoutCount.reset();
+        startedCount.reset();
+        totalWait.reset();
+        maxWait.reset();
+    }
+    
+}
@@ -26,20 +26,98 @@
 package org.carewebframework.api.query;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Exposes a set of query filters as a single filter whose methods are invoked on each of the
  * members.
+ * <p>
+ * When filtering a list, the set records a bitmap of the rows passing each member filter. If the
+ * same list is filtered again with the same rows in the same order, only the bitmaps of filters
+ * that have reported a change (via {@link IQueryFilterChanged} or by returning true from
+ * {@link #updateContext}) are recomputed before the bitmaps are intersected. Member filters must
+ * therefore notify their listeners whenever their criteria change. Bitmaps for large lists
+ * may optionally be computed in parallel (see {@link #setParallelThreshold}), in which case member
+ * filters must be thread safe.
  *
  * @param <T> Class of query result.
  */
 public class QueryFilterSet<T> extends AbstractQueryFilter<T> implements IQueryFilterChanged<T> {
     
+    /**
+     * Computes a filter bitmap over a range of rows, splitting the range in a fork-join fashion.
+     * Ranges are split on 64-row boundaries so that each task writes distinct words.
+     */
+    private class BitmapTask extends RecursiveAction {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private static final int CHUNK_SIZE = 4096;
+        
+        private final IQueryFilter<T> filter;
+        
+        private final Object[] rows;
+        
+        private final long[] words;
+        
+        private final int start;
+        
+        private final int end;
+        
+        BitmapTask(IQueryFilter<T> filter, Object[] rows, long[] words, int start, int end) {
+            this.filter = filter;
+            this.rows = rows;
+            this.words = words;
+            this.start = start;
+            this.end = end;
+        }
+        
+        @Override
+        protected void compute() {
+            if (end - start <= CHUNK_SIZE) {
+                computeRange(filter, rows, words, start, end);
+            } else {
+                int mid = (start + (end - start) / 2) & ~63;
+                invokeAll(new BitmapTask(filter, rows, words, start, mid),
+                    new BitmapTask(filter, rows, words, mid, end));
+            }
+        }
+    }
+    
     private final Set<IQueryFilter<T>> filters = new HashSet<>();
     
+    private final Map<IQueryFilter<T>, BitSet> bitmaps = new IdentityHashMap<>();
+    
+    private List<T> indexedList;
+    
+    private Object[] indexedRows;
+    
+    private int parallelThreshold;
+    
+    /**
+     * Sets the bits for the rows in the range that pass the filter.
+     *
+     * @param filter The filter.
+     * @param rows The rows.
+     * @param words The bitmap words.
+     * @param start Index of the first row (inclusive).
+     * @param end Index of the last row (exclusive).
+     */
+    @SuppressWarnings("unchecked")
+    private void computeRange(IQueryFilter<T> filter, Object[] rows, long[] words, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (filter.include((T) rows[i])) {
+                words[i >>> 6] |= 1L << i;
+            }
+        }
+    }
+    
     /**
      * Add a data filter.
      * 
@@ -48,7 +126,10 @@ public class QueryFilterSet<T> extends AbstractQueryFilter<T> implements IQueryF
      */
     public boolean add(IQueryFilter<T> filter) {
         filter.addListener(this);
-        return filters.add(filter);
+        
+        synchronized (bitmaps) {
+            return filters.add(filter);
+        }
     }
     
     /**
@@ -59,7 +140,11 @@ public class QueryFilterSet<T> extends AbstractQueryFilter<T> implements IQueryF
      */
     public boolean remove(IQueryFilter<T> filter) {
         filter.removeListener(this);
-        return filters.remove(filter);
+        
+        synchronized (bitmaps) {
+            bitmaps.remove(filter);
+            return filters.remove(filter);
+        }
     }
     
     /**
@@ -92,38 +177,153 @@ public class QueryFilterSet<T> extends AbstractQueryFilter<T> implements IQueryF
         boolean result = false;
         
         for (IQueryFilter<T> filter : filters) {
-            result |= filter.updateContext(context);
+            if (filter.updateContext(context)) {
+                result = true;
+                
+                synchronized (bitmaps) {
+                    bitmaps.remove(filter);
+                }
+            }
         }
         
         return result;
     }
     
     /**
-     * Filters a list of results based on the member filters.
+     * Filters a list of results based on the member filters. If the same list was previously
+     * filtered and its rows have not since been modified or reordered, only the filters that have
+     * since changed are re-evaluated.
      * 
      * @param results Result list to filter.
      * @return The filtered list. Note that if no results are filtered, the original list is
      *         returned.
      */
+    @SuppressWarnings("unchecked")
     public List<T> filter(List<T> results) {
-        if (filters.isEmpty() || results == null) {
+        if (results == null) {
             return results;
         }
         
-        List<T> include = new ArrayList<>();
+        synchronized (bitmaps) {
+            if (filters.isEmpty()) {
+                return results;
+            }
+            
+            if (!isIndexed(results)) {
+                bitmaps.clear();
+                indexedList = results;
+                indexedRows = results.toArray();
+            }
+            
+            BitSet include = null;
+            
+            for (IQueryFilter<T> filter : filters) {
+                BitSet bitmap = bitmaps.get(filter);
+                
+                if (bitmap == null) {
+                    bitmap = computeBitmap(filter, indexedRows);
+                    bitmaps.put(filter, bitmap);
+                }
+                
+                if (include == null) {
+                    include = (BitSet) bitmap.clone();
+                } else {
+                    include.and(bitmap);
+                }
+            }
+            
+            if (include.cardinality() == indexedRows.length) {
+                return results;
+            }
+            
+            List<T> filtered = new ArrayList<>(include.cardinality());
+            
+            for (int i = include.nextSetBit(0); i >= 0; i = include.nextSetBit(i + 1)) {
+                filtered.add((T) indexedRows[i]);
+            }
+            
+            return filtered;
+        }
+    }
+    
+    /**
+     * Returns true if the list is the one for which bitmaps were last computed, and still holds the
+     * same rows in the same order. This is checked by identity, so it is much cheaper than
+     * recomputing the bitmaps.
+     *
+     * @param results The result list.
+     * @return True if the existing bitmaps apply to the list.
+     */
+    private boolean isIndexed(List<T> results) {
+        if (results != indexedList || results.size() != indexedRows.length) {
+            return false;
+        }
+        
+        int i = 0;
         
-        for (T result : results) {
-            if (include(result)) {
-                include.add(result);
+        for (T row : results) {
+            if (row != indexedRows[i++]) {
+                return false;
             }
         }
         
-        return results.size() == include.size() ? results : include;
+        return true;
+    }
+    
+    /**
+     * Computes the bitmap of rows that pass the filter.
+     *
+     * @param filter The filter.
+     * @param rows The rows.
+     * @return The bitmap.
+     */
+    private BitSet computeBitmap(IQueryFilter<T> filter, Object[] rows) {
+        long[] words = new long[(rows.length + 63) >>> 6];
+        
+        if (parallelThreshold > 0 && rows.length >= parallelThreshold) {
+            new BitmapTask(filter, rows, words, 0, rows.length).invoke();
+        } else {
+            computeRange(filter, rows, words, 0, rows.length);
+        }
+        
+        return BitSet.valueOf(words);
+    }
+    
+    /**
+     * Returns the minimum list size for which filter bitmaps are computed in parallel.
+     *
+     * @return The parallel threshold (0 if parallel evaluation is disabled).
+     */
+    public int getParallelThreshold() {
+        return parallelThreshold;
     }
     
+    /**
+     * Sets the minimum list size for which filter bitmaps are computed in parallel using the
+     * common fork-join pool. Member filters must be thread safe if this is enabled.
+     *
+     * @param parallelThreshold The parallel threshold, or 0 to disable parallel evaluation.
+     */
+    public void setParallelThreshold(int parallelThreshold) {
+        this.parallelThreshold = Math.max(0, parallelThreshold);
+    }
+    
+    /**
+     * Discards the bitmap of a changed member filter so that it is recomputed on the next filter
+     * operation. If the changed filter is not a direct member (for example, it belongs to a nested
+     * filter set), all bitmaps are discarded.
+     */
     @Override
     public void onFilterChanged(IQueryFilter<T> filter) {
         if (filter != this) {
+            synchronized (bitmaps) {
+                if (filters.contains(filter)) {
+                    bitmaps.remove(filter);
+                } else {
+                    bitmaps.clear();
+                }
+            }
+            
             notifyListeners(filter);
         }
     }
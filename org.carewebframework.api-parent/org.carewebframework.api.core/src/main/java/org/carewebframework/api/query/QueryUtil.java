@@ -25,6 +25,7 @@
  */
 package org.carewebframework.api.query;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -64,7 +65,7 @@ public class QueryUtil {
         
         @Override
         public Object getMetadata(String key) {
-            return metadata.get(key);
+            return metadata == null ? null : metadata.get(key);
         }
         
     }
@@ -93,6 +94,63 @@ public class QueryUtil {
             exception == null ? null : Collections.singletonMap("exception", (Object) exception));
     }
     
+    /**
+     * Returns a query result representing one page of a larger result set.
+     *
+     * @param <T> Class of query result.
+     * @param results Results for the page.
+     * @param cursor The cursor for retrieving the next page. If null, this is the last page and the
+     *            result status will be COMPLETED; otherwise, it will be PARTIAL.
+     * @return Query result.
+     * @see IPagedQueryService
+     */
+    public static <T> IQueryResult<T> pageResult(List<T> results, Object cursor) {
+        return cursor == null ? packageResult(results)
+                : packageResult(results, CompletionStatus.PARTIAL, Collections.singletonMap("cursor", cursor));
+    }
+    
+    /**
+     * Returns the cursor for retrieving the page following the specified partial result.
+     *
+     * @param result A partial query result.
+     * @return The cursor for the next page, or null if none.
+     */
+    public static Object getCursor(IQueryResult<?> result) {
+        return result.getMetadata("cursor");
+    }
+    
+    /**
+     * Retrieves all pages from a paged query service, returning them as a single result. Retrieval
+     * stops at the first page that is not PARTIAL. If that page is not COMPLETED, it is returned as
+     * is.
+     *
+     * @param <T> Class of query result.
+     * @param service The paged query service.
+     * @param context The query context.
+     * @return The combined query result.
+     */
+    public static <T> IQueryResult<T> fetchAll(IPagedQueryService<T> service, IQueryContext context) {
+        List<T> results = new ArrayList<>();
+        Object cursor = null;
+        
+        while (true) {
+            IQueryResult<T> page = service.fetchPage(context, cursor);
+            CompletionStatus status = page.getStatus();
+            
+            if (status != CompletionStatus.PARTIAL && status != CompletionStatus.COMPLETED) {
+                return page;
+            }
+            
+            results.addAll(page.getResults());
+            
+            if (status == CompletionStatus.COMPLETED) {
+                return packageResult(results);
+            }
+            
+            cursor = getCursor(page);
+        }
+    }
+    
     /**
      * Convenience method for packaging query results.
      *
@@ -0,0 +1,370 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.spring;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.MutablePropertyValues;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.ConstructorArgumentValues.ValueHolder;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedArray;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.ManagedMap;
+import org.springframework.beans.factory.support.ManagedProperties;
+import org.springframework.beans.factory.support.ManagedSet;
+
+/**
+ * Caches the bean definitions parsed from a set of configuration locations so that subsequent
+ * application contexts with the same configuration may be populated without re-reading and
+ * re-parsing the underlying XML. This is primarily intended to accelerate the creation of the
+ * child application contexts associated with each new session.
+ * <p>
+ * Bean definitions are cached as parsed, before any bean factory post-processing, and are deep
+ * copied both when stored and when restored (including property values, constructor arguments,
+ * managed collections, and inner bean definitions). Placeholders within bean definitions are
+ * therefore resolved separately by each context that restores them, and post-processing of one
+ * context's definitions cannot affect those of another. However, anything resolved while parsing,
+ * such as the locations of imported configuration files, is shared by all contexts with the same
+ * configuration locations and active profiles.
+ */
+public class BeanDefinitionCache {
+
+    private static final Log log = LogFactory.getLog(BeanDefinitionCache.class);
+
+    private static final BeanDefinitionCache instance = new BeanDefinitionCache();
+
+    /**
+     * A snapshot of the bean definitions and aliases of a bean definition registry.
+     */
+    private static class Template {
+
+        private final Map<String, BeanDefinition> definitions = new LinkedHashMap<>();
+
+        private final Map<String, String[]> aliases = new LinkedHashMap<>();
+
+    }
+
+    private final Map<String, Template> cache = new ConcurrentHashMap<>();
+
+    private boolean enabled;
+
+    private boolean preload;
+
+    public static BeanDefinitionCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Creates a cache key from configuration locations and active profiles.
+     *
+     * @param locations The configuration locations.
+     * @param profiles The active profiles.
+     * @return The cache key.
+     */
+    public static String createKey(String[] locations, String[] profiles) {
+        return Arrays.toString(locations) + Arrays.toString(profiles);
+    }
+
+    private BeanDefinitionCache() {
+    }
+
+    /**
+     * Returns true if bean definition caching is enabled.
+     *
+     * @return True if caching is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables bean definition caching. Disabling caching also clears the cache.
+     *
+     * @param enabled True to enable caching.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+
+        if (!enabled) {
+            clear();
+        }
+    }
+
+    /**
+     * Returns true if bean definitions should be cached in advance of their first use.
+     *
+     * @return True to preload bean definitions.
+     */
+    public boolean isPreload() {
+        return preload;
+    }
+
+    /**
+     * Set to true if bean definitions should be cached in advance of their first use.
+     *
+     * @param preload True to preload bean definitions.
+     */
+    public void setPreload(boolean preload) {
+        this.preload = preload;
+    }
+
+    /**
+     * Returns true if bean definitions have been cached under the specified key.
+     *
+     * @param key The cache key.
+     * @return True if bean definitions have been cached.
+     */
+    public boolean contains(String key) {
+        return cache.containsKey(key);
+    }
+
+    /**
+     * Stores a snapshot of the bean definitions and aliases of a registry under the specified key.
+     * Has no effect if caching is disabled. If the registry contains a bean definition that cannot
+     * be copied (i.e., one that does not derive from AbstractBeanDefinition), nothing is cached and
+     * contexts with this configuration continue to be populated by parsing.
+     *
+     * @param key The cache key.
+     * @param registry The registry containing the bean definitions to be cached.
+     */
+    public void store(String key, BeanDefinitionRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+
+        Template template = new Template();
+
+        for (String name : registry.getBeanDefinitionNames()) {
+            BeanDefinition definition = registry.getBeanDefinition(name);
+
+            if (!(definition instanceof AbstractBeanDefinition)) {
+                log.warn("Bean definition '" + name + "' of type " + definition.getClass().getName()
+                        + " cannot be copied; bean definitions for " + key + " will not be cached.");
+                cache.remove(key);
+                return;
+            }
+
+            template.definitions.put(name, copy(definition));
+            String[] aliases = registry.getAliases(name);
+
+            if (aliases.length > 0) {
+                template.aliases.put(name, aliases);
+            }
+        }
+
+        cache.put(key, template);
+    }
+
+    /**
+     * Populates a registry with copies of the bean definitions and aliases cached under the
+     * specified key.
+     *
+     * @param key The cache key.
+     * @param registry The registry to receive the bean definitions.
+     * @return True if the registry was populated, false if caching is disabled or no bean
+     *         definitions have been cached under the key.
+     */
+    public boolean restore(String key, BeanDefinitionRegistry registry) {
+        Template template = enabled ? cache.get(key) : null;
+
+        if (template == null) {
+            return false;
+        }
+
+        for (Map.Entry<String, BeanDefinition> entry : template.definitions.entrySet()) {
+            registry.registerBeanDefinition(entry.getKey(), copy(entry.getValue()));
+        }
+
+        for (Map.Entry<String, String[]> entry : template.aliases.entrySet()) {
+            for (String alias : entry.getValue()) {
+                registry.registerAlias(entry.getKey(), alias);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a deep copy of a bean definition. The AbstractBeanDefinition copy constructor copies
+     * the property value and constructor argument containers but shares their values, so mutable
+     * values are copied here as well.
+     *
+     * @param definition The bean definition to copy.
+     * @return A deep copy of the bean definition.
+     */
+    private AbstractBeanDefinition copy(BeanDefinition definition) {
+        AbstractBeanDefinition copy = definition instanceof AbstractBeanDefinition
+                ? ((AbstractBeanDefinition) definition).cloneBeanDefinition() : new GenericBeanDefinition(definition);
+        MutablePropertyValues propertyValues = copy.getPropertyValues();
+        PropertyValue[] pvs = propertyValues.getPropertyValues();
+
+        for (int i = 0; i < pvs.length; i++) {
+            propertyValues.setPropertyValueAt(new PropertyValue(pvs[i], copyValue(pvs[i].getValue())), i);
+        }
+
+        ConstructorArgumentValues args = copy.getConstructorArgumentValues();
+
+        for (ValueHolder holder : args.getIndexedArgumentValues().values()) {
+            holder.setValue(copyValue(holder.getValue()));
+        }
+
+        for (ValueHolder holder : args.getGenericArgumentValues()) {
+            holder.setValue(copyValue(holder.getValue()));
+        }
+
+        return copy;
+    }
+
+    /**
+     * Returns a deep copy of a bean definition value if it is mutable, or the value itself
+     * otherwise.
+     *
+     * @param value The value to copy.
+     * @return The copied value.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object copyValue(Object value) {
+        if (value instanceof BeanDefinitionHolder) {
+            BeanDefinitionHolder holder = (BeanDefinitionHolder) value;
+            return new BeanDefinitionHolder(copy(holder.getBeanDefinition()), holder.getBeanName(),
+                    holder.getAliases());
+        }
+
+        if (value instanceof BeanDefinition) {
+            return copy((BeanDefinition) value);
+        }
+
+        if (value instanceof TypedStringValue) {
+            TypedStringValue original = (TypedStringValue) value;
+            TypedStringValue copy = original.hasTargetType()
+                    ? new TypedStringValue(original.getValue(), original.getTargetType())
+                    : new TypedStringValue(original.getValue(), original.getTargetTypeName());
+            copy.setSource(original.getSource());
+            copy.setSpecifiedTypeName(original.getSpecifiedTypeName());
+
+            if (original.isDynamic()) {
+                copy.setDynamic();
+            }
+
+            return copy;
+        }
+
+        if (value instanceof ManagedArray) {
+            ManagedArray original = (ManagedArray) value;
+            ManagedArray copy = new ManagedArray(original.getElementTypeName(), original.size());
+            copyList(original, copy);
+            return copy;
+        }
+
+        if (value instanceof ManagedList) {
+            ManagedList original = (ManagedList) value;
+            ManagedList copy = new ManagedList(original.size());
+            copy.setElementTypeName(original.getElementTypeName());
+            copyList(original, copy);
+            return copy;
+        }
+
+        if (value instanceof ManagedSet) {
+            ManagedSet original = (ManagedSet) value;
+            ManagedSet copy = new ManagedSet(original.size());
+            copy.setSource(original.getSource());
+            copy.setElementTypeName(original.getElementTypeName());
+            copy.setMergeEnabled(original.isMergeEnabled());
+
+            for (Object element : original) {
+                copy.add(copyValue(element));
+            }
+
+            return copy;
+        }
+
+        if (value instanceof ManagedMap) {
+            ManagedMap<Object, Object> original = (ManagedMap<Object, Object>) value;
+            ManagedMap<Object, Object> copy = new ManagedMap<>(original.size());
+            copy.setSource(original.getSource());
+            copy.setKeyTypeName(original.getKeyTypeName());
+            copy.setValueTypeName(original.getValueTypeName());
+            copy.setMergeEnabled(original.isMergeEnabled());
+
+            for (Map.Entry<Object, Object> entry : original.entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+
+            return copy;
+        }
+
+        if (value instanceof ManagedProperties) {
+            ManagedProperties original = (ManagedProperties) value;
+            ManagedProperties copy = new ManagedProperties();
+            copy.setSource(original.getSource());
+            copy.setMergeEnabled(original.isMergeEnabled());
+
+            for (Map.Entry<Object, Object> entry : original.entrySet()) {
+                copy.put(copyValue(entry.getKey()), copyValue(entry.getValue()));
+            }
+
+            return copy;
+        }
+
+        return value;
+    }
+
+    /**
+     * Copies the elements and settings of a managed list.
+     *
+     * @param original The list to copy.
+     * @param copy The list to receive the copy.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private void copyList(ManagedList original, ManagedList copy) {
+        copy.setSource(original.getSource());
+        copy.setMergeEnabled(original.isMergeEnabled());
+
+        for (Object element : original) {
+            copy.add(copyValue(element));
+        }
+    }
+
+    /**
+     * Removes all cached bean definitions.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+}
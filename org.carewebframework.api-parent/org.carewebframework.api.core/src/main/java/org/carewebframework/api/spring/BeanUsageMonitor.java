@@ -0,0 +1,117 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.spring;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+/**
+ * Diagnostic that reports singleton beans that were created when the application context was
+ * refreshed but never touched during its lifetime. This is useful for identifying beans that may
+ * be candidates for lazy initialization. Requires that the application context use a
+ * {@link FrameworkBeanFactory}.
+ */
+public class BeanUsageMonitor implements ApplicationListener<ApplicationContextEvent>, ApplicationContextAware, BeanFactoryAware {
+    
+    private static final Log log = LogFactory.getLog(BeanUsageMonitor.class);
+    
+    private ApplicationContext applicationContext;
+    
+    private FrameworkBeanFactory beanFactory;
+    
+    private boolean enabled;
+    
+    /**
+     * Returns true if the diagnostic is enabled.
+     *
+     * @return True if enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Enables or disables the diagnostic.
+     *
+     * @param enabled True to enable.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Returns the names of beans that have not been touched since the application context was
+     * refreshed.
+     *
+     * @return Names of untouched beans.
+     */
+    public List<String> getUntouchedBeans() {
+        return beanFactory.getUntouchedBeans();
+    }
+    
+    /**
+     * Starts tracking when the application context is refreshed and reports untouched beans when
+     * it is closed.
+     */
+    @Override
+    public void onApplicationEvent(ApplicationContextEvent event) {
+        if (!enabled || beanFactory == null || event.getApplicationContext() != applicationContext) {
+            return;
+        }
+        
+        if (event instanceof ContextRefreshedEvent) {
+            beanFactory.startUsageTracking();
+        } else if (event instanceof ContextClosedEvent && beanFactory.isUsageTracking()) {
+            List<String> untouched = getUntouchedBeans();
+            
+            if (!untouched.isEmpty()) {
+                log.info("Beans never touched in " + applicationContext.getDisplayName() + ": " + untouched);
+            }
+        }
+    }
+    
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.applicationContext = applicationContext;
+    }
+    
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory instanceof FrameworkBeanFactory ? (FrameworkBeanFactory) beanFactory : null;
+    }
+    
+}
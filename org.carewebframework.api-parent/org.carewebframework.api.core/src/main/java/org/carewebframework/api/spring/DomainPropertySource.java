@@ -54,6 +54,16 @@ public class DomainPropertySource extends PropertySource<Object> {
         this.appContext = appContext;
     }
     
+    /**
+     * Returns true if the property name references a domain property.
+     * 
+     * @param name Property name.
+     * @return True if the name is prefixed with "domain.".
+     */
+    public static boolean isDomainProperty(String name) {
+        return name.startsWith(PREFIX);
+    }
+    
     /**
      * Returns a property value from the underlying data store.
      * 
@@ -62,7 +72,7 @@ public class DomainPropertySource extends PropertySource<Object> {
     @Override
     public String getProperty(String name) {
         try {
-            if (name.startsWith(PREFIX) && initPropertyService()) {
+            if (isDomainProperty(name) && initPropertyService()) {
                 return propertyService.getValue(name.substring(PREFIX_LEN), null);
             }
         } catch (Exception e) {
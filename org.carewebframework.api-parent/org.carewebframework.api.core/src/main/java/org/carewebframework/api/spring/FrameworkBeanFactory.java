@@ -25,6 +25,13 @@
  */
 package org.carewebframework.api.spring;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -104,6 +111,9 @@ public class FrameworkBeanFactory extends DefaultListableBeanFactory {
     // Default override behavior as dictated by the application context.
     private boolean defaultOverriding = true;
     
+    // Names of beans requested since usage tracking was started (null if not tracking).
+    private volatile Set<String> requestedBeans;
+    
     /**
      * Creates a bean factory.
      *
@@ -196,4 +206,63 @@ public class FrameworkBeanFactory extends DefaultListableBeanFactory {
         
         return value;
     }
+    
+    /**
+     * Records the bean name if usage tracking is enabled.
+     */
+    @Override
+    protected <T> T doGetBean(String name, Class<T> requiredType, Object[] args,
+                              boolean typeCheckOnly) throws BeansException {
+        Set<String> requested = requestedBeans;
+        
+        if (requested != null && !typeCheckOnly) {
+            requested.add(transformedBeanName(name));
+        }
+        
+        return super.doGetBean(name, requiredType, args, typeCheckOnly);
+    }
+    
+    /**
+     * Starts tracking bean requests. This is typically called once the bean factory has been
+     * refreshed so that only requests made after initialization are recorded.
+     */
+    public void startUsageTracking() {
+        requestedBeans = ConcurrentHashMap.newKeySet();
+    }
+    
+    /**
+     * Returns true if bean requests are being tracked.
+     *
+     * @return True if bean requests are being tracked.
+     */
+    public boolean isUsageTracking() {
+        return requestedBeans != null;
+    }
+    
+    /**
+     * Returns the names of singleton beans that were instantiated but never touched since usage
+     * tracking was started. A bean is considered touched if it was requested from this bean
+     * factory or injected into another bean. Such beans are candidates for lazy initialization.
+     *
+     * @return Names of untouched beans, in sorted order. Empty if usage tracking is not enabled.
+     */
+    public List<String> getUntouchedBeans() {
+        Set<String> requested = requestedBeans;
+        List<String> untouched = new ArrayList<>();
+        
+        if (requested != null) {
+            for (String beanName : getBeanDefinitionNames()) {
+                BeanDefinition beanDefinition = getBeanDefinition(beanName);
+                
+                if (beanDefinition.isSingleton() && !beanDefinition.isAbstract() && containsSingleton(beanName)
+                        && !requested.contains(beanName) && getDependentBeans(beanName).length == 0) {
+                    untouched.add(beanName);
+                }
+            }
+            
+            Collections.sort(untouched);
+        }
+        
+        return untouched;
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.spring;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Pattern resolver that matches resources within indexed archives (including nested archives)
+ * against the archive's resource index rather than enumerating the archive's entries. Archives
+ * without an index, and all class path directories, are scanned as usual.
+ */
+public class IndexedResourcePatternResolver extends PathMatchingResourcePatternResolver {
+    
+    private final ResourceIndex resourceIndex;
+    
+    public IndexedResourcePatternResolver() {
+        super();
+        resourceIndex = ResourceIndex.getInstance(getClassLoader());
+    }
+    
+    public IndexedResourcePatternResolver(ResourceLoader resourceLoader) {
+        super(resourceLoader);
+        resourceIndex = ResourceIndex.getInstance(getClassLoader());
+    }
+    
+    public ResourceIndex getResourceIndex() {
+        return resourceIndex;
+    }
+    
+    /**
+     * Resolves matching resources from the resource index if the archive is indexed. Otherwise,
+     * defers to the default implementation.
+     */
+    @Override
+    protected Set<Resource> doFindPathMatchingJarResources(Resource rootDirResource, URL rootDirURL,
+                                                           String subPattern) throws IOException {
+        Set<Resource> result = findIndexedResources(rootDirResource, rootDirURL, subPattern);
+        return result != null ? result : super.doFindPathMatchingJarResources(rootDirResource, rootDirURL, subPattern);
+    }
+    
+    /**
+     * Matches the index entries beneath the root directory against the pattern. Because the index
+     * lists only files, directories implied by the entries' paths are matched as well.
+     *
+     * @param rootDirResource The root directory resource.
+     * @param rootDirURL The root directory URL.
+     * @param subPattern The pattern to match, relative to the root directory.
+     * @return The matching resources, or null if the root directory is not within an indexed
+     *         archive.
+     * @throws IOException Exception creating a relative resource.
+     */
+    private Set<Resource> findIndexedResources(Resource rootDirResource, URL rootDirURL,
+                                               String subPattern) throws IOException {
+        String url = rootDirURL.toString();
+        String root = resourceIndex.getRoot(url);
+        
+        if (root == null) {
+            return null;
+        }
+        
+        String rootEntryPath = url.substring(root.length());
+        
+        if (!rootEntryPath.isEmpty() && !rootEntryPath.endsWith("/")) {
+            rootEntryPath += "/";
+        }
+        
+        List<String> entries = resourceIndex.getEntries(url, rootEntryPath);
+        Set<String> directories = new HashSet<>();
+        Set<Resource> result = new LinkedHashSet<>();
+        
+        for (String entry : entries) {
+            String relativePath = entry.substring(rootEntryPath.length());
+            
+            for (int i = relativePath.indexOf('/'); i > 0; i = relativePath.indexOf('/', i + 1)) {
+                String directory = relativePath.substring(0, i + 1);
+                
+                if (directories.add(directory) && (getPathMatcher().match(subPattern, directory)
+                        || getPathMatcher().match(subPattern, directory.substring(0, i)))) {
+                    result.add(rootDirResource.createRelative(directory));
+                }
+            }
+            
+            if (getPathMatcher().match(subPattern, relativePath)) {
+                result.add(rootDirResource.createRelative(relativePath));
+            }
+        }
+        
+        return result;
+    }
+    
+}
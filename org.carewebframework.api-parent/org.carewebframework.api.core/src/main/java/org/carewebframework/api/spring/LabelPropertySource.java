@@ -39,12 +39,22 @@ public class LabelPropertySource extends PropertySource<Object> {
         super("Labels");
     }
     
+    /**
+     * Returns true if the property name references a label.
+     * 
+     * @param name Property name.
+     * @return True if the name is prefixed with "@msg.".
+     */
+    public static boolean isLabel(String name) {
+        return name.startsWith(LABEL_PREFIX);
+    }
+    
     /**
      * Label names must be prefixed with "@msg." to be recognized as such.
      */
     @Override
     public String getProperty(String name) {
-        return name.startsWith(LABEL_PREFIX) ? StrUtil.getLabel(name.substring(LABEL_PREFIX.length())) : null;
+        return isLabel(name) ? StrUtil.getLabel(name.substring(LABEL_PREFIX.length())) : null;
     }
     
 }
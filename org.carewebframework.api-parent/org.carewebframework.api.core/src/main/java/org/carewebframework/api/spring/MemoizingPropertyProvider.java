@@ -0,0 +1,125 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.spring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Property provider that caches values retrieved from Spring properties. Avoids repeated traversal
+ * of the property source chain and, in particular, repeated database access for domain properties.
+ * The cache is discarded whenever the property source signature changes (see
+ * {@link PropertySourceVersion}). Because domain property values may be user-specific, domain
+ * properties are cached separately for each authenticated user. Likewise, labels are cached
+ * separately for each locale. The cache is bounded, discarding the least recently used value when
+ * full.
+ */
+public class MemoizingPropertyProvider extends PropertyProvider {
+    
+    private static final int MAX_CACHE_SIZE = 10000;
+    
+    private final Map<String, Optional<String>> cache = Collections
+            .synchronizedMap(new LinkedHashMap<String, Optional<String>>(16, 0.75f, true) {
+                
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Optional<String>> eldest) {
+                    return size() > MAX_CACHE_SIZE;
+                }
+            });
+    
+    private volatile String signature;
+    
+    public MemoizingPropertyProvider() {
+        super();
+    }
+    
+    public MemoizingPropertyProvider(String prefix) {
+        super(prefix);
+    }
+    
+    public MemoizingPropertyProvider(ApplicationContext applicationContext) {
+        super(applicationContext);
+    }
+    
+    public MemoizingPropertyProvider(String prefix, ApplicationContext applicationContext) {
+        super(prefix, applicationContext);
+    }
+    
+    @Override
+    public String getProperty(String key) {
+        String sig = PropertySourceVersion.getSignature(getEnvironment());
+        
+        if (!sig.equals(signature)) {
+            cache.clear();
+            signature = sig;
+        }
+        
+        String cacheKey = getCacheKey(key);
+        Optional<String> value = cache.get(cacheKey);
+        
+        if (value == null) {
+            value = Optional.ofNullable(super.getProperty(key));
+            cache.put(cacheKey, value);
+        }
+        
+        return value.orElse(null);
+    }
+    
+    /**
+     * Discards all cached values.
+     */
+    public void clear() {
+        cache.clear();
+    }
+    
+    /**
+     * Returns the cache key for a property. Domain properties are qualified by the logical id of
+     * the authenticated user, if any, and labels by the current locale.
+     * 
+     * @param key The property key.
+     * @return The cache key.
+     */
+    private String getCacheKey(String key) {
+        String realKey = getRealKey(key);
+        
+        if (DomainPropertySource.isDomainProperty(realKey)) {
+            return PropertySourceVersion.getUserQualifier() + "@" + key;
+        }
+        
+        if (LabelPropertySource.isLabel(realKey)) {
+            return PropertySourceVersion.getLocaleQualifier() + "@" + key;
+        }
+        
+        return key;
+    }
+    
+}
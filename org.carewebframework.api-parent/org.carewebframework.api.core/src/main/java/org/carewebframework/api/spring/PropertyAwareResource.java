@@ -30,10 +30,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.apache.commons.io.IOUtils;
 import org.fujion.common.MiscUtil;
+import org.fujion.common.StrUtil;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.ApplicationContext;
@@ -43,10 +46,34 @@ import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
 
 /**
- * Takes an input resource and transforms it by resolving any embedded property values.
+ * Takes an input resource and transforms it by resolving any embedded property values. Transformed
+ * content is cached by resource and property source signature, so that the same resource is
+ * resolved only once across application contexts sharing the same property sources. Resources that
+ * reference domain properties or labels, whose values may vary by user or locale, are cached
+ * separately for each user and locale. The cache is bounded, discarding the least recently used
+ * entry when full.
  */
 public class PropertyAwareResource implements Resource, ApplicationContextAware {
     
+    private static final byte[] UNTRANSFORMED = new byte[0];
+    
+    private static final byte[] CONTEXT_DEPENDENT = new byte[0];
+    
+    private static final int MAX_CACHE_SIZE = 1000;
+    
+    private static final Map<String, byte[]> resolutionCache = Collections
+            .synchronizedMap(new LinkedHashMap<String, byte[]>(16, 0.75f, true) {
+                
+                private static final long serialVersionUID = 1L;
+                
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                    return size() > MAX_CACHE_SIZE;
+                }
+            });
+    
+    private static volatile long cacheVersion;
+    
     private final Resource originalResource;
     
     private Resource transformedResource;
@@ -120,32 +147,105 @@ public class PropertyAwareResource implements Resource, ApplicationContextAware
     
     /**
      * Use the application context to resolve any embedded property values within the original
-     * resource.
+     * resource. The result is retrieved from the resolution cache if available.
      */
     @Override
     public void setApplicationContext(ApplicationContext appContext) throws BeansException {
-        try (InputStream is = originalResource.getInputStream();) {
-            ConfigurableListableBeanFactory beanFactory = ((AbstractRefreshableApplicationContext) appContext)
-                    .getBeanFactory();
-            StringBuilder sb = new StringBuilder();
-            Iterator<String> iter = IOUtils.lineIterator(is, "UTF-8");
-            boolean transformed = false;
+        long version = PropertySourceVersion.getVersion();
+        
+        if (version != cacheVersion) {
+            resolutionCache.clear();
+            cacheVersion = version;
+        }
+        
+        String key = originalResource.getDescription() + "@"
+                + PropertySourceVersion.getSignature(appContext.getEnvironment());
+        byte[] content = resolutionCache.get(key);
+        boolean qualified = content == CONTEXT_DEPENDENT;
+        
+        if (qualified) {
+            key = getContextKey(key);
+            content = resolutionCache.get(key);
+        }
+        
+        if (content == null) {
+            String text = read();
             
-            while (iter.hasNext()) {
-                String line = iter.next();
-                
-                if (line.contains("${")) {
-                    transformed = true;
-                    line = beanFactory.resolveEmbeddedValue(line);
-                }
-                
-                sb.append(line);
+            if (!qualified && isContextDependent(text)) {
+                resolutionCache.put(key, CONTEXT_DEPENDENT);
+                key = getContextKey(key);
             }
             
-            transformedResource = !transformed ? originalResource : new ByteArrayResource(sb.toString().getBytes());
+            content = transform(text, appContext);
+            resolutionCache.put(key, content);
+        }
+        
+        transformedResource = content == UNTRANSFORMED ? originalResource
+                : new ByteArrayResource(content, originalResource.getDescription());
+    }
+    
+    /**
+     * Returns true if the text references properties whose values may vary by user or locale.
+     * 
+     * @param text The text to examine.
+     * @return True if the text references domain properties or labels.
+     */
+    private boolean isContextDependent(String text) {
+        int i = text.indexOf("${");
+        
+        while (i >= 0) {
+            int j = text.indexOf('}', i);
+            String name = text.substring(i + 2, j < 0 ? text.length() : j);
+            
+            if (DomainPropertySource.isDomainProperty(name) || LabelPropertySource.isLabel(name)) {
+                return true;
+            }
+            
+            i = text.indexOf("${", i + 2);
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Qualifies a cache key with the authenticated user and current locale.
+     * 
+     * @param key The cache key.
+     * @return The qualified cache key.
+     */
+    private String getContextKey(String key) {
+        return key + "@" + PropertySourceVersion.getUserQualifier() + "@" + PropertySourceVersion.getLocaleQualifier();
+    }
+    
+    /**
+     * Reads the content of the original resource.
+     * 
+     * @return The content of the original resource.
+     */
+    private String read() {
+        try (InputStream is = originalResource.getInputStream();) {
+            return IOUtils.toString(is, StrUtil.UTF8);
         } catch (IOException e) {
             throw MiscUtil.toUnchecked(e);
         }
     }
     
+    /**
+     * Resolves embedded property values within the original resource.
+     * 
+     * @param text The content of the original resource.
+     * @param appContext The application context.
+     * @return The transformed content, or {@link #UNTRANSFORMED} if the resource contains no
+     *         embedded property references.
+     */
+    private byte[] transform(String text, ApplicationContext appContext) {
+        if (!text.contains("${")) {
+            return UNTRANSFORMED;
+        }
+        
+        ConfigurableListableBeanFactory beanFactory = ((AbstractRefreshableApplicationContext) appContext)
+                .getBeanFactory();
+        return beanFactory.resolveEmbeddedValue(text).getBytes(StrUtil.UTF8);
+    }
+    
 }
@@ -91,6 +91,10 @@ public class PropertyProvider implements IPropertyProvider, ApplicationContextAw
                 .get(PropertySourcesPlaceholderConfigurer.LOCAL_PROPERTIES_PROPERTY_SOURCE_NAME);
     }
     
+    protected Environment getEnvironment() {
+        return environment;
+    }
+    
     protected String getRealKey(String key) {
         return prefix + key;
     }
@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.spring;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.carewebframework.api.domain.IUser;
+import org.carewebframework.api.security.ISecurityService;
+import org.carewebframework.api.security.SecurityUtil;
+import org.fujion.common.Localizer;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+
+/**
+ * Tracks changes to property sources so that cached property values and placeholder resolutions
+ * can be invalidated. A change is signaled either by an explicit call to {@link #increment()}
+ * (e.g., when a domain property is saved) or by a change in the composition of an environment's
+ * property sources.
+ * <p>
+ * Because an explicit change is only signaled on the node where it occurred, the version may also
+ * be advanced periodically (see {@link #setTimeToLive}). This bounds how long a value changed on
+ * another node of a cluster may remain cached.
+ */
+public class PropertySourceVersion {
+    
+    private static final AtomicLong version = new AtomicLong();
+    
+    private static volatile long timeToLive;
+    
+    /**
+     * Returns the current version. If a time to live is set, the version also advances each time
+     * that interval elapses.
+     *
+     * @return The current version.
+     */
+    public static long getVersion() {
+        long ttl = timeToLive;
+        return version.get() + (ttl > 0 ? System.currentTimeMillis() / ttl : 0);
+    }
+    
+    /**
+     * Returns the maximum time that cached values remain valid.
+     *
+     * @return The time to live in milliseconds (0 for no limit).
+     */
+    public static long getTimeToLive() {
+        return timeToLive;
+    }
+    
+    /**
+     * Sets the maximum time that cached values remain valid. Values changed on other nodes of a
+     * cluster become visible on this node within this interval.
+     *
+     * @param timeToLive The time to live in milliseconds (0 for no limit).
+     */
+    public static void setTimeToLive(long timeToLive) {
+        PropertySourceVersion.timeToLive = Math.max(0, timeToLive);
+    }
+    
+    /**
+     * Signals that one or more property values may have changed.
+     *
+     * @return The new version.
+     */
+    public static long increment() {
+        return version.incrementAndGet();
+    }
+    
+    /**
+     * Returns a signature that combines the current version with the names of the environment's
+     * property sources. Environments with the same composition produce the same signature.
+     *
+     * @param environment The environment (may be null).
+     * @return The signature.
+     */
+    public static String getSignature(Environment environment) {
+        StringBuilder sb = new StringBuilder().append(getVersion());
+        
+        if (environment instanceof ConfigurableEnvironment) {
+            for (PropertySource<?> propertySource : ((ConfigurableEnvironment) environment).getPropertySources()) {
+                sb.append('|').append(propertySource.getName());
+            }
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Returns a qualifier identifying the authenticated user, for use in keys that cache values
+     * that may be user-specific (e.g., domain properties).
+     *
+     * @return The logical id of the authenticated user, or an empty string if none.
+     */
+    public static String getUserQualifier() {
+        ISecurityService securityService = SecurityUtil.getSecurityService();
+        IUser user = securityService == null ? null : securityService.getAuthenticatedUser();
+        return user == null ? "" : user.getLogicalId();
+    }
+    
+    /**
+     * Returns a qualifier identifying the current locale, for use in keys that cache values that
+     * may be locale-specific (e.g., labels).
+     *
+     * @return The current locale.
+     */
+    public static String getLocaleQualifier() {
+        return Localizer.getDefaultLocale().toString();
+    }
+    
+    /**
+     * Enforce static class.
+     */
+    private PropertySourceVersion() {
+    }
+}
@@ -34,7 +34,6 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.fujion.common.MiscUtil;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
 
 /**
@@ -46,7 +45,7 @@ public class ResourceCache implements ResourcePatternResolver {
 
     private final Map<String, Resource[]> cache = new ConcurrentHashMap<>();
 
-    private final ResourcePatternResolver resolver;
+    private final IndexedResourcePatternResolver resolver;
 
     /**
      * Provides a predictable ordering of context configuration resources.
@@ -63,7 +62,16 @@ public class ResourceCache implements ResourcePatternResolver {
     };
 
     public ResourceCache(ResourceLoader resourceLoader) {
-        this.resolver = new PathMatchingResourcePatternResolver(resourceLoader);
+        this.resolver = new IndexedResourcePatternResolver(resourceLoader);
+    }
+
+    /**
+     * Returns the resource index used to resolve patterns against indexed archives.
+     *
+     * @return The resource index.
+     */
+    public ResourceIndex getResourceIndex() {
+        return resolver.getResourceIndex();
     }
 
     /**
@@ -0,0 +1,224 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api.spring;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.fujion.common.StrUtil;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ResourceUtils;
+
+/**
+ * Merged view of the resource indexes found on the class path. A resource index is written at
+ * build time by the <code>resource-index</code> goal of the CWF Maven plugin and lists the relative
+ * paths of all resources within the build output directory. Pattern resolution against an indexed
+ * archive (or nested archive) can then be performed without enumerating its entries. Roots lacking
+ * an index are not represented here and must be scanned.
+ * <p>
+ * Only archives are indexed. A class path directory may change after its index was written (e.g.,
+ * by an IDE build or when running from the build output directory), so indexes found in
+ * directories are ignored and such directories are always scanned.
+ * <p>
+ * Note that the index reflects the contents of the build output directory. Entries added to an
+ * archive at packaging time (e.g., the manifest itself) are not indexed, so absence from the index
+ * is not proof that a resource does not exist.
+ */
+public class ResourceIndex {
+    
+    private static final Log log = LogFactory.getLog(ResourceIndex.class);
+    
+    /**
+     * Location of the resource index within an archive.
+     */
+    public static final String INDEX_PATH = "META-INF/cwf-resource.index";
+    
+    private static final Map<ClassLoader, ResourceIndex> instances = new WeakHashMap<>();
+    
+    private final Map<String, List<String>> index = new HashMap<>();
+    
+    /**
+     * Returns the resource index for the specified class loader, creating it if necessary.
+     *
+     * @param classLoader The class loader (null for the default class loader).
+     * @return The resource index.
+     */
+    public static ResourceIndex getInstance(ClassLoader classLoader) {
+        ClassLoader cl = classLoader == null ? ClassUtils.getDefaultClassLoader() : classLoader;
+        
+        synchronized (instances) {
+            ResourceIndex instance = instances.get(cl);
+            
+            if (instance == null) {
+                instances.put(cl, instance = new ResourceIndex(cl));
+            }
+            
+            return instance;
+        }
+    }
+    
+    /**
+     * Returns the archive root of a URL that references an archive entry. For nested archives,
+     * this is the root of the innermost archive.
+     *
+     * @param url The URL.
+     * @return The archive root (including the trailing jar URL separator), or null if the URL does
+     *         not reference an archive entry.
+     */
+    public static String getArchiveRoot(String url) {
+        int i = url.lastIndexOf(ResourceUtils.JAR_URL_SEPARATOR);
+        return i < 0 ? null : url.substring(0, i + ResourceUtils.JAR_URL_SEPARATOR.length());
+    }
+    
+    /**
+     * Loads all resource indexes visible to the class loader.
+     *
+     * @param classLoader The class loader.
+     */
+    private ResourceIndex(ClassLoader classLoader) {
+        long start = System.currentTimeMillis();
+        
+        try {
+            Enumeration<URL> urls = classLoader == null ? ClassLoader.getSystemResources(INDEX_PATH)
+                    : classLoader.getResources(INDEX_PATH);
+            
+            while (urls.hasMoreElements()) {
+                URL url = urls.nextElement();
+                String path = url.toString();
+                String root = path.endsWith(INDEX_PATH) ? path.substring(0, path.length() - INDEX_PATH.length()) : null;
+                
+                if (root != null && getArchiveRoot(root) == null) {
+                    log.debug("Ignoring resource index in class path directory: " + url);
+                } else if (root != null && !index.containsKey(root)) {
+                    try (InputStream is = url.openStream()) {
+                        List<String> entries = new ArrayList<>(IOUtils.readLines(is, StrUtil.UTF8));
+                        entries.removeIf(String::isEmpty);
+                        Collections.sort(entries);
+                        index.put(root, entries);
+                    } catch (Exception e) {
+                        log.warn("Error reading resource index: " + url, e);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error enumerating resource indexes.", e);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + index.size() + " resource index(es) in " + (System.currentTimeMillis() - start) + " ms.");
+        }
+    }
+    
+    /**
+     * Returns the indexed root containing the referenced resource. This is the root of the
+     * innermost archive containing the resource.
+     *
+     * @param url URL of the root or of a resource beneath the root.
+     * @return The indexed root (ending with the jar URL separator), or null if the resource does not
+     *         reside within an indexed archive.
+     */
+    public String getRoot(String url) {
+        String root = getArchiveRoot(url);
+        return root != null && index.containsKey(root) ? root : null;
+    }
+    
+    /**
+     * Returns true if the root containing the referenced resource is indexed.
+     *
+     * @param url URL of the root or of a resource beneath the root.
+     * @return True if the root is indexed.
+     */
+    public boolean isIndexed(String url) {
+        return getRoot(url) != null;
+    }
+    
+    /**
+     * Returns the indexed entries beneath a root that begin with the specified path prefix.
+     *
+     * @param url URL of the root or of a resource beneath the root.
+     * @param prefix Entry path prefix, relative to the root (may be empty).
+     * @return The matching entries in sorted order, or null if the root is not indexed.
+     */
+    public List<String> getEntries(String url, String prefix) {
+        String root = getRoot(url);
+        List<String> entries = root == null ? null : index.get(root);
+        
+        if (entries == null || prefix.isEmpty()) {
+            return entries;
+        }
+        
+        int i = Collections.binarySearch(entries, prefix);
+        int from = i < 0 ? -i - 1 : i;
+        int to = from;
+        
+        while (to < entries.size() && entries.get(to).startsWith(prefix)) {
+            to++;
+        }
+        
+        return entries.subList(from, to);
+    }
+    
+    /**
+     * Determines from the index whether the referenced resource exists. Because entries added at
+     * packaging time are not indexed, a negative answer is only advisory; callers that require a
+     * definitive answer must fall back to a real lookup.
+     *
+     * @param url URL of a resource beneath an indexed root.
+     * @return True or false if the root is indexed, or null if existence cannot be determined from
+     *         the index.
+     */
+    public Boolean exists(String url) {
+        String root = getRoot(url);
+        List<String> entries = root == null ? null : index.get(root);
+        
+        if (entries == null) {
+            return null;
+        }
+        
+        String path = url.substring(root.length());
+        return Collections.binarySearch(entries, path) >= 0;
+    }
+    
+    /**
+     * Returns the number of indexed roots.
+     *
+     * @return The number of indexed roots.
+     */
+    public int size() {
+        return index.size();
+    }
+    
+}
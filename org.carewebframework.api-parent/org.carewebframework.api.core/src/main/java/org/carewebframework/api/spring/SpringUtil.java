@@ -41,7 +41,7 @@ public class SpringUtil {
     
     private static volatile PropertyProvider propertyProvider;
     
-    private static final PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+    private static final PathMatchingResourcePatternResolver resolver = new IndexedResourcePatternResolver();
     
     /**
      * Sets the finder logic for locating the framework context. This is set during framework
@@ -142,7 +142,7 @@ public class SpringUtil {
     
     private static synchronized void initPropertyProvider() {
         if (propertyProvider == null) {
-            propertyProvider = new PropertyProvider(getRootAppContext());
+            propertyProvider = new MemoizingPropertyProvider(getRootAppContext());
         }
     }
     
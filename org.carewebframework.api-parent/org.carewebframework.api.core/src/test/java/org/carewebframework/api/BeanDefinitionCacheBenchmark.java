@@ -0,0 +1,106 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.spring.BeanDefinitionCache;
+import org.carewebframework.api.spring.Constants;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.env.StandardEnvironment;
+
+import org.junit.Test;
+
+/**
+ * Compares the time to populate a session's child context bean factory by parsing its
+ * configuration with the time to restore it from the bean definition cache. This is the portion of
+ * session creation affected by the cache. Not run as part of the normal build; run explicitly with
+ * <code>mvn test -Dtest=BeanDefinitionCacheBenchmark</code>.
+ */
+public class BeanDefinitionCacheBenchmark {
+    
+    private static final Log log = LogFactory.getLog(BeanDefinitionCacheBenchmark.class);
+    
+    private static final String LOCATION = "classpath:/META-INF/@00100@cwf-api-spring.xml";
+    
+    private static final int ITERATIONS = 500;
+    
+    @Test
+    public void benchmark() {
+        BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+        String key = BeanDefinitionCache.createKey(new String[] { LOCATION }, Constants.PROFILES_CHILD_TEST);
+        cache.setEnabled(true);
+        
+        try {
+            DefaultListableBeanFactory beanFactory = parse();
+            cache.store(key, beanFactory);
+            int count = beanFactory.getBeanDefinitionCount();
+            time(key, false, count);
+            time(key, true, count);
+            long parsed = time(key, false, count);
+            long restored = time(key, true, count);
+            log.info("Populated child bean factory (" + count + " definitions) in " + parsed / ITERATIONS / 1000
+                    + " us (parsed), " + restored / ITERATIONS / 1000 + " us (cached) on average.");
+        } finally {
+            cache.setEnabled(false);
+        }
+    }
+    
+    private long time(String key, boolean cached, int count) {
+        long elapsed = 0;
+        
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            DefaultListableBeanFactory beanFactory;
+            
+            if (cached) {
+                beanFactory = new DefaultListableBeanFactory();
+                assertTrue(BeanDefinitionCache.getInstance().restore(key, beanFactory));
+            } else {
+                beanFactory = parse();
+            }
+            
+            elapsed += System.nanoTime() - start;
+            assertEquals(count, beanFactory.getBeanDefinitionCount());
+        }
+        
+        return elapsed;
+    }
+    
+    private DefaultListableBeanFactory parse() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        StandardEnvironment env = new StandardEnvironment();
+        env.setActiveProfiles(Constants.PROFILES_CHILD_TEST);
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory);
+        reader.setEnvironment(env);
+        reader.loadBeanDefinitions(LOCATION);
+        return beanFactory;
+    }
+}
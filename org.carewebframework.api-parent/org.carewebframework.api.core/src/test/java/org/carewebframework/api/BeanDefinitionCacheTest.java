@@ -0,0 +1,157 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+
+import org.carewebframework.api.spring.BeanDefinitionCache;
+import org.carewebframework.api.spring.Constants;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.beans.factory.support.ManagedList;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.beans.factory.xml.XmlBeanDefinitionReader;
+import org.springframework.core.env.StandardEnvironment;
+
+import org.junit.Test;
+
+public class BeanDefinitionCacheTest {
+    
+    private static final String LOCATION = "classpath:/META-INF/@00100@cwf-api-spring.xml";
+    
+    @Test
+    public void test() {
+        BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+        String key = BeanDefinitionCache.createKey(new String[] { LOCATION }, Constants.PROFILES_ROOT_TEST);
+        DefaultListableBeanFactory parsed = new DefaultListableBeanFactory();
+        DefaultListableBeanFactory restored = new DefaultListableBeanFactory();
+        cache.setEnabled(true);
+        
+        try {
+            assertFalse(cache.restore(key, restored));
+            load(parsed);
+            cache.store(key, parsed);
+            assertTrue(cache.contains(key));
+            assertTrue(cache.restore(key, restored));
+            assertArrayEquals(parsed.getBeanDefinitionNames(), restored.getBeanDefinitionNames());
+            
+            for (String name : parsed.getBeanDefinitionNames()) {
+                assertNotSame(parsed.getBeanDefinition(name), restored.getBeanDefinition(name));
+                assertArrayEquals(parsed.getAliases(name), restored.getAliases(name));
+            }
+        } finally {
+            cache.setEnabled(false);
+        }
+        
+        assertFalse(cache.contains(key));
+    }
+    
+    @Test
+    public void testDeepCopy() {
+        BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+        String key = "testDeepCopy";
+        DefaultListableBeanFactory source = new DefaultListableBeanFactory();
+        GenericBeanDefinition inner = new GenericBeanDefinition();
+        inner.setBeanClassName("java.lang.StringBuilder");
+        inner.getPropertyValues().add("length", "1");
+        ManagedList<Object> list = new ManagedList<>();
+        list.add(new BeanDefinitionHolder(inner, "inner"));
+        GenericBeanDefinition outer = new GenericBeanDefinition();
+        outer.setBeanClassName("java.util.ArrayList");
+        outer.getPropertyValues().add("items", list);
+        outer.getConstructorArgumentValues().addIndexedArgumentValue(0, new TypedStringValue("10"));
+        source.registerBeanDefinition("outer", outer);
+        cache.setEnabled(true);
+        
+        try {
+            cache.store(key, source);
+            DefaultListableBeanFactory restored1 = new DefaultListableBeanFactory();
+            DefaultListableBeanFactory restored2 = new DefaultListableBeanFactory();
+            assertTrue(cache.restore(key, restored1));
+            assertTrue(cache.restore(key, restored2));
+            // Mutate the first restored definition as a post-processor might.
+            BeanDefinition def1 = restored1.getBeanDefinition("outer");
+            getInner(def1).getPropertyValues().add("length", "2");
+            ((TypedStringValue) def1.getConstructorArgumentValues().getIndexedArgumentValue(0, null).getValue())
+                    .setValue("20");
+            def1.getPropertyValues().add("extra", "x");
+            // Neither the source, the cache, nor the other restored definition is affected.
+            BeanDefinition def2 = restored2.getBeanDefinition("outer");
+            assertEquals("1", getInner(def2).getPropertyValues().get("length"));
+            assertEquals("10",
+                ((TypedStringValue) def2.getConstructorArgumentValues().getIndexedArgumentValue(0, null).getValue())
+                        .getValue());
+            assertFalse(def2.getPropertyValues().contains("extra"));
+            assertEquals("1", inner.getPropertyValues().get("length"));
+            DefaultListableBeanFactory restored3 = new DefaultListableBeanFactory();
+            assertTrue(cache.restore(key, restored3));
+            assertEquals("1", getInner(restored3.getBeanDefinition("outer")).getPropertyValues().get("length"));
+        } finally {
+            cache.setEnabled(false);
+        }
+    }
+    
+    @Test
+    public void testUncopyable() {
+        BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+        String key = "testUncopyable";
+        SimpleBeanDefinitionRegistry source = new SimpleBeanDefinitionRegistry();
+        source.registerBeanDefinition("bean", new GenericBeanDefinition());
+        source.registerBeanDefinition("foreign", (BeanDefinition) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { BeanDefinition.class }, (proxy, method, args) -> null));
+        cache.setEnabled(true);
+        
+        try {
+            cache.store(key, source);
+            assertFalse(cache.contains(key));
+            assertFalse(cache.restore(key, new DefaultListableBeanFactory()));
+        } finally {
+            cache.setEnabled(false);
+        }
+    }
+    
+    private BeanDefinition getInner(BeanDefinition outer) {
+        ManagedList<?> list = (ManagedList<?>) outer.getPropertyValues().get("items");
+        return ((BeanDefinitionHolder) list.get(0)).getBeanDefinition();
+    }
+    
+    private void load(DefaultListableBeanFactory beanFactory) {
+        StandardEnvironment env = new StandardEnvironment();
+        env.setActiveProfiles(Constants.PROFILES_ROOT_TEST);
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(beanFactory);
+        reader.setEnvironment(env);
+        reader.loadBeanDefinitions(LOCATION);
+    }
+}
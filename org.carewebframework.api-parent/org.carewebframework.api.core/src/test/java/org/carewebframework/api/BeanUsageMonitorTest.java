@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.carewebframework.api.spring.BeanUsageMonitor;
+import org.carewebframework.api.spring.FrameworkBeanFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.context.support.GenericApplicationContext;
+
+import org.junit.Test;
+
+public class BeanUsageMonitorTest {
+    
+    @Test
+    public void testEnabled() {
+        FrameworkBeanFactory beanFactory = new FrameworkBeanFactory(null, null);
+        
+        try (GenericApplicationContext appContext = createContext(beanFactory, true)) {
+            assertTrue(beanFactory.isUsageTracking());
+            assertNotNull(appContext.getBean("used"));
+            BeanUsageMonitor monitor = (BeanUsageMonitor) appContext.getBean("monitor");
+            // "injected" is referenced by "holder", and prototypes and lazy singletons are never reported.
+            assertEquals(Arrays.asList("holder", "unused"), monitor.getUntouchedBeans());
+            appContext.getBean("holder");
+            assertEquals(Collections.singletonList("unused"), monitor.getUntouchedBeans());
+        }
+    }
+    
+    @Test
+    public void testDisabled() {
+        FrameworkBeanFactory beanFactory = new FrameworkBeanFactory(null, null);
+        
+        try (GenericApplicationContext appContext = createContext(beanFactory, false)) {
+            assertFalse(beanFactory.isUsageTracking());
+            assertTrue(((BeanUsageMonitor) appContext.getBean("monitor")).getUntouchedBeans().isEmpty());
+        }
+    }
+    
+    private GenericApplicationContext createContext(FrameworkBeanFactory beanFactory, boolean enabled) {
+        GenericApplicationContext appContext = new GenericApplicationContext(beanFactory);
+        GenericBeanDefinition monitor = createBeanDefinition(BeanUsageMonitor.class);
+        monitor.getPropertyValues().add("enabled", enabled);
+        appContext.registerBeanDefinition("monitor", monitor);
+        appContext.registerBeanDefinition("used", createBeanDefinition(Object.class));
+        appContext.registerBeanDefinition("unused", createBeanDefinition(Object.class));
+        appContext.registerBeanDefinition("injected", createBeanDefinition(ArrayList.class));
+        GenericBeanDefinition holder = createBeanDefinition(ArrayList.class);
+        holder.getConstructorArgumentValues().addGenericArgumentValue(new RuntimeBeanReference("injected"));
+        appContext.registerBeanDefinition("holder", holder);
+        GenericBeanDefinition prototype = createBeanDefinition(Object.class);
+        prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        appContext.registerBeanDefinition("prototype", prototype);
+        GenericBeanDefinition lazy = createBeanDefinition(Object.class);
+        lazy.setLazyInit(true);
+        appContext.registerBeanDefinition("lazy", lazy);
+        appContext.refresh();
+        return appContext;
+    }
+    
+    private GenericBeanDefinition createBeanDefinition(Class<?> beanClass) {
+        GenericBeanDefinition beanDefinition = new GenericBeanDefinition();
+        beanDefinition.setBeanClass(beanClass);
+        return beanDefinition;
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.carewebframework.api.query.AbstractQueryService;
+import org.carewebframework.api.query.CachingQueryService;
+import org.carewebframework.api.query.IAsyncQueryStrategy;
+import org.carewebframework.api.query.IQueryCallback;
+import org.carewebframework.api.query.IQueryContext;
+import org.carewebframework.api.query.IQueryResult;
+import org.carewebframework.api.query.IQueryResult.CompletionStatus;
+import org.carewebframework.api.query.QueryContext;
+import org.carewebframework.api.query.QueryUtil;
+import org.carewebframework.api.thread.IAbortable;
+import org.junit.Test;
+
+public class CachingQueryServiceTest {
+    
+    private static class CountingService extends AbstractQueryService<String> {
+        
+        private final AtomicInteger fetches = new AtomicInteger();
+        
+        private final CountDownLatch release;
+        
+        private volatile boolean fail;
+        
+        CountingService(boolean block) {
+            release = new CountDownLatch(block ? 1 : 0);
+        }
+        
+        CountingService(IAsyncQueryStrategy<String> strategy) {
+            super(strategy);
+            release = new CountDownLatch(0);
+        }
+        
+        @Override
+        public boolean hasRequired(IQueryContext context) {
+            return true;
+        }
+        
+        @Override
+        public IQueryResult<String> fetch(IQueryContext context) {
+            fetches.incrementAndGet();
+            
+            if (fail) {
+                throw new IllegalStateException("Service unavailable.");
+            }
+            
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                return QueryUtil.abortResult(null);
+            }
+            
+            return QueryUtil.packageResult(Collections.singletonList(String.valueOf(context.getParam("id"))));
+        }
+    }
+    
+    private static class Callback implements IQueryCallback<String> {
+        
+        private final CompletableFuture<IQueryResult<String>> result = new CompletableFuture<>();
+        
+        @Override
+        public void onQueryStart(IAbortable thread) {
+        }
+        
+        @Override
+        public void onQueryFinish(IAbortable thread, IQueryResult<String> result) {
+            this.result.complete(result);
+        }
+        
+        IQueryResult<String> get() throws Exception {
+            return result.get(5, TimeUnit.SECONDS);
+        }
+    }
+    
+    private static QueryContext context(Object... params) {
+        QueryContext context = new QueryContext();
+        
+        for (int i = 0; i < params.length; i += 2) {
+            context.setParam((String) params[i], params[i + 1]);
+        }
+        
+        return context;
+    }
+    
+    @Test
+    public void testCache() throws Exception {
+        CountingService service = new CountingService(false);
+        CachingQueryService<String> cache = new CachingQueryService<>(service, 0, 2);
+        IQueryResult<String> result = cache.fetch(context("id", 1, "type", "a"));
+        assertSame(result, cache.fetch(context("type", "a", "id", 1)));
+        assertEquals(1, service.fetches.get());
+        cache.fetch(context("id", 2));
+        cache.fetch(context("id", 3));
+        assertEquals(2, cache.size());
+        cache.fetch(context("id", 1, "type", "a"));
+        assertEquals(4, service.fetches.get());
+        cache.invalidate(context("id", 3));
+        assertEquals(1, cache.size());
+        cache.invalidate();
+        assertEquals(0, cache.size());
+    }
+    
+    @Test
+    public void testExpiration() throws Exception {
+        CountingService service = new CountingService(false);
+        CachingQueryService<String> cache = new CachingQueryService<>(service, 50, 10);
+        cache.fetch(context("id", 1));
+        cache.fetch(context("id", 1));
+        assertEquals(1, service.fetches.get());
+        Thread.sleep(100);
+        cache.fetch(context("id", 1));
+        assertEquals(2, service.fetches.get());
+    }
+    
+    @Test
+    public void testSharedRequest() throws Exception {
+        CountingService service = new CountingService(true);
+        CachingQueryService<String> cache = new CachingQueryService<>(service, 0, 10);
+        Callback callback1 = new Callback();
+        Callback callback2 = new Callback();
+        Callback callback3 = new Callback();
+        cache.fetch(context("id", 1), callback1);
+        IAbortable query2 = cache.fetch(context("id", 1), callback2);
+        query2.abort();
+        assertEquals(CompletionStatus.ABORTED, callback2.get().getStatus());
+        service.release.countDown();
+        IQueryResult<String> result = callback1.get();
+        assertEquals(CompletionStatus.COMPLETED, result.getStatus());
+        assertEquals(1, service.fetches.get());
+        cache.fetch(context("id", 1), callback3);
+        assertSame(result, callback3.get());
+        assertTrue(callback3.result.isDone());
+    }
+    
+    @Test
+    public void testFailure() throws Exception {
+        // A null strategy fetches synchronously, so the failure propagates to the caller.
+        CountingService service = new CountingService(null);
+        CachingQueryService<String> cache = new CachingQueryService<>(service, 0, 10);
+        service.fail = true;
+        
+        try {
+            cache.fetch(context("id", 1), new Callback());
+            fail("Expected exception.");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        
+        assertEquals(0, cache.size());
+        service.fail = false;
+        assertEquals("1", cache.fetch(context("id", 1)).getResults().get(0));
+        Callback callback = new Callback();
+        cache.fetch(context("id", 1), callback);
+        assertEquals(CompletionStatus.COMPLETED, callback.get().getStatus());
+        assertEquals(2, service.fetches.get());
+    }
+    
+}
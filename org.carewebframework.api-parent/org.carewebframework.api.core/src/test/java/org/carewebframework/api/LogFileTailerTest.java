@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import org.carewebframework.api.logging.LogFileTailer;
+import org.carewebframework.api.logging.LogFileTailerListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LogFileTailerTest {
+    
+    private final List<String> lines = new ArrayList<>();
+    
+    private final List<Integer> batches = new ArrayList<>();
+    
+    private final LogFileTailerListener listener = new LogFileTailerListener() {
+        
+        @Override
+        public void newFileLine(String line) {
+        }
+        
+        @Override
+        public void newFileLines(List<String> newLines) {
+            synchronized (lines) {
+                lines.addAll(newLines);
+                batches.add(newLines.size());
+            }
+        }
+        
+        @Override
+        public void tailerTerminated() {
+        }
+    };
+    
+    private File file;
+    
+    private LogFileTailer tailer;
+    
+    @Before
+    public void setup() throws Exception {
+        file = File.createTempFile("tailer", ".log");
+        append(file, "existing\n");
+    }
+    
+    @After
+    public void teardown() throws Exception {
+        tailer.stopTailing();
+        Files.deleteIfExists(file.toPath());
+        Files.deleteIfExists(new File(file.getPath() + ".1").toPath());
+    }
+    
+    @Test
+    public void testTailer() throws Exception {
+        tailer = new LogFileTailer(file, 50, true);
+        tailer.setBatchSize(2);
+        tailer.setCharset(StandardCharsets.UTF_8);
+        tailer.addFileTailerListener(listener);
+        new Thread(tailer).start();
+        assertLines("existing");
+        // Lines are delivered in batches; an unterminated line is held until terminated.
+        append(file, "line 1\r\nline 2\nline \u00e9");
+        append(file, "3\rline 4\n");
+        assertLines("line 1", "line 2", "line \u00e93", "line 4");
+        assertTrue(batches.stream().allMatch(size -> size <= 2));
+        // Truncation
+        Files.write(file.toPath(), new byte[0]);
+        append(file, "line 5\n");
+        assertLines("line 5");
+        // Rotation
+        assertTrue(file.renameTo(new File(file.getPath() + ".1")));
+        append(file, "line 6\n");
+        assertLines("line 6");
+    }
+    
+    private void assertLines(String... expected) throws Exception {
+        waitFor(() -> {
+            synchronized (lines) {
+                return lines.size() >= expected.length;
+            }
+        });
+        
+        synchronized (lines) {
+            assertEquals(Arrays.asList(expected), lines);
+            lines.clear();
+        }
+    }
+    
+    private void append(File file, String text) throws IOException {
+        try (OutputStream os = new FileOutputStream(file, true)) {
+            os.write(text.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+    
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 5000;
+        
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.carewebframework.api.spring.LabelPropertySource;
+import org.carewebframework.api.spring.MemoizingPropertyProvider;
+import org.carewebframework.api.spring.PropertyAwareResource;
+import org.carewebframework.api.spring.PropertySourceVersion;
+import org.fujion.common.Localizer;
+import org.fujion.common.StrUtil;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.context.support.PropertySourcesPlaceholderConfigurer;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+
+import org.junit.Test;
+
+public class PropertyAwareResourceTest {
+    
+    private static final String CONTENT = "<a>${test.value}</a>\n<b>unchanged</b>\n";
+    
+    private static final String LABEL = "cwf.test.property.locale";
+    
+    private static Locale locale;
+    
+    @Test
+    public void test() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("test.value", "first");
+        
+        try (ClassPathXmlApplicationContext appContext = new ClassPathXmlApplicationContext()) {
+            appContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+            appContext.refresh();
+            assertEquals("<a>first</a>\n<b>unchanged</b>\n", resolve(appContext));
+            properties.put("test.value", "second");
+            assertEquals("<a>first</a>\n<b>unchanged</b>\n", resolve(appContext));
+            PropertySourceVersion.increment();
+            assertEquals("<a>second</a>\n<b>unchanged</b>\n", resolve(appContext));
+        }
+    }
+    
+    @Test
+    public void testTimeToLive() throws Exception {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("test.value", "first");
+        
+        try (ClassPathXmlApplicationContext appContext = new ClassPathXmlApplicationContext()) {
+            appContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("test", properties));
+            appContext.refresh();
+            PropertySourceVersion.setTimeToLive(50);
+            assertEquals("<a>first</a>\n<b>unchanged</b>\n", resolve(appContext));
+            // Simulates a change made on another node.
+            properties.put("test.value", "second");
+            Thread.sleep(100);
+            assertEquals("<a>second</a>\n<b>unchanged</b>\n", resolve(appContext));
+        } finally {
+            PropertySourceVersion.setTimeToLive(0);
+        }
+    }
+    
+    @Test
+    public void testLocale() throws Exception {
+        Localizer.registerMessageSource((key, locale, args) -> LABEL.equals(key) ? locale.toString() : null);
+        Localizer.setLocaleResolver(() -> locale);
+        
+        try (ClassPathXmlApplicationContext appContext = new ClassPathXmlApplicationContext()) {
+            appContext.getEnvironment().getPropertySources().addLast(new LabelPropertySource());
+            appContext.refresh();
+            PropertySourcesPlaceholderConfigurer cfg = new PropertySourcesPlaceholderConfigurer();
+            cfg.setEnvironment(appContext.getEnvironment());
+            cfg.postProcessBeanFactory(appContext.getBeanFactory());
+            appContext.getBeanFactory().registerSingleton(PropertySourcesPlaceholderConfigurer.class.getName() + "#0", cfg);
+            MemoizingPropertyProvider provider = new MemoizingPropertyProvider(appContext);
+            String content = "<a>${@msg." + LABEL + "}</a>";
+            locale = Locale.US;
+            assertEquals("<a>en_US</a>", resolve(appContext, content));
+            assertEquals("en_US", provider.getProperty("@msg." + LABEL));
+            locale = Locale.FRANCE;
+            assertEquals("<a>fr_FR</a>", resolve(appContext, content));
+            assertEquals("fr_FR", provider.getProperty("@msg." + LABEL));
+        } finally {
+            Localizer.setLocaleResolver(() -> Locale.getDefault());
+        }
+    }
+    
+    private String resolve(ClassPathXmlApplicationContext appContext) throws Exception {
+        return resolve(appContext, CONTENT);
+    }
+    
+    private String resolve(ClassPathXmlApplicationContext appContext, String content) throws Exception {
+        Resource original = new ByteArrayResource(content.getBytes(StrUtil.UTF8), "test resource");
+        PropertyAwareResource resource = new PropertyAwareResource(original);
+        resource.setApplicationContext(appContext);
+        return IOUtils.toString(resource.getInputStream(), StrUtil.UTF8);
+    }
+    
+}
@@ -0,0 +1,367 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.function.BooleanSupplier;
+
+import org.carewebframework.api.query.AbstractPagedQueryService;
+import org.carewebframework.api.query.AbstractQueryFilter;
+import org.carewebframework.api.query.AbstractQueryService;
+import org.carewebframework.api.query.FilteredQueryService;
+import org.carewebframework.api.query.IQueryBatchCallback;
+import org.carewebframework.api.query.IQueryCallback;
+import org.carewebframework.api.query.IQueryContext;
+import org.carewebframework.api.query.IQueryResult;
+import org.carewebframework.api.query.IQueryResult.CompletionStatus;
+import org.carewebframework.api.query.QueryContext;
+import org.carewebframework.api.query.QueryExecutor;
+import org.carewebframework.api.query.QueryFilterSet;
+import org.carewebframework.api.query.QueryUtil;
+import org.carewebframework.api.thread.IAbortable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryExecutorTest {
+    
+    private static class TestService extends AbstractQueryService<String> {
+        
+        private final CountDownLatch release = new CountDownLatch(1);
+        
+        private final CountDownLatch started;
+        
+        private final AtomicInteger running = new AtomicInteger();
+        
+        private final LongAccumulator maxRunning = new LongAccumulator(Math::max, 0);
+        
+        private final AtomicBoolean interrupted = new AtomicBoolean();
+        
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        
+        TestService(int expectedStarts) {
+            started = new CountDownLatch(expectedStarts);
+        }
+        
+        @Override
+        public boolean hasRequired(IQueryContext context) {
+            return true;
+        }
+        
+        @Override
+        public IQueryResult<String> fetch(IQueryContext context) {
+            maxRunning.accumulate(running.incrementAndGet());
+            started.countDown();
+            
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            } finally {
+                running.decrementAndGet();
+            }
+            
+            return QueryUtil.packageResult(new ArrayList<>());
+        }
+        
+        @Override
+        public void cancel(IQueryContext context) {
+            cancelled.set(true);
+        }
+    }
+    
+    private static class Callback<T> implements IQueryCallback<T> {
+        
+        private final CompletableFuture<IQueryResult<T>> result = new CompletableFuture<>();
+        
+        @Override
+        public void onQueryStart(IAbortable thread) {
+        }
+        
+        @Override
+        public void onQueryFinish(IAbortable thread, IQueryResult<T> result) {
+            this.result.complete(result);
+        }
+        
+        CompletionStatus getStatus() throws Exception {
+            return result.get(5, TimeUnit.SECONDS).getStatus();
+        }
+    }
+    
+    private static class PagedService extends AbstractPagedQueryService<Integer> {
+        
+        @Override
+        public boolean hasRequired(IQueryContext context) {
+            return true;
+        }
+        
+        @Override
+        public IQueryResult<Integer> fetchPage(IQueryContext context, Object cursor) {
+            int start = cursor == null ? 0 : (Integer) cursor;
+            List<Integer> page = new ArrayList<>();
+            
+            for (int i = start; i < start + 10; i++) {
+                page.add(i);
+            }
+            
+            return QueryUtil.pageResult(page, start + 10 < 50 ? start + 10 : null);
+        }
+    }
+    
+    private static class BatchCallback implements IQueryBatchCallback<Integer> {
+        
+        private final List<IQueryResult<Integer>> batches = new ArrayList<>();
+        
+        private final CompletableFuture<IQueryResult<Integer>> result = new CompletableFuture<>();
+        
+        @Override
+        public void onQueryStart(IAbortable thread) {
+        }
+        
+        @Override
+        public void onQueryBatch(IAbortable thread, IQueryResult<Integer> batch) {
+            batches.add(batch);
+        }
+        
+        @Override
+        public void onQueryFinish(IAbortable thread, IQueryResult<Integer> result) {
+            this.result.complete(result);
+        }
+    }
+    
+    private final QueryExecutor executor = QueryExecutor.getInstance();
+    
+    @Before
+    public void before() {
+        executor.setPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setMaxPerService(4);
+        executor.setTimeout(0);
+        executor.resetStatistics();
+    }
+    
+    @After
+    public void after() {
+        executor.destroy();
+    }
+    
+    @Test
+    public void testServiceLimit() throws Exception {
+        executor.setMaxPerService(2);
+        TestService service = new TestService(2);
+        List<Callback<String>> callbacks = new ArrayList<>();
+        
+        for (int i = 0; i < 6; i++) {
+            Callback<String> callback = new Callback<>();
+            callbacks.add(callback);
+            service.fetch(new QueryContext(), callback);
+        }
+        
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        assertEquals(4, executor.getQueueDepth());
+        service.release.countDown();
+        
+        for (Callback<String> callback : callbacks) {
+            assertEquals(CompletionStatus.COMPLETED, callback.getStatus());
+        }
+        
+        assertEquals(2, service.maxRunning.get());
+        assertEquals(6, executor.getCompletedCount());
+        assertEquals(0, executor.getQueueDepth());
+    }
+    
+    @Test
+    public void testAbort() throws Exception {
+        TestService service = new TestService(1);
+        Callback<String> callback = new Callback<>();
+        IAbortable query = service.fetch(new QueryContext(), callback);
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        query.abort();
+        assertEquals(CompletionStatus.ABORTED, callback.getStatus());
+        assertTrue(service.cancelled.get());
+        waitFor(() -> service.running.get() == 0);
+        assertTrue(service.interrupted.get());
+        assertEquals(1, executor.getCancelledCount());
+    }
+    
+    @Test
+    public void testTimeout() throws Exception {
+        executor.setTimeout(100);
+        TestService service = new TestService(1);
+        Callback<String> callback = new Callback<>();
+        service.fetch(new QueryContext(), callback);
+        assertEquals(CompletionStatus.ABORTED, callback.getStatus());
+        assertEquals(1, executor.getTimeoutCount());
+        assertTrue(service.cancelled.get());
+    }
+    
+    @Test
+    public void testRejection() throws Exception {
+        executor.setQueueCapacity(1);
+        executor.setMaxPerService(1);
+        TestService service = new TestService(1);
+        Callback<String> running = new Callback<>();
+        Callback<String> waiting = new Callback<>();
+        Callback<String> rejected = new Callback<>();
+        service.fetch(new QueryContext(), running);
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        service.fetch(new QueryContext(), waiting);
+        service.fetch(new QueryContext(), rejected);
+        assertEquals(CompletionStatus.ERROR, rejected.getStatus());
+        assertTrue(rejected.result.get().getMetadata("exception") instanceof RejectedExecutionException);
+        assertEquals(1, executor.getRejectedCount());
+        service.release.countDown();
+        assertEquals(CompletionStatus.COMPLETED, running.getStatus());
+        assertEquals(CompletionStatus.COMPLETED, waiting.getStatus());
+    }
+    
+    @Test
+    public void testDestroy() throws Exception {
+        executor.destroy();
+        executor.setPoolSize(1);
+        executor.setMaxPerService(2);
+        TestService service = new TestService(1);
+        List<Callback<String>> callbacks = new ArrayList<>();
+        
+        for (int i = 0; i < 4; i++) {
+            Callback<String> callback = new Callback<>();
+            callbacks.add(callback);
+            service.fetch(new QueryContext(), callback);
+        }
+        
+        assertTrue(service.started.await(5, TimeUnit.SECONDS));
+        assertEquals(3, executor.getQueueDepth());
+        executor.destroy();
+        
+        for (Callback<String> callback : callbacks.subList(1, 4)) {
+            assertEquals(CompletionStatus.ABORTED, callback.getStatus());
+        }
+        
+        assertEquals(CompletionStatus.COMPLETED, callbacks.get(0).getStatus());
+        assertTrue(service.interrupted.get());
+        assertEquals(0, executor.getQueueDepth());
+        // Concurrency slots must have been released for the service to accept new queries.
+        service.release.countDown();
+        Callback<String> callback = new Callback<>();
+        service.fetch(new QueryContext(), callback);
+        assertEquals(CompletionStatus.COMPLETED, callback.getStatus());
+    }
+    
+    @Test
+    public void testPaged() throws Exception {
+        PagedService service = new PagedService();
+        assertEquals(50, service.fetch(new QueryContext()).getResults().size());
+        BatchCallback callback = new BatchCallback();
+        service.fetch(new QueryContext(), callback);
+        IQueryResult<Integer> last = callback.result.get(5, TimeUnit.SECONDS);
+        assertEquals(CompletionStatus.COMPLETED, last.getStatus());
+        assertEquals(10, last.getResults().size());
+        assertEquals(4, callback.batches.size());
+        
+        for (IQueryResult<Integer> batch : callback.batches) {
+            assertEquals(CompletionStatus.PARTIAL, batch.getStatus());
+            assertEquals(10, batch.getResults().size());
+        }
+        
+        QueryFilterSet<Integer> filters = new QueryFilterSet<>();
+        filters.add(new AbstractQueryFilter<Integer>() {
+            
+            @Override
+            public boolean include(Integer result) {
+                return result % 2 == 0;
+            }
+            
+            @Override
+            public boolean updateContext(IQueryContext context) {
+                return false;
+            }
+        });
+        
+        FilteredQueryService<Integer> filtered = new FilteredQueryService<>(service, filters);
+        callback = new BatchCallback();
+        filtered.fetch(new QueryContext(), callback);
+        IQueryResult<Integer> result = callback.result.get(5, TimeUnit.SECONDS);
+        assertEquals(5, result.getResults().size());
+        assertEquals(4, callback.batches.size());
+        assertEquals(5, callback.batches.get(0).getResults().size());
+        assertEquals(20, QueryUtil.getCursor(callback.batches.get(1)));
+        assertEquals(5, filtered.refilter(callback.batches.get(0)).getResults().size());
+        assertEquals(25, filtered.refilter(result).getResults().size());
+        Callback<Integer> whole = new Callback<>();
+        service.fetch(new QueryContext(), whole);
+        assertEquals(50, whole.result.get(5, TimeUnit.SECONDS).getResults().size());
+    }
+    
+    @Test
+    public void testAbortDuringBatch() throws Exception {
+        CountDownLatch delivering = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BatchCallback callback = new BatchCallback() {
+            
+            @Override
+            public void onQueryBatch(IAbortable thread, IQueryResult<Integer> batch) {
+                super.onQueryBatch(thread, batch);
+                delivering.countDown();
+                
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        
+        IAbortable query = new PagedService().fetch(new QueryContext(), callback);
+        assertTrue(delivering.await(5, TimeUnit.SECONDS));
+        // Must not wait on the batch handler.
+        query.abort();
+        assertFalse(callback.result.isDone());
+        release.countDown();
+        assertEquals(CompletionStatus.ABORTED, callback.result.get(5, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, callback.batches.size());
+    }
+    
+    private void waitFor(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        
+        assertTrue(condition.getAsBoolean());
+    }
+    
+}
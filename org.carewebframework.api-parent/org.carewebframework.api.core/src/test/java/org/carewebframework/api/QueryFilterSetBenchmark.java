@@ -0,0 +1,109 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.query.AbstractQueryFilter;
+import org.carewebframework.api.query.IQueryContext;
+import org.carewebframework.api.query.QueryFilterSet;
+import org.junit.Test;
+
+/**
+ * Compares incremental and full refiltering after a single filter changes. Not run as part of the
+ * normal build; run explicitly with <code>mvn test -Dtest=QueryFilterSetBenchmark</code>.
+ */
+public class QueryFilterSetBenchmark {
+    
+    private static final Log log = LogFactory.getLog(QueryFilterSetBenchmark.class);
+    
+    private static class DigitFilter extends AbstractQueryFilter<Integer> {
+        
+        private volatile char excluded;
+        
+        DigitFilter(char excluded) {
+            this.excluded = excluded;
+        }
+        
+        void setExcluded(char excluded) {
+            this.excluded = excluded;
+            notifyListeners();
+        }
+        
+        @Override
+        public boolean include(Integer result) {
+            return String.format("%08d", result).indexOf(excluded) < 0;
+        }
+        
+        @Override
+        public boolean updateContext(IQueryContext context) {
+            return false;
+        }
+    }
+    
+    private static final int SIZE = 50000;
+    
+    @Test
+    public void benchmark() {
+        List<Integer> rows = new ArrayList<>(SIZE);
+        
+        for (int i = 0; i < SIZE; i++) {
+            rows.add(i);
+        }
+        
+        QueryFilterSet<Integer> filters = new QueryFilterSet<>();
+        QueryFilterSet<Integer> baseline = new QueryFilterSet<>();
+        List<DigitFilter> members = new ArrayList<>();
+        
+        for (int i = 1; i <= 5; i++) {
+            DigitFilter filter = new DigitFilter('x');
+            members.add(filter);
+            filters.add(filter);
+            baseline.add(filter);
+        }
+        
+        long incremental = Long.MAX_VALUE;
+        long full = Long.MAX_VALUE;
+        
+        for (int i = 0; i < 10; i++) {
+            members.get(0).setExcluded(i % 2 == 0 ? '7' : 'x');
+            long start = System.nanoTime();
+            filters.filter(rows);
+            incremental = Math.min(incremental, System.nanoTime() - start);
+            List<Integer> copy = new ArrayList<>(rows);
+            start = System.nanoTime();
+            baseline.filter(copy);
+            full = Math.min(full, System.nanoTime() - start);
+        }
+        
+        log.info("Refiltered " + SIZE + " rows after toggling one of 5 filters in " + incremental / 1000
+                + " us (incremental), " + full / 1000 + " us (full).");
+    }
+    
+}
@@ -0,0 +1,149 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.carewebframework.api.query.AbstractQueryFilter;
+import org.carewebframework.api.query.IQueryContext;
+import org.carewebframework.api.query.QueryContext;
+import org.carewebframework.api.query.QueryFilterSet;
+import org.junit.Test;
+
+public class QueryFilterSetTest {
+    
+    private static class ModuloFilter extends AbstractQueryFilter<Integer> {
+        
+        private final AtomicInteger evaluations = new AtomicInteger();
+        
+        private volatile int modulus;
+        
+        ModuloFilter(int modulus) {
+            this.modulus = modulus;
+        }
+        
+        void setModulus(int modulus) {
+            this.modulus = modulus;
+            notifyListeners();
+        }
+        
+        @Override
+        public boolean include(Integer result) {
+            evaluations.incrementAndGet();
+            return result % modulus == 0;
+        }
+        
+        /**
+         * Changes the modulus without notifying listeners.
+         */
+        @Override
+        public boolean updateContext(IQueryContext context) {
+            Integer modulus = (Integer) context.getParam("modulus");
+            
+            if (modulus == null || modulus == this.modulus) {
+                return false;
+            }
+            
+            this.modulus = modulus;
+            return true;
+        }
+    }
+    
+    private static final int SIZE = 50000;
+    
+    private final List<Integer> rows = new ArrayList<>(SIZE);
+    
+    public QueryFilterSetTest() {
+        for (int i = 0; i < SIZE; i++) {
+            rows.add(i);
+        }
+    }
+    
+    @Test
+    public void testIncremental() {
+        QueryFilterSet<Integer> filters = new QueryFilterSet<>();
+        ModuloFilter filter1 = new ModuloFilter(2);
+        ModuloFilter filter2 = new ModuloFilter(3);
+        filters.add(filter1);
+        filters.add(filter2);
+        assertEquals(SIZE / 6 + 1, filters.filter(rows).size());
+        assertEquals(SIZE, filter1.evaluations.get());
+        assertEquals(SIZE, filter2.evaluations.get());
+        filter1.setModulus(5);
+        List<Integer> filtered = filters.filter(rows);
+        assertEquals(SIZE / 15 + 1, filtered.size());
+        assertEquals(Integer.valueOf(15), filtered.get(1));
+        assertEquals(2 * SIZE, filter1.evaluations.get());
+        assertEquals(SIZE, filter2.evaluations.get());
+        filter1.setModulus(1);
+        filter2.setModulus(1);
+        assertSame(rows, filters.filter(rows));
+        filters.remove(filter2);
+        filter1.setModulus(7);
+        assertEquals(SIZE / 7 + 1, filters.filter(new ArrayList<>(rows)).size());
+    }
+    
+    @Test
+    public void testModified() {
+        QueryFilterSet<Integer> filters = new QueryFilterSet<>();
+        ModuloFilter filter = new ModuloFilter(2);
+        filters.add(filter);
+        List<Integer> list = new ArrayList<>(rows);
+        assertEquals(Integer.valueOf(2), filters.filter(list).get(1));
+        Collections.reverse(list);
+        assertEquals(Integer.valueOf(SIZE - 4), filters.filter(list).get(1));
+        list.set(0, 0);
+        assertEquals(SIZE / 2 + 1, filters.filter(list).size());
+        QueryContext context = new QueryContext();
+        context.setParam("modulus", 5);
+        assertTrue(filters.updateContext(context));
+        assertEquals(SIZE / 5 + 1, filters.filter(list).size());
+        assertFalse(filters.updateContext(context));
+    }
+    
+    @Test
+    public void testParallel() {
+        QueryFilterSet<Integer> filters = new QueryFilterSet<>();
+        filters.setParallelThreshold(1000);
+        ModuloFilter filter = new ModuloFilter(3);
+        filters.add(filter);
+        List<Integer> filtered = filters.filter(rows);
+        assertEquals(SIZE / 3 + 1, filtered.size());
+        
+        for (int i = 0; i < filtered.size(); i++) {
+            assertEquals(Integer.valueOf(i * 3), filtered.get(i));
+        }
+    }
+    
+}
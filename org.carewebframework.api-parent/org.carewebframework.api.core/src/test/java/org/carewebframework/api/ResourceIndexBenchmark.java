@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.net.URLClassLoader;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.spring.IndexedResourcePatternResolver;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Compares pattern resolution across indexed and unindexed archives. Not run as part of the normal
+ * build; run explicitly with <code>mvn test -Dtest=ResourceIndexBenchmark</code>.
+ */
+public class ResourceIndexBenchmark {
+    
+    private static final Log log = LogFactory.getLog(ResourceIndexBenchmark.class);
+    
+    private static final int JAR_COUNT = 100;
+    
+    private static final int ENTRY_COUNT = 500;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void benchmark() throws Exception {
+        File[] indexed = new File[JAR_COUNT];
+        File[] unindexed = new File[JAR_COUNT];
+        
+        for (int i = 0; i < JAR_COUNT; i++) {
+            String[] entries = new String[ENTRY_COUNT];
+            
+            for (int j = 0; j < entries.length; j++) {
+                entries[j] = "org/carewebframework/plugin" + i + "/Resource" + j + ".class";
+            }
+            
+            entries[0] = "META-INF/plugin" + i + "-spring.xml";
+            indexed[i] = ResourceIndexTest.createJar(folder.newFile("indexed" + i + ".jar"), true, entries);
+            unindexed[i] = ResourceIndexTest.createJar(folder.newFile("unindexed" + i + ".jar"), false, entries);
+        }
+        
+        time(unindexed);
+        time(indexed);
+        long scanned = time(unindexed);
+        long resolved = time(indexed);
+        log.info("Resolved pattern across " + JAR_COUNT + " jars in " + scanned / 1000 + " us (scanned), "
+                + resolved / 1000 + " us (indexed).");
+    }
+    
+    private long time(File[] jars) throws Exception {
+        try (URLClassLoader cl = ResourceIndexTest.newClassLoader(jars)) {
+            long start = System.nanoTime();
+            Resource[] resources = new IndexedResourcePatternResolver(new DefaultResourceLoader(cl))
+                    .getResources(ResourceIndexTest.PATTERN);
+            long elapsed = System.nanoTime() - start;
+            assertEquals(JAR_COUNT, resources.length);
+            return elapsed;
+        }
+    }
+    
+}
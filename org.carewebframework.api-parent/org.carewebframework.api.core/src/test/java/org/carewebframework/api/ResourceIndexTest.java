@@ -0,0 +1,200 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.carewebframework.api.spring.IndexedResourcePatternResolver;
+import org.carewebframework.api.spring.ResourceIndex;
+import org.fujion.common.StrUtil;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ResourceIndexTest {
+    
+    static final String PATTERN = "classpath*:/META-INF/*-spring.xml";
+    
+    private static final String WEBJAR = "META-INF/resources/webjars/lib/1.0/lib.js";
+    
+    private static final String WEBJAR_PATTERN = "classpath*:/META-INF/resources/webjars/?*/?*/";
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testIndex() throws Exception {
+        File indexed = createJar(folder.newFile("indexed.jar"), true, "META-INF/plugin-spring.xml", "META-INF/other.txt",
+            WEBJAR);
+        File unindexed = createJar(folder.newFile("unindexed.jar"), false, "META-INF/legacy-spring.xml");
+        
+        try (URLClassLoader cl = newClassLoader(indexed, unindexed)) {
+            IndexedResourcePatternResolver resolver = new IndexedResourcePatternResolver(new DefaultResourceLoader(cl));
+            ResourceIndex index = resolver.getResourceIndex();
+            assertEquals(1, index.size());
+            Resource[] resources = resolver.getResources(PATTERN);
+            assertEquals(2, resources.length);
+            resources = resolver.getResources(WEBJAR_PATTERN);
+            assertEquals(1, resources.length);
+            assertTrue(resources[0].createRelative("lib.js").exists());
+            String root = "jar:" + indexed.toURI().toURL() + "!/";
+            assertEquals(root, index.getRoot(root + "META-INF/other.txt"));
+            assertTrue(index.isIndexed(root + "META-INF/other.txt"));
+            assertTrue(index.exists(root + "META-INF/other.txt"));
+            assertFalse(index.exists(root + "META-INF/missing.txt"));
+            assertEquals(3, index.getEntries(root, "META-INF/").size());
+            assertNull(index.exists("jar:" + unindexed.toURI().toURL() + "!/META-INF/legacy-spring.xml"));
+        }
+    }
+    
+    @Test
+    public void testDirectory() throws Exception {
+        File dir = folder.newFolder("classes");
+        FileUtils.write(new File(dir, "META-INF/plugin-spring.xml"), "", StrUtil.UTF8);
+        FileUtils.write(new File(dir, "META-INF/other.txt"), "", StrUtil.UTF8);
+        FileUtils.write(new File(dir, ResourceIndex.INDEX_PATH), "META-INF/other.txt\nMETA-INF/plugin-spring.xml\n",
+            StrUtil.UTF8);
+        // Added after the index was written, so must be found by scanning.
+        FileUtils.write(new File(dir, "META-INF/unlisted-spring.xml"), "", StrUtil.UTF8);
+        
+        try (URLClassLoader cl = newClassLoader(dir)) {
+            IndexedResourcePatternResolver resolver = new IndexedResourcePatternResolver(new DefaultResourceLoader(cl));
+            ResourceIndex index = resolver.getResourceIndex();
+            assertEquals(0, index.size());
+            Resource[] resources = resolver.getResources(PATTERN);
+            assertEquals(2, resources.length);
+            String root = dir.toURI().toURL().toString();
+            assertNull(index.getRoot(root + "META-INF/other.txt"));
+            assertNull(index.exists(root + "META-INF/unlisted-spring.xml"));
+        }
+    }
+    
+    @Test
+    public void testNestedJar() throws Exception {
+        File outer = folder.newFile("outer.jar");
+        String root = "jar:" + outer.toURI().toURL() + "!/lib/inner.jar!/";
+        byte[] content = "META-INF/plugin-spring.xml\nMETA-INF/other.txt\n".getBytes(StrUtil.UTF8);
+        URL indexURL = new URL(null, root + ResourceIndex.INDEX_PATH, new URLStreamHandler() {
+            
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return new URLConnection(url) {
+                    
+                    @Override
+                    public void connect() {
+                    }
+                    
+                    @Override
+                    public InputStream getInputStream() {
+                        return new ByteArrayInputStream(content);
+                    }
+                };
+            }
+        });
+        
+        ClassLoader cl = new ClassLoader(null) {
+            
+            @Override
+            public Enumeration<URL> getResources(String name) {
+                return ResourceIndex.INDEX_PATH.equals(name) ? Collections.enumeration(Collections.singleton(indexURL))
+                        : Collections.emptyEnumeration();
+            }
+        };
+        
+        ResourceIndex index = ResourceIndex.getInstance(cl);
+        assertEquals(1, index.size());
+        assertEquals(root, index.getRoot(root + "META-INF/other.txt"));
+        assertTrue(index.exists(root + "META-INF/other.txt"));
+        assertFalse(index.exists(root + "META-INF/missing.txt"));
+        assertEquals(2, index.getEntries(root, "META-INF/").size());
+        // The outer archive itself is not indexed.
+        assertNull(index.getRoot("jar:" + outer.toURI().toURL() + "!/META-INF/other.txt"));
+        assertNull(index.exists("jar:" + outer.toURI().toURL() + "!/lib/inner.jar"));
+    }
+    
+    static URLClassLoader newClassLoader(File... roots) throws Exception {
+        URL[] urls = new URL[roots.length];
+        
+        for (int i = 0; i < roots.length; i++) {
+            urls[i] = roots[i].toURI().toURL();
+        }
+        
+        return new URLClassLoader(urls, null);
+    }
+    
+    static File createJar(File file, boolean index, String... entries) throws Exception {
+        try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(file))) {
+            StringBuilder sb = new StringBuilder();
+            Set<String> dirs = new HashSet<>();
+            
+            for (String entry : entries) {
+                for (int i = entry.indexOf('/'); i > 0; i = entry.indexOf('/', i + 1)) {
+                    String dir = entry.substring(0, i + 1);
+                    
+                    if (dirs.add(dir)) {
+                        jar.putNextEntry(new JarEntry(dir));
+                        jar.closeEntry();
+                    }
+                }
+                
+                jar.putNextEntry(new JarEntry(entry));
+                jar.closeEntry();
+                sb.append(entry).append('\n');
+            }
+            
+            if (index) {
+                jar.putNextEntry(new JarEntry(ResourceIndex.INDEX_PATH));
+                jar.write(sb.toString().getBytes(StrUtil.UTF8));
+                jar.closeEntry();
+            }
+        }
+        
+        return file;
+    }
+    
+}
@@ -79,7 +79,7 @@ public class HelpSet_CHMHelp extends HelpSetBase {
     }
     
     private void loadTopics() throws Exception {
-        HelpTopicNode rootNode = new HelpTopicTree(this, "topics.xml").getRootNode();
+        HelpTopicNode rootNode = getTopicTree("topics.xml").getRootNode();
         URL defaultURL = defaultTopic == null ? null : getURL(defaultTopic);
         int topicIndex = 0;
         
@@ -96,6 +96,19 @@ public class HelpSet_CHMHelp extends HelpSetBase {
         }
     }
     
+    /**
+     * Returns the (possibly cached) topic tree for the specified file, registering the topics
+     * within it that have an id.
+     * 
+     * @param file The file containing the topic hierarchy.
+     * @return The topic tree.
+     */
+    private HelpTopicTree getTopicTree(String file) {
+        HelpTopicTree topicTree = HelpTopicTree.getTopicTree(this, descriptor, file);
+        topicTree.getTopicIds().forEach(this::registerTopic);
+        return topicTree;
+    }
+    
     protected void registerTopic(String id, HelpTopic topic) {
         topics.put(id, topic);
     }
@@ -130,7 +143,7 @@ public class HelpSet_CHMHelp extends HelpSetBase {
     }
     
     private void initView(String file, HelpViewType type) throws Exception {
-        HelpTopicTree topicTree = new HelpTopicTree(this, file);
+        HelpTopicTree topicTree = getTopicTree(file);
         
         if (!topicTree.isEmpty()) {
             HelpView view = new HelpView(topicTree, type);
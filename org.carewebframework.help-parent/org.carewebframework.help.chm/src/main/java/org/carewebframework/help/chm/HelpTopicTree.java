@@ -25,31 +25,157 @@
  */
 package org.carewebframework.help.chm;
 
-import org.fujion.common.XMLUtil;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamReader;
+
+import org.fujion.common.MiscUtil;
+import org.carewebframework.help.HelpModule;
 import org.carewebframework.help.HelpTopic;
 import org.carewebframework.help.HelpTopicNode;
 
-import org.w3c.dom.Document;
-import org.w3c.dom.NamedNodeMap;
-import org.w3c.dom.Node;
-
 /**
- * Represents a hierarchy of topics for an index, TOC, etc.
+ * Represents a hierarchy of topics for an index, TOC, etc. Topic trees are built by streaming over
+ * the source file, and are cached by help module URL and file name so that each is built only once.
+ * Only the tree for the current module version is retained. A cached tree must not be modified.
  */
 public class HelpTopicTree {
     
-    private final HelpSet_CHMHelp helpSet;
+    private static final Map<List<String>, HelpTopicTree> cache = new ConcurrentHashMap<>();
+    
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    
+    static {
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+    
+    /**
+     * Placeholder on the parse stack for elements other than topics. Topics nested within such
+     * elements are ignored.
+     */
+    private static final HelpTopicNode IGNORED = new HelpTopicNode(null);
+    
+    private final String version;
     
     private final HelpTopicNode rootNode;
     
+    private final Map<String, HelpTopic> topicIds = new LinkedHashMap<>();
+    
+    private HelpTopicNode tocNode;
+    
+    /**
+     * Returns the topic tree for a help set file, building it if it is not already cached for the
+     * module's current version. A tree cached for a different version is replaced.
+     * 
+     * @param helpSet The help set.
+     * @param module The help module from which the help set was created.
+     * @param file The file containing the topic hierarchy.
+     * @return The topic tree.
+     */
+    public static HelpTopicTree getTopicTree(HelpSet_CHMHelp helpSet, HelpModule module, String file) {
+        List<String> key = Arrays.asList(module.getUrl(), file);
+        String version = module.getVersion();
+        
+        return cache.compute(key, (k, tree) -> {
+            if (tree != null && Objects.equals(tree.version, version)) {
+                return tree;
+            }
+            
+            try {
+                return new HelpTopicTree(helpSet, version, file);
+            } catch (Exception e) {
+                throw MiscUtil.toUnchecked(e);
+            }
+        });
+    }
+    
+    /**
+     * Builds the topic tree from the specified file.
+     * 
+     * @param helpSet The help set.
+     * @param file The file containing the topic hierarchy.
+     * @throws Exception Unspecified exception.
+     */
     public HelpTopicTree(HelpSet_CHMHelp helpSet, String file) throws Exception {
-        this.helpSet = helpSet;
+        this(helpSet, null, file);
+    }
+    
+    /**
+     * Builds the topic tree from the specified file.
+     * 
+     * @param helpSet The help set.
+     * @param version The version of the help module from which the help set was created.
+     * @param file The file containing the topic hierarchy.
+     * @throws Exception Unspecified exception.
+     */
+    private HelpTopicTree(HelpSet_CHMHelp helpSet, String version, String file) throws Exception {
+        this.version = version;
         this.rootNode = new HelpTopicNode(new HelpTopic(helpSet.getName()));
-        Document doc = XMLUtil.parseXMLFromStream(helpSet.openStream(file));
-        Node root = doc.getFirstChild();
         
-        if (root != null) {
-            initTopicTree(root, rootNode);
+        try (InputStream is = helpSet.openStream(file)) {
+            if (is != null) {
+                parse(helpSet, is);
+            }
+        }
+    }
+    
+    /**
+     * Streams over the topic hierarchy, creating a topic node for each topic element.
+     * 
+     * @param helpSet The help set.
+     * @param is Input stream of the topic hierarchy.
+     * @throws Exception Unspecified exception.
+     */
+    private void parse(HelpSet_CHMHelp helpSet, InputStream is) throws Exception {
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+        Deque<HelpTopicNode> stack = new ArrayDeque<>();
+        
+        try {
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        HelpTopicNode parentTopic = stack.peek();
+                        
+                        if (parentTopic == null) {
+                            stack.push(rootNode);
+                        } else if (parentTopic != IGNORED && "topic".equals(reader.getLocalName())) {
+                            String id = reader.getAttributeValue(null, "id");
+                            String url = reader.getAttributeValue(null, "url");
+                            String label = reader.getAttributeValue(null, "label");
+                            HelpTopic topic = new HelpTopic(url == null ? null : helpSet.getURL(url), label,
+                                    helpSet.getName());
+                            HelpTopicNode htn = new HelpTopicNode(topic, id);
+                            parentTopic.addChild(htn);
+                            stack.push(htn);
+                            
+                            if (id != null) {
+                                topicIds.put(id, topic);
+                            }
+                        } else {
+                            stack.push(IGNORED);
+                        }
+                        
+                        break;
+                    
+                    case XMLStreamConstants.END_ELEMENT:
+                        stack.pop();
+                        break;
+                }
+            }
+        } finally {
+            reader.close();
         }
     }
     
@@ -61,31 +187,27 @@ public class HelpTopicTree {
         return rootNode;
     }
     
-    private void initTopicTree(Node parentNode, HelpTopicNode parentTopic) throws Exception {
-        Node child = parentNode.getFirstChild();
-        
-        while (child != null) {
-            if ("topic".equals(child.getNodeName())) {
-                NamedNodeMap attrs = child.getAttributes();
-                String id = getAttributeValue("id", attrs);
-                String url = getAttributeValue("url", attrs);
-                String label = getAttributeValue("label", attrs);
-                HelpTopic topic = new HelpTopic(url == null ? null : helpSet.getURL(url), label, helpSet.getName());
-                HelpTopicNode htn = new HelpTopicNode(topic, id);
-                parentTopic.addChild(htn);
-                initTopicTree(child, htn);
-                
-                if (id != null) {
-                    helpSet.registerTopic(id, topic);
-                }
-            }
-            child = child.getNextSibling();
+    /**
+     * Returns a node whose only child is the root node, for use as the root of a table of contents.
+     * 
+     * @return The table of contents node.
+     */
+    public synchronized HelpTopicNode getTocNode() {
+        if (tocNode == null) {
+            tocNode = new HelpTopicNode(null);
+            tocNode.addChild(rootNode);
         }
+        
+        return tocNode;
     }
     
-    private String getAttributeValue(String attrName, NamedNodeMap attrs) {
-        Node node = attrs == null ? null : attrs.getNamedItem(attrName);
-        return node == null ? null : node.getNodeValue();
+    /**
+     * Returns the topics within the tree that have an id.
+     * 
+     * @return Map of topic id to topic.
+     */
+    public Map<String, HelpTopic> getTopicIds() {
+        return Collections.unmodifiableMap(topicIds);
     }
     
 }
@@ -48,12 +48,7 @@ public class HelpView implements IHelpView {
     public HelpView(HelpTopicTree topicTree, HelpViewType viewType) throws Exception {
         this.viewType = viewType;
         
-        if (viewType == HelpViewType.TOC) {
-            topics = new HelpTopicNode(null);
-            topics.addChild(topicTree.getRootNode());
-        } else {
-            topics = topicTree.getRootNode();
-        }
+        topics = viewType == HelpViewType.TOC ? topicTree.getTocNode() : topicTree.getRootNode();
     }
     
     /**
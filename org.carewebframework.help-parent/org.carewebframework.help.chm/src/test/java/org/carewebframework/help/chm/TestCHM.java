@@ -26,6 +26,7 @@
 package org.carewebframework.help.chm;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 
 import java.util.Collection;
@@ -76,5 +77,9 @@ public class TestCHM extends MockTest {
                     fail("Unexpected view type: " + type);
             }
         }
+        
+        IHelpSet hs2 = new HelpSet_CHMHelp(module);
+        assertEquals("Patient Goals", hs2.getTopic(hs2.getHomeID()).getLabel());
+        assertSame(views.iterator().next().getTopicTree(), hs2.getAllViews().iterator().next().getTopicTree());
     }
 }
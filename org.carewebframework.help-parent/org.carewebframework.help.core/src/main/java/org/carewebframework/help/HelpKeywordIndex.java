@@ -0,0 +1,208 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.help;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+/**
+ * Immutable keyword index. Keywords are held in a case-insensitively sorted array, allowing exact
+ * and prefix lookups by binary search. Each keyword maps to a sorted list of associated topics.
+ * Instances may be safely shared across sessions.
+ */
+public final class HelpKeywordIndex {
+    
+    public static final HelpKeywordIndex EMPTY = new HelpKeywordIndex(Collections.emptyMap());
+    
+    private final String[] keywords;
+    
+    private final List<List<HelpTopic>> topics;
+    
+    /**
+     * Builds the keyword index from a topic tree. Each top level node contributes a keyword (its
+     * label) whose topics are that node's topic and those of all of its descendants.
+     * 
+     * @param root Root node of the topic tree (may be null).
+     * @return The keyword index.
+     */
+    public static HelpKeywordIndex create(HelpTopicNode root) {
+        Map<String, List<HelpTopic>> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        
+        if (root != null) {
+            for (HelpTopicNode child : root.getChildren()) {
+                String keyword = child.getTopic().getLabel();
+                addTopics(child, index.computeIfAbsent(keyword, key -> new ArrayList<>()));
+            }
+        }
+        
+        return index.isEmpty() ? EMPTY : new HelpKeywordIndex(index);
+    }
+    
+    /**
+     * Merges several keyword indexes into one. Topics of keywords that appear in more than one
+     * index are combined.
+     * 
+     * @param indexes Keyword indexes to merge.
+     * @return The merged keyword index.
+     */
+    public static HelpKeywordIndex merge(Collection<HelpKeywordIndex> indexes) {
+        if (indexes.size() == 1) {
+            return indexes.iterator().next();
+        }
+        
+        Map<String, List<HelpTopic>> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        
+        for (HelpKeywordIndex source : indexes) {
+            for (int i = 0; i < source.keywords.length; i++) {
+                index.computeIfAbsent(source.keywords[i], key -> new ArrayList<>()).addAll(source.topics.get(i));
+            }
+        }
+        
+        return index.isEmpty() ? EMPTY : new HelpKeywordIndex(index);
+    }
+    
+    /**
+     * Recursively adds a node's topic and those of its descendants to a topic list. Topics without
+     * a URL are excluded.
+     * 
+     * @param node Help topic node.
+     * @param topics Topic list to receive results.
+     */
+    private static void addTopics(HelpTopicNode node, List<HelpTopic> topics) {
+        HelpTopic topic = node.getTopic();
+        
+        if (topic.getURL() != null) {
+            topics.add(topic);
+        }
+        
+        for (HelpTopicNode child : node.getChildren()) {
+            addTopics(child, topics);
+        }
+    }
+    
+    /**
+     * Creates an index from a case-insensitively sorted map of keywords to topics.
+     * 
+     * @param index Map of keywords to topics.
+     */
+    private HelpKeywordIndex(Map<String, List<HelpTopic>> index) {
+        keywords = new String[index.size()];
+        List<List<HelpTopic>> topics = new ArrayList<>(index.size());
+        int i = 0;
+        
+        for (Entry<String, List<HelpTopic>> entry : index.entrySet()) {
+            List<HelpTopic> list = new ArrayList<>(entry.getValue());
+            Collections.sort(list);
+            keywords[i++] = entry.getKey();
+            topics.add(Collections.unmodifiableList(list));
+        }
+        
+        this.topics = Collections.unmodifiableList(topics);
+    }
+    
+    /**
+     * Returns the number of keywords in the index.
+     * 
+     * @return The number of keywords.
+     */
+    public int size() {
+        return keywords.length;
+    }
+    
+    /**
+     * Returns all keywords in sorted order.
+     * 
+     * @return Unmodifiable list of keywords.
+     */
+    public List<String> getKeywords() {
+        return Collections.unmodifiableList(Arrays.asList(keywords));
+    }
+    
+    /**
+     * Returns the keyword at the specified position.
+     * 
+     * @param index Position of the keyword.
+     * @return The keyword.
+     */
+    public String getKeyword(int index) {
+        return keywords[index];
+    }
+    
+    /**
+     * Returns the sorted topics associated with the keyword at the specified position.
+     * 
+     * @param index Position of the keyword.
+     * @return Unmodifiable list of topics.
+     */
+    public List<HelpTopic> getTopics(int index) {
+        return topics.get(index);
+    }
+    
+    /**
+     * Returns the sorted topics associated with a keyword.
+     * 
+     * @param keyword The keyword (case-insensitive).
+     * @return Unmodifiable list of topics (empty if the keyword is not found).
+     */
+    public List<HelpTopic> getTopics(String keyword) {
+        int i = indexOf(keyword);
+        return i < 0 ? Collections.emptyList() : topics.get(i);
+    }
+    
+    /**
+     * Returns the position of a keyword.
+     * 
+     * @param keyword The keyword (case-insensitive).
+     * @return Position of the keyword, or -1 if not found.
+     */
+    public int indexOf(String keyword) {
+        int i = Arrays.binarySearch(keywords, keyword, String.CASE_INSENSITIVE_ORDER);
+        return i < 0 ? -1 : i;
+    }
+    
+    /**
+     * Returns the position of the first keyword beginning with the specified prefix.
+     * 
+     * @param prefix The prefix (case-insensitive).
+     * @return Position of the first matching keyword, or -1 if none match.
+     */
+    public int findPrefix(String prefix) {
+        int i = Arrays.binarySearch(keywords, prefix, String.CASE_INSENSITIVE_ORDER);
+        
+        if (i >= 0) {
+            return i;
+        }
+        
+        i = -i - 1;
+        return i < keywords.length && keywords[i].regionMatches(true, 0, prefix, 0, prefix.length()) ? i : -1;
+    }
+}
@@ -36,9 +36,24 @@ public class HelpSearchHit implements Comparable<HelpSearchHit> {
     
     private final double confidence;
     
+    private final String snippet;
+    
     public HelpSearchHit(HelpTopic topic, double confidence) {
+        this(topic, confidence, null);
+    }
+    
+    /**
+     * Creates a search hit with a highlighted snippet.
+     * 
+     * @param topic The help topic.
+     * @param confidence The confidence score.
+     * @param snippet Excerpt of the topic content surrounding the matched words, as HTML with the
+     *            matched words in bold (may be null).
+     */
+    public HelpSearchHit(HelpTopic topic, double confidence, String snippet) {
         this.topic = topic;
         this.confidence = confidence;
+        this.snippet = snippet;
     }
     
     /**
@@ -68,6 +83,15 @@ public class HelpSearchHit implements Comparable<HelpSearchHit> {
         return confidence;
     }
     
+    /**
+     * Returns the highlighted snippet associated with this hit.
+     * 
+     * @return An HTML snippet, or null if none.
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+    
     /**
      * Used to sort hits by confidence level.
      */
@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.help;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Immutable, pre-processed snapshot of a help view's topic tree and keyword index. Help sets are
+ * cached and shared, so a snapshot is created once per help view and then shared by all viewers
+ * that display it.
+ */
+public final class HelpViewSnapshot {
+    
+    /**
+     * An immutable node in the table of contents.
+     */
+    public static final class TocEntry {
+        
+        private final HelpTopic topic;
+        
+        private final List<TocEntry> children;
+        
+        private TocEntry(HelpTopicNode node) {
+            List<TocEntry> children = new ArrayList<>(node.getChildren().size());
+            
+            for (HelpTopicNode child : node.getChildren()) {
+                children.add(new TocEntry(child));
+            }
+            
+            this.topic = node.getTopic();
+            this.children = Collections.unmodifiableList(children);
+        }
+        
+        /**
+         * Returns the help topic associated with this entry.
+         * 
+         * @return A help topic.
+         */
+        public HelpTopic getTopic() {
+            return topic;
+        }
+        
+        /**
+         * Returns the child entries of this entry.
+         * 
+         * @return Unmodifiable list of child entries (never null).
+         */
+        public List<TocEntry> getChildren() {
+            return children;
+        }
+    }
+    
+    /**
+     * Case-insensitive ordering of table of contents entries by label.
+     */
+    public static final Comparator<TocEntry> TOC_ORDER = Comparator.comparing(entry -> entry.getTopic().getLabel(),
+        Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+    
+    private static final Map<IHelpView, HelpViewSnapshot> snapshots = new WeakHashMap<>();
+    
+    private final List<TocEntry> toc;
+    
+    private final HelpKeywordIndex keywordIndex;
+    
+    /**
+     * Returns the snapshot for a help view, creating it if necessary.
+     * 
+     * @param view The help view.
+     * @return The snapshot for the help view.
+     */
+    public static HelpViewSnapshot getSnapshot(IHelpView view) {
+        synchronized (snapshots) {
+            return snapshots.computeIfAbsent(view, HelpViewSnapshot::new);
+        }
+    }
+    
+    /**
+     * Creates a snapshot of a help view.
+     * 
+     * @param view The help view.
+     */
+    private HelpViewSnapshot(IHelpView view) {
+        HelpTopicNode root = view.getTopicTree();
+        List<TocEntry> toc = new ArrayList<>();
+        
+        if (root != null) {
+            for (HelpTopicNode node : root.getChildren()) {
+                toc.add(new TocEntry(node));
+            }
+        }
+        
+        Collections.sort(toc, TOC_ORDER);
+        this.toc = Collections.unmodifiableList(toc);
+        this.keywordIndex = HelpKeywordIndex.create(root);
+    }
+    
+    /**
+     * Returns the top level table of contents entries, sorted by label.
+     * 
+     * @return Unmodifiable list of top level entries.
+     */
+    public List<TocEntry> getToc() {
+        return toc;
+    }
+    
+    /**
+     * Returns the keyword index.
+     * 
+     * @return The keyword index.
+     */
+    public HelpKeywordIndex getKeywordIndex() {
+        return keywordIndex;
+    }
+}
@@ -25,7 +25,9 @@
  */
 package org.carewebframework.help;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -45,6 +47,17 @@ public interface IHelpSearch {
          *            capability).
          */
         void onSearchComplete(List<HelpSearchHit> results);
+        
+        /**
+         * Called by search engine to report a page of results.
+         * 
+         * @param results The requested page of search results, ordered by descending relevance.
+         * @param offset The offset of the first result within all search results.
+         * @param totalHits The total number of search results.
+         */
+        default void onSearchComplete(List<HelpSearchHit> results, int offset, int totalHits) {
+            onSearchComplete(results);
+        }
     }
     
     /**
@@ -57,6 +70,27 @@ public interface IHelpSearch {
      */
     void search(String words, Collection<IHelpSet> helpSets, IHelpSearchListener listener);
     
+    /**
+     * Performs a search query, reporting a single page of results to the listener. The default
+     * implementation performs a full search and extracts the requested page.
+     * 
+     * @param words List of words to be located.
+     * @param helpSets Help sets to be searched
+     * @param offset Offset of the first result to return.
+     * @param limit Maximum number of results to return.
+     * @param listener Listener for search results.
+     */
+    default void search(String words, Collection<IHelpSet> helpSets, int offset, int limit,
+                        IHelpSearchListener listener) {
+        search(words, helpSets, (results) -> {
+            List<HelpSearchHit> hits = results == null ? new ArrayList<>() : new ArrayList<>(results);
+            Collections.sort(hits);
+            int start = Math.min(offset, hits.size());
+            int end = Math.min(start + limit, hits.size());
+            listener.onSearchComplete(new ArrayList<>(hits.subList(start, end)), start, hits.size());
+        });
+    }
+    
     /**
      * Index all HTML files within the content of the help module.
      * 
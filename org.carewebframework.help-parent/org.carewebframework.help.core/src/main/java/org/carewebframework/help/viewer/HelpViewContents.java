@@ -25,14 +25,16 @@
  */
 package org.carewebframework.help.viewer;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.carewebframework.help.HelpTopic;
-import org.carewebframework.help.HelpTopicNode;
+import org.carewebframework.help.HelpViewSnapshot;
+import org.carewebframework.help.HelpViewSnapshot.TocEntry;
 import org.carewebframework.help.HelpViewType;
 import org.carewebframework.help.IHelpView;
-import org.carewebframework.ui.util.TreeUtil;
 import org.fujion.annotation.EventHandler;
 import org.fujion.annotation.WiredComponent;
 import org.fujion.component.BaseComponent;
@@ -40,7 +42,8 @@ import org.fujion.component.Treenode;
 import org.fujion.component.Treeview;
 
 /**
- * Tab for displaying the table of contents. This is displayed as a tree of topics.
+ * Tab for displaying the table of contents. This is displayed as a tree of topics, rendered from
+ * the shared snapshot of each help view.
  */
 public class HelpViewContents extends HelpViewBase {
     
@@ -51,6 +54,8 @@ public class HelpViewContents extends HelpViewBase {
     
     private final Map<HelpTopic, Treenode> topics = new HashMap<>();
     
+    private final List<TocEntry> entries = new ArrayList<>();
+    
     /**
      * Create the help tab for the specified viewer and viewType.
      * 
@@ -71,17 +76,6 @@ public class HelpViewContents extends HelpViewBase {
         setTopic(selectedTopic);
     }
     
-    /**
-     * Sort the table of contents before initial display.
-     * 
-     * @see HelpViewBase#init()
-     */
-    @Override
-    public void init() {
-        super.init();
-        TreeUtil.sort(tree, false);
-    }
-    
     /**
      * When the viewer changes the topic selection, highlight that topic in the tree (if it exists).
      * 
@@ -96,37 +90,66 @@ public class HelpViewContents extends HelpViewBase {
     }
     
     /**
-     * Merges the table of contents entries from the specified view into the tree.
+     * Merges the table of contents entries from the specified view into the tree. Top level
+     * entries are already sorted within the snapshot, so each is simply inserted at its sorted
+     * position among those from previously added views.
      * 
      * @see HelpViewBase#addView(IHelpView)
      */
     @Override
     public void addView(IHelpView view) {
         super.addView(view);
-        HelpTopicNode topNode = view.getTopicTree();
         
-        for (HelpTopicNode node : topNode.getChildren()) {
-            addNode(tree, node).addClass("cwf-help-toc-top");
+        for (TocEntry entry : HelpViewSnapshot.getSnapshot(view).getToc()) {
+            int index = findInsertionPoint(entry);
+            entries.add(index, entry);
+            addNode(tree, entry, index).addClass("cwf-help-toc-top");
         }
     }
     
     /**
-     * Recursively create tree items that correspond to the topic tree from the help view.
+     * Returns the position at which a top level entry is to be inserted, following any existing
+     * entries that sort equal to it.
+     * 
+     * @param entry The entry to insert.
+     * @return The insertion position.
+     */
+    private int findInsertionPoint(TocEntry entry) {
+        int low = 0;
+        int high = entries.size();
+        
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            
+            if (HelpViewSnapshot.TOC_ORDER.compare(entries.get(mid), entry) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        
+        return low;
+    }
+    
+    /**
+     * Recursively create tree items that correspond to the table of contents entries from the
+     * help view.
      * 
      * @param tc The root node to receive newly created tree nodes.
-     * @param node A topic tree node.
+     * @param entry A table of contents entry.
+     * @param index Position at which to insert the new tree node (-1 to append).
      * @return Newly created tree node.
      */
-    private Treenode addNode(BaseComponent tc, HelpTopicNode node) {
-        HelpTopic topic = node.getTopic();
+    private Treenode addNode(BaseComponent tc, TocEntry entry, int index) {
+        HelpTopic topic = entry.getTopic();
         Treenode parent = new Treenode();
         parent.setLabel(topic.getLabel());
         parent.setData(topic);
         topics.put(topic, parent);
-        tc.addChild(parent);
+        tc.addChild(parent, index);
         
-        for (HelpTopicNode child : node.getChildren()) {
-            addNode(parent, child);
+        for (TocEntry child : entry.getChildren()) {
+            addNode(parent, child, -1);
         }
         
         parent.setCollapsed(false);
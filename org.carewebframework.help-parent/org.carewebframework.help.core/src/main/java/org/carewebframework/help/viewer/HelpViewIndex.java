@@ -26,14 +26,12 @@
 package org.carewebframework.help.viewer;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.TreeMap;
 
 import org.apache.commons.lang.StringUtils;
+import org.carewebframework.help.HelpKeywordIndex;
 import org.carewebframework.help.HelpTopic;
-import org.carewebframework.help.HelpTopicNode;
+import org.carewebframework.help.HelpViewSnapshot;
 import org.carewebframework.help.HelpViewType;
 import org.carewebframework.help.IHelpView;
 import org.fujion.annotation.EventHandler;
@@ -52,6 +50,7 @@ import org.fujion.model.ModelAndView;
  * Tab for displaying the keyword index. This tab consists of two list boxes: one that displays the
  * keywords and one the displays the topics associated with the selected keyword. There is also a
  * quick find feature that allows locating a keyword by entering the first letters of the keyword.
+ * Keywords are served from the shared keyword index snapshot of each help view.
  */
 public class HelpViewIndex extends HelpViewBase {
     
@@ -64,7 +63,9 @@ public class HelpViewIndex extends HelpViewBase {
     @WiredComponent
     private Textbox txtFind;
     
-    private final Map<String, List<HelpTopic>> topicIndex = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final List<HelpKeywordIndex> keywordIndexes = new ArrayList<>();
+    
+    private HelpKeywordIndex keywordIndex = HelpKeywordIndex.EMPTY;
     
     private ListModel<String> keywordList;
     
@@ -110,14 +111,7 @@ public class HelpViewIndex extends HelpViewBase {
             return;
         }
         
-        List<HelpTopic> topics = getTopics(item.getLabel());
-        
-        if (!item.hasAttribute("sorted")) {
-            item.setAttribute("sorted", true);
-            Collections.sort(topics);
-        }
-        
-        modelAndView.setModel(new ListModel<>(topics));
+        modelAndView.setModel(new ListModel<>(keywordIndex.getTopics(item.getLabel())));
         onSelect$lstTopics();
     }
     
@@ -150,20 +144,13 @@ public class HelpViewIndex extends HelpViewBase {
      */
     @EventHandler(value = "change", target = "@txtFind")
     private void onChange$txtFind(ChangeEvent event) {
-        String find = event.getValue(String.class).toLowerCase();
+        String find = event.getValue(String.class);
         
         if (StringUtils.isEmpty(find)) {
             return;
         }
         
-        int match = -1;
-        
-        for (int i = 0; i < keywordList.size(); i++) {
-            if (keywordList.get(i).toLowerCase().startsWith(find)) {
-                match = i;
-                break;
-            }
-        }
+        int match = keywordIndex.findPrefix(find);
         
         if (match != lstKeywords.getSelectedIndex()) {
             Listitem item = match == -1 ? null : (Listitem) lstKeywords.getChildAt(match);
@@ -173,15 +160,17 @@ public class HelpViewIndex extends HelpViewBase {
     }
     
     /**
-     * Initialize the tab the first time it is selected. This method creates a model list from the
-     * current keyword list and assigns it to the keyword list box.
+     * Initialize the tab the first time it is selected. This method merges the keyword indexes of
+     * all added views, creates a model list from the merged keywords, and assigns it to the keyword
+     * list box.
      * 
      * @see org.carewebframework.help.viewer.HelpViewBase#init()
      */
     @Override
     protected void init() {
         super.init();
-        keywordList = new ListModel<>(topicIndex.keySet());
+        keywordIndex = HelpKeywordIndex.merge(keywordIndexes);
+        keywordList = new ListModel<>(keywordIndex.getKeywords());
         new ModelAndView<Listitem, String>(lstKeywords, keywordList, keywordRenderer);
     }
     
@@ -205,50 +194,7 @@ public class HelpViewIndex extends HelpViewBase {
     @Override
     public void addView(IHelpView view) {
         super.addView(view);
-        HelpTopicNode topNode = view.getTopicTree();
-        
-        for (HelpTopicNode child : topNode.getChildren()) {
-            addKeywordTopic(child, null);
-        }
-    }
-    
-    /**
-     * Traverse the keyword topic tree, adding keywords and topics to the list.
-     * 
-     * @param node Help topic node.
-     * @param topics Topic list to receive results.
-     */
-    private void addKeywordTopic(HelpTopicNode node, List<HelpTopic> topics) {
-        HelpTopic topic = node.getTopic();
-        
-        if (topics == null) {
-            topics = getTopics(topic.getLabel());
-        }
-        
-        if (topic.getURL() != null) {
-            topics.add(topic);
-        }
-        
-        for (HelpTopicNode child : node.getChildren()) {
-            addKeywordTopic(child, topics);
-        }
-    }
-    
-    /**
-     * Returns the topic list for the specified keyword, creating one if it does not already exist.
-     * 
-     * @param keyword The key word.
-     * @return Topic list for key word.
-     */
-    private List<HelpTopic> getTopics(String keyword) {
-        List<HelpTopic> topics = topicIndex.get(keyword);
-        
-        if (topics == null) {
-            topics = new ArrayList<>();
-            topicIndex.put(keyword, topics);
-        }
-        
-        return topics;
+        keywordIndexes.add(HelpViewSnapshot.getSnapshot(view).getKeywordIndex());
     }
     
 }
@@ -26,7 +26,6 @@
 package org.carewebframework.help.viewer;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
@@ -39,11 +38,12 @@ import org.carewebframework.help.IHelpSet;
 import org.fujion.annotation.EventHandler;
 import org.fujion.annotation.WiredComponent;
 import org.fujion.component.BaseComponent;
+import org.fujion.component.Button;
 import org.fujion.component.Cell;
 import org.fujion.component.Grid;
+import org.fujion.component.Html;
 import org.fujion.component.Image;
 import org.fujion.component.Label;
-import org.fujion.component.Listitem;
 import org.fujion.component.Row;
 import org.fujion.component.Textbox;
 import org.fujion.event.Event;
@@ -55,9 +55,32 @@ import org.fujion.model.ListModel;
 /**
  * Tab supporting the help system search function. Consists of a text box into which the user may
  * enter a search expression (including boolean operators) and a list box to display the results of
- * the search.
+ * the search. Results are retrieved a page at a time, with further pages retrieved on demand.
  */
-public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<Listitem, HelpSearchHit>, IHelpSearchListener {
+public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<Row, HelpSearchHit> {
+
+    private static final int PAGE_SIZE = 25;
+
+    /**
+     * A page of search results.
+     */
+    private static class SearchPage {
+
+        private final String query;
+
+        private final List<HelpSearchHit> hits;
+
+        private final int offset;
+
+        private final int totalHits;
+
+        SearchPage(String query, List<HelpSearchHit> hits, int offset, int totalHits) {
+            this.query = query;
+            this.hits = hits == null ? new ArrayList<>() : hits;
+            this.offset = offset;
+            this.totalHits = totalHits;
+        }
+    }
 
     @WiredComponent
     private Textbox txtSearch;
@@ -68,12 +91,19 @@ public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<L
     @WiredComponent
     private Label lblNoResultsFound;
 
+    @WiredComponent
+    private Button btnMore;
+
     private final Image[] icons = new Image[3];
 
     private final List<IHelpSet> helpSets = new ArrayList<>();
 
     private IModelAndView<Row, HelpSearchHit> modelAndView;
 
+    private ListModel<HelpSearchHit> results;
+
+    private String query;
+
     private double tertile1;
 
     private double tertile2;
@@ -92,6 +122,7 @@ public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<L
     public void afterInitialized(BaseComponent comp) {
         super.afterInitialized(comp);
         modelAndView = tblSrchResults.getRows().getModelAndView(HelpSearchHit.class);
+        modelAndView.setRenderer(this);
     }
 
     /**
@@ -116,27 +147,35 @@ public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<L
     }
 
     /**
-     * Renders search results in main thread.
+     * Renders a page of search results in main thread.
      *
      * @param event The search result event.
      */
     @EventHandler(value = "searchComplete", target = "@tblSrchResults")
     private void onSearchComplete$tblSrchResults(Event event) {
-        @SuppressWarnings("unchecked")
-        List<HelpSearchHit> searchResults = (List<HelpSearchHit>) event.getData();
-        Collections.sort(searchResults);
+        SearchPage page = (SearchPage) event.getData();
 
-        if (searchResults.isEmpty()) {
-            showMessage("cwf.help.tab.search.noresults");
+        if (results == null || !page.query.equals(query) || page.offset != results.size()) {
             return;
         }
 
-        double highscore = searchResults.get(0).getConfidence();
-        double lowscore = searchResults.get(searchResults.size() - 1).getConfidence();
-        double interval = (highscore - lowscore) / 3;
-        tertile1 = lowscore + interval;
-        tertile2 = tertile1 + interval;
-        modelAndView.setModel(new ListModel<>(searchResults));
+        List<HelpSearchHit> hits = page.hits;
+
+        if (page.offset == 0) {
+            if (hits.isEmpty()) {
+                showMessage("cwf.help.tab.search.noresults");
+                return;
+            }
+
+            double highscore = hits.get(0).getConfidence();
+            double lowscore = hits.get(hits.size() - 1).getConfidence();
+            double interval = (highscore - lowscore) / 3;
+            tertile1 = lowscore + interval;
+            tertile2 = tertile1 + interval;
+        }
+
+        results.addAll(hits);
+        btnMore.setVisible(!hits.isEmpty() && results.size() < page.totalHits);
     }
 
     /**
@@ -152,18 +191,55 @@ public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<L
      */
     @EventHandler(value = "click", target = "btnSearch")
     private void onClick$btnSearch() {
+        results = null;
         modelAndView.setModel(null);
         tblSrchResults.getRows().destroyChildren();
-        String query = txtSearch.getValue();
+        btnMore.setVisible(false);
+        query = txtSearch.getValue();
         showMessage(null);
 
         if (query != null && query.trim().length() > 0) {
-            HelpUtil.getSearchService().search(query, helpSets, this);
+            results = new ListModel<>();
+            modelAndView.setModel(results);
+            search();
         } else {
             showMessage("cwf.help.tab.search.noentry");
         }
     }
 
+    /**
+     * Retrieves the next page of search results.
+     */
+    @EventHandler(value = "click", target = "btnMore")
+    private void onClick$btnMore() {
+        btnMore.setVisible(false);
+        search();
+    }
+
+    /**
+     * Requests the page of search results following those already retrieved. Results are posted
+     * back to the main thread tagged with the originating query so that stale pages may be
+     * discarded.
+     */
+    private void search() {
+        String searchQuery = query;
+
+        HelpUtil.getSearchService().search(searchQuery, helpSets, results.size(), PAGE_SIZE, new IHelpSearchListener() {
+
+            @Override
+            public void onSearchComplete(List<HelpSearchHit> searchResults) {
+                onSearchComplete(searchResults, 0, searchResults == null ? 0 : searchResults.size());
+            }
+
+            @Override
+            public void onSearchComplete(List<HelpSearchHit> searchResults, int offset, int totalHits) {
+                SearchPage page = new SearchPage(searchQuery, searchResults, offset, totalHits);
+                EventUtil.post(tblSrchResults.getPage(), new Event("searchComplete", tblSrchResults, page));
+            }
+
+        });
+    }
+
     /**
      * Returns the icon that represents the specified score. There are three icons available based
      * on within which tertile the score falls.
@@ -197,30 +273,31 @@ public class HelpViewSearch extends HelpViewBase implements IComponentRenderer<L
     }
 
     /**
-     * Renders the list box contents.
+     * Renders a search result. If the result has a highlighted snippet, it is displayed beneath the
+     * topic label.
      *
      * @param qr The search hit to render.
      */
     @Override
-    public Listitem render(HelpSearchHit qr) {
-        Listitem item = new Listitem();
+    public Row render(HelpSearchHit qr) {
+        Row row = new Row();
         double score = qr.getConfidence();
-        item.setData(qr.getTopic());
+        row.setData(qr.getTopic());
         Cell lc = new Cell();
         lc.addChild(toImage(score));
         String tt = StrUtil.formatMessage("@cwf.help.tab.search.score", score);
         lc.setHint(tt);
-        item.addChild(lc);
+        row.addChild(lc);
         lc = new Cell(qr.getTopic().getLabel());
-        item.addChild(lc);
-        lc = new Cell(qr.getTopic().getSource());
-        item.addChild(lc);
-        return item;
-    }
 
-    @Override
-    public void onSearchComplete(List<HelpSearchHit> searchResults) {
-        EventUtil.post(tblSrchResults.getPage(), new Event("searchComplete", tblSrchResults, searchResults));
+        if (qr.getSnippet() != null) {
+            lc.addChild(new Html("<div>" + qr.getSnippet() + "</div>"));
+        }
+
+        row.addChild(lc);
+        lc = new Cell(qr.getTopic().getSource());
+        row.addChild(lc);
+        return row;
     }
 
     public void mergeHelpSet(IHelpSet helpSet) {
@@ -25,11 +25,14 @@
  */
 package org.carewebframework.help;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.InputStream;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
 
@@ -60,6 +63,38 @@ public class HelpTest {
         registry.clear();
     }
 
+    @Test
+    public void testKeywordIndex() throws Exception {
+        HelpTopicNode root1 = new HelpTopicNode(null);
+        addKeyword(root1, "beta", "b1", "b2");
+        addKeyword(root1, "Alpha", "a1");
+        addKeyword(root1, "alphabet", "ab1");
+        HelpTopicNode root2 = new HelpTopicNode(null);
+        addKeyword(root2, "ALPHA", "a0");
+        addKeyword(root2, "gamma");
+        HelpKeywordIndex index = HelpKeywordIndex.merge(
+            Arrays.asList(HelpKeywordIndex.create(root1), HelpKeywordIndex.create(root2)));
+        assertEquals(Arrays.asList("Alpha", "alphabet", "beta", "gamma"), index.getKeywords());
+        assertEquals(2, index.getTopics("alpha").size());
+        assertEquals("a0", index.getTopics("alpha").get(0).getLabel());
+        assertEquals(0, index.getTopics("gamma").size());
+        assertEquals(0, index.getTopics("delta").size());
+        assertEquals(0, index.findPrefix("AL"));
+        assertEquals(1, index.findPrefix("alphab"));
+        assertEquals(2, index.findPrefix("b"));
+        assertEquals(-1, index.findPrefix("bz"));
+        assertEquals(-1, index.findPrefix("z"));
+    }
+
+    private void addKeyword(HelpTopicNode root, String keyword, String... topics) throws Exception {
+        HelpTopicNode node = new HelpTopicNode(new HelpTopic(keyword));
+        root.addChild(node);
+        
+        for (String topic : topics) {
+            node.addChild(new HelpTopicNode(new HelpTopic(new URL("http://help/" + topic), topic, null)));
+        }
+    }
+
     private HelpModule createHelpModule(String file) {
         try (InputStream is = HelpTest.class.getResourceAsStream("/" + file);) {
             List<String> xml = IOUtils.readLines(is, StandardCharsets.UTF_8);
@@ -25,42 +25,67 @@
  */
 package org.carewebframework.help.lucene;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.math.BigInteger;
 import java.net.URL;
+import java.security.MessageDigest;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringEscapeUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Field.Store;
+import org.apache.lucene.document.FieldType;
+import org.apache.lucene.document.StringField;
 import org.apache.lucene.document.TextField;
-import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocsAndPositionsEnum;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.search.BooleanClause.Occur;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.QueryBuilder;
 import org.apache.lucene.util.Version;
 import org.apache.tika.Tika;
@@ -87,6 +112,35 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
     
     private static final Log log = LogFactory.getLog(HelpSearchService.class);
     
+    /**
+     * Identifies the layout of indexed documents. Changing this forces existing indexes to be
+     * rebuilt.
+     */
+    private static final String INDEX_FORMAT = "3";
+    
+    /**
+     * Stored fields needed to construct a search hit.
+     */
+    private static final Set<String> HIT_FIELDS = Collections
+            .unmodifiableSet(new HashSet<>(Arrays.asList("source", "title", "url")));
+    
+    /**
+     * Number of terms on either side of the first matching term to include in a snippet.
+     */
+    private static final int SNIPPET_RADIUS = 5;
+    
+    /**
+     * Content is not stored, but its term vectors (with positions) are, so that snippets may be
+     * reconstructed for search hits.
+     */
+    private static final FieldType CONTENT_TYPE = new FieldType(TextField.TYPE_NOT_STORED);
+    
+    static {
+        CONTENT_TYPE.setStoreTermVectors(true);
+        CONTENT_TYPE.setStoreTermVectorPositions(true);
+        CONTENT_TYPE.freeze();
+    }
+    
     private static class IndexTracker {
         
         private final File propertyFile;
@@ -111,11 +165,13 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
                 // Just ignore since we can recreate the property file.
             }
             
-            if (!isCompatible(properties.getProperty("lucene_version"))) {
+            if (!isCompatible(properties.getProperty("lucene_version"))
+                    || !INDEX_FORMAT.equals(properties.getProperty("index_format"))) {
                 log.info("Initializing help search index");
                 changed = true;
                 properties.clear();
                 properties.setProperty("lucene_version", Version.LATEST.toString());
+                properties.setProperty("index_format", INDEX_FORMAT);
                 FileUtils.cleanDirectory(indexDirectoryPath);
             }
             
@@ -138,7 +194,7 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
         /**
          * Save the index tracker state if it has changed.
          */
-        void save() {
+        synchronized void save() {
             if (changed) {
                 try (OutputStream os = new FileOutputStream(propertyFile)) {
                     properties.store(os, "Indexed help modules.");
@@ -156,28 +212,81 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
          * 
          * @param module Help module to add.
          */
-        void add(HelpModule module) {
+        synchronized void add(HelpModule module) {
             properties.setProperty(module.getLocalizedId(), module.getVersion());
             changed = true;
         }
         
         /**
-         * Remove a help module from the tracker data.
+         * Remove a help module, including the content hashes of its topics, from the tracker data.
          * 
          * @param module Help module to remove.
          */
-        void remove(HelpModule module) {
+        synchronized void remove(HelpModule module) {
             properties.remove(module.getLocalizedId());
+            properties.keySet().removeIf(key -> ((String) key).startsWith(getTopicPrefix(module)));
             changed = true;
         }
         
+        /**
+         * Returns the content hashes of a help module's indexed topics.
+         * 
+         * @param module The help module.
+         * @return Map of topic name to content hash (never null).
+         */
+        synchronized Map<String, String> getTopicHashes(HelpModule module) {
+            String prefix = getTopicPrefix(module);
+            Map<String, String> hashes = new HashMap<>();
+            
+            for (String key : properties.stringPropertyNames()) {
+                if (key.startsWith(prefix)) {
+                    hashes.put(key.substring(prefix.length()), properties.getProperty(key));
+                }
+            }
+            
+            return hashes;
+        }
+        
+        /**
+         * Records the outcome of indexing a help module. This should be called only once the index
+         * changes have been committed, so that the tracker never records topics that are not in
+         * the committed index.
+         * 
+         * @param module The indexed help module.
+         * @param updated Map of topic name to content hash for topics that were (re)indexed.
+         * @param removed Names of topics whose documents were deleted.
+         */
+        synchronized void update(HelpModule module, Map<String, String> updated, Collection<String> removed) {
+            String prefix = getTopicPrefix(module);
+            
+            for (Map.Entry<String, String> entry : updated.entrySet()) {
+                properties.setProperty(prefix + entry.getKey(), entry.getValue());
+            }
+            
+            for (String topic : removed) {
+                properties.remove(prefix + topic);
+            }
+            
+            add(module);
+        }
+        
+        /**
+         * Returns the prefix for property keys that hold a module's topic hashes.
+         * 
+         * @param module The help module.
+         * @return The key prefix.
+         */
+        private String getTopicPrefix(HelpModule module) {
+            return "topic:" + module.getLocalizedId() + "/";
+        }
+        
         /**
          * Returns true if the indexed module is the same as the loaded one.
          * 
          * @param module The loaded help module.
          * @return True if the indexed module version is the same as the loaded one.
          */
-        boolean isSame(HelpModule module) {
+        synchronized boolean isSame(HelpModule module) {
             String v = properties.getProperty(module.getLocalizedId());
             
             if (v == null) {
@@ -198,12 +307,18 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
     
     private IndexTracker indexTracker;
     
-    private IndexSearcher indexSearcher;
-    
-    private IndexReader indexReader;
+    private SearcherManager searcherManager;
     
     private QueryBuilder queryBuilder;
     
+    private ThreadPoolExecutor indexExecutor;
+    
+    private int indexThreads = 2;
+    
+    private boolean snippets = true;
+    
+    private final ConcurrentMap<String, Object> moduleLocks = new ConcurrentHashMap<>();
+    
     private Tika tika;
     
     private ApplicationContext appContext;
@@ -227,6 +342,25 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
         indexDirectoryPath = path;
     }
     
+    /**
+     * Sets the number of threads used to index help modules (injected by IOC container).
+     *
+     * @param indexThreads The number of indexing threads.
+     */
+    public void setIndexThreads(int indexThreads) {
+        this.indexThreads = Math.max(1, indexThreads);
+    }
+    
+    /**
+     * Enables or disables generation of highlighted snippets for search hits (injected by IOC
+     * container).
+     *
+     * @param snippets If true, search hits include a highlighted snippet of matching content.
+     */
+    public void setSnippets(boolean snippets) {
+        this.snippets = snippets;
+    }
+    
     /**
      * Resolves the index directory path. If a path is not specified, one is created within
      * temporary storage.
@@ -250,33 +384,117 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
     }
     
     /**
-     * Index all HTML files within the content of the help module.
+     * Index all HTML files within the content of the help module. Indexing is performed in the
+     * background. The module's content becomes searchable once indexing completes.
      * 
      * @param helpModule Help module to be indexed.
      */
     @Override
     public void indexHelpModule(HelpModule helpModule) {
-        try {
+        if (!indexTracker.isSame(helpModule)) {
+            indexExecutor.execute(() -> {
+                try {
+                    doIndexHelpModule(helpModule);
+                } catch (Exception e) {
+                    log.error("Error indexing help module " + helpModule.getLocalizedId(), e);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Indexes the help module, then refreshes the searcher. Only topics whose content hash differs
+     * from that recorded when last indexed are re-indexed, and documents for topics no longer
+     * present in the module are deleted. Changes are committed, and the tracker updated and saved,
+     * once the whole module has been processed. If indexing fails, all of the module's documents
+     * are deleted instead, so that a partly indexed module is never committed (possibly by the
+     * indexing of another module) and is fully re-indexed on the next attempt.
+     * 
+     * @param helpModule Help module to be indexed.
+     * @throws Exception Unspecified exception.
+     */
+    private void doIndexHelpModule(HelpModule helpModule) throws Exception {
+        synchronized (getModuleLock(helpModule)) {
             if (indexTracker.isSame(helpModule)) {
                 return;
             }
             
-            unindexHelpModule(helpModule);
-            log.info("Indexing help module " + helpModule.getLocalizedId());
-            int i = helpModule.getUrl().lastIndexOf('/');
-            String pattern = "classpath:" + helpModule.getUrl().substring(0, i + 1) + "*.htm*";
+            Map<String, String> previous = indexTracker.getTopicHashes(helpModule);
+            Map<String, String> updated = new HashMap<>();
             
-            for (Resource resource : appContext.getResources(pattern)) {
-                indexDocument(helpModule, resource);
+            try {
+                if (previous.isEmpty()) {
+                    deleteDocuments(helpModule);
+                }
+                
+                log.info("Indexing help module " + helpModule.getLocalizedId());
+                int i = helpModule.getUrl().lastIndexOf('/');
+                String pattern = "classpath:" + helpModule.getUrl().substring(0, i + 1) + "*.htm*";
+                
+                for (Resource resource : appContext.getResources(pattern)) {
+                    String topic = resource.getFilename();
+                    byte[] content;
+                    
+                    try (InputStream is = resource.getInputStream()) {
+                        content = IOUtils.toByteArray(is);
+                    }
+                    
+                    String hash = getContentHash(helpModule, resource, content);
+                    
+                    if (!hash.equals(previous.remove(topic))) {
+                        indexDocument(helpModule, resource, topic, content);
+                        updated.put(topic, hash);
+                    }
+                }
+                
+                for (String topic : previous.keySet()) {
+                    writer.deleteDocuments(new Term("topic", getTopicId(helpModule, topic)));
+                }
+                
+                commit();
+            } catch (Exception | Error e) {
+                deleteDocuments(helpModule);
+                commit();
+                indexTracker.save();
+                throw e;
             }
             
-            writer.commit();
-            indexTracker.add(helpModule);
-        } catch (Exception e) {
-            throw MiscUtil.toUnchecked(e);
+            indexTracker.update(helpModule, updated, previous.keySet());
+            indexTracker.save();
+            log.info("Indexed help module " + helpModule.getLocalizedId() + " (" + updated.size()
+                    + " topic(s) updated, " + previous.size() + " removed)");
         }
     }
     
+    /**
+     * Returns a hash of a topic's indexed document, used to detect topics that have changed since
+     * they were last indexed. Besides the content, this covers the stored url and source fields, so
+     * that a topic is re-indexed if its resource moves or its module is retitled.
+     * 
+     * @param helpModule The help module owning the topic.
+     * @param resource The topic's resource.
+     * @param content The topic content.
+     * @return The content hash as a hexadecimal string.
+     * @throws Exception Unspecified exception.
+     */
+    private String getContentHash(HelpModule helpModule, Resource resource, byte[] content) throws Exception {
+        MessageDigest md = MessageDigest.getInstance("SHA-1");
+        md.update((resource.getURL() + "\n" + helpModule.getTitle() + "\n").getBytes(StrUtil.UTF8));
+        byte[] digest = md.digest(content);
+        return new BigInteger(1, digest).toString(16);
+    }
+    
+    /**
+     * Returns the identifier of a topic's indexed document. This is unique across help modules.
+     * 
+     * @param helpModule The help module owning the topic.
+     * @param topic The topic name.
+     * @return The document identifier.
+     */
+    private String getTopicId(HelpModule helpModule, String topic) {
+        return helpModule.getLocalizedId() + "/" + topic;
+    }
+    
     /**
      * Removes the index for a help module.
      * 
@@ -284,48 +502,85 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
      */
     @Override
     public void unindexHelpModule(HelpModule helpModule) {
-        try {
-            log.info("Removing index for help module " + helpModule.getLocalizedId());
-            Term term = new Term("module", helpModule.getLocalizedId());
-            writer.deleteDocuments(term);
-            writer.commit();
-            indexTracker.remove(helpModule);
-        } catch (IOException e) {
-            MiscUtil.toUnchecked(e);
+        synchronized (getModuleLock(helpModule)) {
+            try {
+                deleteDocuments(helpModule);
+                commit();
+                indexTracker.save();
+            } catch (IOException e) {
+                throw MiscUtil.toUnchecked(e);
+            }
         }
     }
     
     /**
-     * Index an HTML text file resource.
+     * Returns the object used to serialize index operations on a help module.
+     * 
+     * @param helpModule The help module.
+     * @return The lock object.
+     */
+    private Object getModuleLock(HelpModule helpModule) {
+        return moduleLocks.computeIfAbsent(helpModule.getLocalizedId(), key -> new Object());
+    }
+    
+    /**
+     * Deletes (without committing) all indexed documents belonging to a help module.
+     * 
+     * @param helpModule The help module.
+     * @throws IOException Unspecified IO exception.
+     */
+    private void deleteDocuments(HelpModule helpModule) throws IOException {
+        log.info("Removing index for help module " + helpModule.getLocalizedId());
+        writer.deleteDocuments(new Term("module", helpModule.getLocalizedId()));
+        indexTracker.remove(helpModule);
+    }
+    
+    /**
+     * Commits pending index changes and refreshes the searcher so that they become visible to
+     * subsequent searches.
+     * 
+     * @throws IOException Unspecified IO exception.
+     */
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+    
+    /**
+     * Index an HTML text file resource, replacing any existing document for the same topic.
      * 
      * @param helpModule The help module owning the resource.
      * @param resource The HTML text file resource.
+     * @param topic The topic name.
+     * @param content The content of the resource.
      * @throws Exception Unspecified exception.
      */
-    private void indexDocument(HelpModule helpModule, Resource resource) throws Exception {
-        String title = getTitle(resource);
+    private void indexDocument(HelpModule helpModule, Resource resource, String topic, byte[] content) throws Exception {
+        String title = getTitle(content);
+        String topicId = getTopicId(helpModule, topic);
         
-        try (InputStream is = resource.getInputStream()) {
+        try (InputStream is = new ByteArrayInputStream(content)) {
             Document document = new Document();
+            document.add(new StringField("topic", topicId, Store.NO));
             document.add(new TextField("module", helpModule.getLocalizedId(), Store.YES));
             document.add(new TextField("source", helpModule.getTitle(), Store.YES));
             document.add(new TextField("title", title, Store.YES));
             document.add(new TextField("url", resource.getURL().toString(), Store.YES));
-            document.add(new TextField("content", tika.parseToString(is), Store.NO));
-            writer.addDocument(document);
+            document.add(new Field("content", tika.parseToString(is), CONTENT_TYPE));
+            writer.updateDocument(new Term("topic", topicId), document);
         }
     }
     
     /**
      * Extract the title of the document, if any.
      * 
-     * @param resource The document resource.
+     * @param content The document content.
      * @return The document title, or null if not found.
      */
-    private String getTitle(Resource resource) {
+    private String getTitle(byte[] content) {
         String title = null;
         
-        try (InputStream is = resource.getInputStream()) {
+        try (InputStream is = new ByteArrayInputStream(content)) {
             Iterator<String> iter = IOUtils.lineIterator(is, "UTF-8");
             
             while (iter.hasNext()) {
@@ -358,37 +613,159 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
      */
     @Override
     public void search(String words, Collection<IHelpSet> helpSets, IHelpSearchListener listener) {
+        search(words, helpSets, 0, Integer.MAX_VALUE, listener);
+    }
+    
+    /**
+     * Performs a search query, reporting a single page of results to the listener. Only the top
+     * scoring documents through the end of the requested page are collected, and stored fields are
+     * loaded only for documents within the page.
+     * 
+     * @param words List of words to be located.
+     * @param helpSets Help sets to be searched
+     * @param offset Offset of the first result to return.
+     * @param limit Maximum number of results to return.
+     * @param listener Listener for search results.
+     */
+    @Override
+    public void search(String words, Collection<IHelpSet> helpSets, int offset, int limit,
+                       IHelpSearchListener listener) {
         try {
-            if (queryBuilder == null) {
-                initQueryBuilder();
+            Query searchForWords = queryBuilder.createBooleanQuery("content", words, Occur.MUST);
+            
+            if (searchForWords == null) {
+                listener.onSearchComplete(new ArrayList<>(), offset, 0);
+                return;
             }
             
-            Query searchForWords = queryBuilder.createBooleanQuery("content", words, Occur.MUST);
             Query searchForModules = queryBuilder.createBooleanQuery("module", StrUtil.fromList(helpSets, " "));
             BooleanQuery query = new BooleanQuery();
             query.add(searchForModules, Occur.MUST);
             query.add(searchForWords, Occur.MUST);
-            TopDocs docs = indexSearcher.search(query, 9999);
-            List<HelpSearchHit> hits = new ArrayList<>(docs.totalHits);
+            IndexSearcher indexSearcher = searcherManager.acquire();
+            List<HelpSearchHit> hits;
+            int totalHits;
             
-            for (ScoreDoc sdoc : docs.scoreDocs) {
-                Document doc = indexSearcher.doc(sdoc.doc);
-                String source = doc.get("source");
-                String title = doc.get("title");
-                String url = doc.get("url");
-                HelpTopic topic = new HelpTopic(new URL(url), title, source);
-                HelpSearchHit hit = new HelpSearchHit(topic, sdoc.score);
-                hits.add(hit);
+            try {
+                int maxDoc = indexSearcher.getIndexReader().maxDoc();
+                int numHits = (int) Math.max(1, Math.min((long) offset + limit, maxDoc));
+                TopScoreDocCollector collector = TopScoreDocCollector.create(numHits, false);
+                indexSearcher.search(query, collector);
+                totalHits = collector.getTotalHits();
+                TopDocs docs = collector.topDocs(offset, limit);
+                hits = new ArrayList<>(docs.scoreDocs.length);
+                Set<String> queryTerms = snippets ? getQueryTerms(searchForWords) : null;
+                
+                for (ScoreDoc sdoc : docs.scoreDocs) {
+                    Document doc = indexSearcher.doc(sdoc.doc, HIT_FIELDS);
+                    String source = doc.get("source");
+                    String title = doc.get("title");
+                    String url = doc.get("url");
+                    HelpTopic topic = new HelpTopic(new URL(url), title, source);
+                    String snippet = snippets ? getSnippet(indexSearcher.getIndexReader(), sdoc.doc, queryTerms) : null;
+                    HelpSearchHit hit = new HelpSearchHit(topic, sdoc.score, snippet);
+                    hits.add(hit);
+                }
+            } finally {
+                searcherManager.release(indexSearcher);
             }
             
-            listener.onSearchComplete(hits);
+            listener.onSearchComplete(hits, offset, totalHits);
         } catch (Exception e) {
             MiscUtil.toUnchecked(e);
         }
     }
     
     /**
-     * Initialize the index writer.
+     * Returns the analyzed content terms referenced by a query.
+     * 
+     * @param query The query.
+     * @return Set of analyzed content terms.
+     */
+    private Set<String> getQueryTerms(Query query) {
+        Set<Term> terms = new HashSet<>();
+        query.extractTerms(terms);
+        Set<String> result = new HashSet<>();
+        
+        for (Term term : terms) {
+            if ("content".equals(term.field())) {
+                result.add(term.text());
+            }
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Reconstructs a snippet of content surrounding the first occurrence of a query term from the
+     * document's term vector. Matching terms are highlighted. Because content is not stored, the
+     * snippet consists of analyzed terms rather than the original text.
+     * 
+     * @param reader The index reader.
+     * @param docId The document id.
+     * @param queryTerms The analyzed query terms.
+     * @return The highlighted snippet (HTML), or null if one could not be constructed.
+     * @throws IOException Unspecified IO exception.
+     */
+    private String getSnippet(IndexReader reader, int docId, Set<String> queryTerms) throws IOException {
+        Terms vector = reader.getTermVector(docId, "content");
+        
+        if (vector == null || queryTerms.isEmpty()) {
+            return null;
+        }
+        
+        TreeMap<Integer, String> positions = new TreeMap<>();
+        int first = Integer.MAX_VALUE;
+        TermsEnum termsEnum = vector.iterator(null);
+        DocsAndPositionsEnum dpEnum = null;
+        BytesRef bytes;
+        
+        while ((bytes = termsEnum.next()) != null) {
+            dpEnum = termsEnum.docsAndPositions(null, dpEnum);
+            
+            if (dpEnum == null || dpEnum.nextDoc() == DocsAndPositionsEnum.NO_MORE_DOCS) {
+                continue;
+            }
+            
+            String term = bytes.utf8ToString();
+            boolean matches = queryTerms.contains(term);
+            
+            for (int i = dpEnum.freq(); i > 0; i--) {
+                int position = dpEnum.nextPosition();
+                positions.put(position, term);
+                
+                if (matches && position < first) {
+                    first = position;
+                }
+            }
+        }
+        
+        if (first == Integer.MAX_VALUE) {
+            return null;
+        }
+        
+        Map<Integer, String> window = positions.subMap(first - SNIPPET_RADIUS, true, first + SNIPPET_RADIUS, true);
+        StringBuilder sb = new StringBuilder();
+        
+        if (positions.firstKey() < first - SNIPPET_RADIUS) {
+            sb.append("...");
+        }
+        
+        for (String term : window.values()) {
+            String text = StringEscapeUtils.escapeHtml(term);
+            sb.append(sb.length() == 0 || sb.charAt(sb.length() - 1) == '.' ? "" : " ");
+            sb.append(queryTerms.contains(term) ? "<b>" + text + "</b>" : text);
+        }
+        
+        if (positions.lastKey() > first + SNIPPET_RADIUS) {
+            sb.append(" ...");
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Initialize the index writer, the searcher manager, and the executor used for indexing.
      * 
      * @throws IOException Unspecified IO exception.
      */
@@ -400,35 +777,38 @@ public class HelpSearchService implements IHelpSearch, ApplicationContextAware {
         Analyzer analyzer = new StandardAnalyzer();
         IndexWriterConfig config = new IndexWriterConfig(Version.LATEST, analyzer);
         writer = new IndexWriter(indexDirectory, config);
+        searcherManager = new SearcherManager(writer, true, null);
+        queryBuilder = new QueryBuilder(analyzer);
+        AtomicInteger threadCount = new AtomicInteger();
+        indexExecutor = new ThreadPoolExecutor(indexThreads, indexThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(100), runnable -> {
+                    Thread thread = new Thread(runnable, "helpIndexer-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        indexExecutor.allowCoreThreadTimeOut(true);
     }
     
     /**
-     * Performs a delayed initialization of the query builder to ensure that the index has been
-     * fully created.
-     * 
-     * @throws IOException Unspecified IO exception.
-     */
-    private synchronized void initQueryBuilder() throws IOException {
-        if (queryBuilder == null) {
-            indexReader = DirectoryReader.open(indexDirectory);
-            indexSearcher = new IndexSearcher(indexReader);
-            queryBuilder = new QueryBuilder(writer.getAnalyzer());
-        }
-    }
-    
-    /**
-     * Release/update resources upon destruction.
+     * Release/update resources upon destruction. Indexing in progress is allowed a brief interval
+     * to complete.
      */
     public void destroy() {
         try {
-            if (indexReader != null) {
-                indexReader.close();
+            indexExecutor.shutdown();
+            
+            if (!indexExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                log.warn("Help module indexing did not complete before shutdown.");
+                indexExecutor.shutdownNow();
             }
             
+            searcherManager.close();
             writer.close();
             indexTracker.save();
         } catch (IOException e) {
             throw MiscUtil.toUnchecked(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
     
@@ -0,0 +1,306 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.help.lucene;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Version;
+import org.carewebframework.help.HelpModule;
+import org.carewebframework.help.HelpSearchHit;
+import org.carewebframework.help.HelpSetBase;
+import org.carewebframework.help.HelpTopic;
+import org.carewebframework.help.IHelpSet;
+import org.carewebframework.help.IHelpView;
+import org.fujion.common.StrUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+
+/**
+ * Tests incremental indexing of help modules, using a temporary index directory and help content
+ * written to a temporary directory.
+ */
+public class HelpSearchServiceTest {
+    
+    /**
+     * Resolves help content from the temporary content directory. Topics named in the failing set
+     * cannot be read.
+     */
+    private class ContentResolver extends PathMatchingResourcePatternResolver {
+        
+        @Override
+        public Resource[] getResources(String locationPattern) throws IOException {
+            String pattern = locationPattern.replace("classpath:/web/help/", contentDirectory.toURI().toString());
+            Resource[] resources = super.getResources(pattern);
+            Arrays.sort(resources, Comparator.comparing(Resource::getFilename));
+            
+            for (int i = 0; i < resources.length; i++) {
+                String filename = resources[i].getFilename();
+                
+                if (failing.contains(filename)) {
+                    resources[i] = new AbstractResource() {
+                        
+                        @Override
+                        public String getFilename() {
+                            return filename;
+                        }
+                        
+                        @Override
+                        public String getDescription() {
+                            return "unreadable " + filename;
+                        }
+                        
+                        @Override
+                        public InputStream getInputStream() throws IOException {
+                            throw new IOException("Cannot read " + filename);
+                        }
+                    };
+                }
+            }
+            
+            return resources;
+        }
+    }
+    
+    private final HelpSearchService service = HelpSearchService.getInstance();
+    
+    private final Set<String> failing = new HashSet<>();
+    
+    private File indexDirectory;
+    
+    private File contentDirectory;
+    
+    @Before
+    public void setUp() throws Exception {
+        indexDirectory = Files.createTempDirectory("helpIndex").toFile();
+        contentDirectory = Files.createTempDirectory("helpContent").toFile();
+        GenericApplicationContext appContext = new GenericApplicationContext();
+        appContext.setResourceLoader(new ContentResolver());
+        service.setApplicationContext(appContext);
+        service.setIndexDirectoryPath(indexDirectory.getPath());
+        service.setIndexThreads(1);
+    }
+    
+    @After
+    public void tearDown() {
+        service.setIndexThreads(2);
+        FileUtils.deleteQuietly(indexDirectory);
+        FileUtils.deleteQuietly(contentDirectory);
+    }
+    
+    @Test
+    public void testIncremental() throws Exception {
+        HelpModule module = createModule("test", "1");
+        writeTopic("test", "a.htm", "<title>Alpha</title>apple");
+        writeTopic("test", "b.htm", "<title>Beta</title>banana");
+        writeTopic("test", "c.htm", "<title>Gamma</title>cherry");
+        index(module);
+        assertEquals(Arrays.asList("Alpha"), search("apple", module));
+        assertEquals(Arrays.asList("Beta"), search("banana", module));
+        assertEquals(Arrays.asList("Gamma"), search("cherry", module));
+        Properties tracker = getTracker();
+        assertEquals("1", tracker.getProperty("test"));
+        String hashA = tracker.getProperty("topic:test/a.htm");
+        String hashB = tracker.getProperty("topic:test/b.htm");
+        assertTrue(tracker.containsKey("topic:test/c.htm"));
+        // Remove an unchanged topic's document behind the service's back to detect whether it is re-indexed.
+        deleteDocument("test/b.htm");
+        writeTopic("test", "a.htm", "<title>Alpha</title>apricot");
+        new File(new File(contentDirectory, "test"), "c.htm").delete();
+        module.setVersion("2");
+        index(module);
+        assertEquals(Arrays.asList("Alpha"), search("apricot", module));
+        assertTrue(search("apple", module).isEmpty());
+        assertTrue(search("banana", module).isEmpty());
+        assertTrue(search("cherry", module).isEmpty());
+        tracker = getTracker();
+        assertEquals("2", tracker.getProperty("test"));
+        assertNotEquals(hashA, tracker.getProperty("topic:test/a.htm"));
+        assertEquals(hashB, tracker.getProperty("topic:test/b.htm"));
+        assertFalse(tracker.containsKey("topic:test/c.htm"));
+        // Retitling the module changes the stored source of every topic, so all are re-indexed.
+        module.setTitle("Retitled");
+        module.setVersion("3");
+        index(module);
+        assertEquals(Arrays.asList("Beta"), search("banana", module));
+        assertEquals("Retitled", searchHits("apricot", module).get(0).getSource());
+        assertNotEquals(hashB, getTracker().getProperty("topic:test/b.htm"));
+    }
+    
+    @Test
+    public void testFailure() throws Exception {
+        HelpModule module = createModule("test", "1");
+        HelpModule other = createModule("other", "1");
+        writeTopic("test", "a.htm", "<title>Alpha</title>apple");
+        writeTopic("test", "b.htm", "<title>Beta</title>banana");
+        writeTopic("other", "o.htm", "<title>Omega</title>orange");
+        index(module);
+        assertEquals(Arrays.asList("Alpha"), search("apple", module));
+        // The second topic cannot be read after the first has been re-indexed.
+        writeTopic("test", "a.htm", "<title>Alpha</title>apricot");
+        failing.add("b.htm");
+        module.setVersion("2");
+        index(module, other);
+        assertEquals(Arrays.asList("Omega"), search("orange", other));
+        assertTrue(search("apricot", module).isEmpty());
+        assertTrue(search("apple", module).isEmpty());
+        assertTrue(search("banana", module).isEmpty());
+        Properties tracker = getTracker();
+        assertNull(tracker.getProperty("test"));
+        assertNull(tracker.getProperty("topic:test/a.htm"));
+        assertEquals("1", tracker.getProperty("other"));
+        // The next attempt re-indexes the whole module.
+        failing.clear();
+        index(module);
+        assertEquals(Arrays.asList("Alpha"), search("apricot", module));
+        assertEquals(Arrays.asList("Beta"), search("banana", module));
+        assertEquals("2", getTracker().getProperty("test"));
+    }
+    
+    private HelpModule createModule(String id, String version) {
+        HelpModule module = new HelpModule();
+        module.setId(id);
+        module.setTitle(id);
+        module.setUrl("help/" + id + "/index.htm");
+        module.setVersion(version);
+        return module;
+    }
+    
+    private void writeTopic(String moduleId, String topic, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(new File(contentDirectory, moduleId), topic), content, StrUtil.UTF8);
+    }
+    
+    /**
+     * Indexes help modules, waiting for indexing to complete. The service is shut down afterwards
+     * so that the index and tracker are persisted.
+     * 
+     * @param modules Help modules to index.
+     * @throws Exception Unspecified exception.
+     */
+    private void index(HelpModule... modules) throws Exception {
+        service.init();
+        
+        try {
+            for (HelpModule module : modules) {
+                service.indexHelpModule(module);
+            }
+        } finally {
+            service.destroy();
+        }
+    }
+    
+    private List<HelpSearchHit> searchHits(String words, HelpModule module) throws Exception {
+        IHelpSet helpSet = new HelpSetBase(module) {
+            
+            @Override
+            public String getHomeID() {
+                return null;
+            }
+            
+            @Override
+            public HelpTopic getTopic(String topicId) {
+                return null;
+            }
+            
+            @Override
+            public Collection<IHelpView> getAllViews() {
+                return null;
+            }
+        };
+        
+        List<HelpSearchHit> hits = new ArrayList<>();
+        service.init();
+        
+        try {
+            service.search(words, Arrays.asList(helpSet), hits::addAll);
+        } finally {
+            service.destroy();
+        }
+        
+        return hits;
+    }
+    
+    private List<String> search(String words, HelpModule module) throws Exception {
+        List<String> titles = new ArrayList<>();
+        
+        for (HelpSearchHit hit : searchHits(words, module)) {
+            titles.add(hit.getTopic().getLabel());
+        }
+        
+        return titles;
+    }
+    
+    private File getIndexPath() {
+        return new File(indexDirectory, HelpSearchService.class.getPackage().getName());
+    }
+    
+    private Properties getTracker() throws IOException {
+        Properties properties = new Properties();
+        
+        try (InputStream is = new FileInputStream(new File(getIndexPath(), "tracker.properties"))) {
+            properties.load(is);
+        }
+        
+        return properties;
+    }
+    
+    private void deleteDocument(String topicId) throws IOException {
+        try (Directory directory = FSDirectory.open(getIndexPath());
+                IndexWriter writer = new IndexWriter(directory,
+                        new IndexWriterConfig(Version.LATEST, new StandardAnalyzer()))) {
+            writer.deleteDocuments(new Term("topic", topicId));
+        }
+    }
+}
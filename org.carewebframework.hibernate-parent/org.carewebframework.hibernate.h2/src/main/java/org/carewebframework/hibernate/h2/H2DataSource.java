@@ -25,6 +25,7 @@
  */
 package org.carewebframework.hibernate.h2;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 
 import org.apache.commons.dbcp2.BasicDataSource;
@@ -49,16 +50,29 @@ public class H2DataSource extends BasicDataSource {
 
     private DBMode dbMode = DBMode.EMBEDDED;
 
+    private Integer cacheSize;
+
+    private Integer pageSize;
+
+    private Integer writeDelay;
+
+    private Boolean mvStore;
+
+    private final H2DataSourceMetrics metrics = new H2DataSourceMetrics(this);
+
     public H2DataSource() {
     }
 
     /**
-     * If running H2 in local mode, starts the server.
+     * Applies any H2 tuning settings to the connection URL and, if running H2 in local mode, starts
+     * the server.
      *
      * @return this (for chaining)
      * @throws Exception Unspecified exception
      */
     public H2DataSource init() throws Exception {
+        setUrl(applySettings(getUrl()));
+
         if (dbMode == DBMode.LOCAL) {
             String port = getPort();
 
@@ -88,6 +102,59 @@ public class H2DataSource extends BasicDataSource {
         return i == -1 ? "" : s.substring(i + 1);
     }
 
+    /**
+     * Appends H2 database settings to the connection URL. Settings already present in the URL take
+     * precedence over those specified by properties.
+     *
+     * @param url The original connection URL.
+     * @return The connection URL with settings applied.
+     */
+    private String applySettings(String url) {
+        StringBuilder sb = new StringBuilder(url);
+        appendSetting(sb, "CACHE_SIZE", cacheSize);
+        appendSetting(sb, "PAGE_SIZE", pageSize);
+        appendSetting(sb, "WRITE_DELAY", writeDelay);
+        appendSetting(sb, "MV_STORE", mvStore == null ? null : mvStore.toString().toUpperCase());
+        return sb.toString();
+    }
+
+    /**
+     * Appends a single setting to the connection URL if it has a value and is not already present.
+     *
+     * @param sb The connection URL.
+     * @param name The setting name.
+     * @param value The setting value (may be null).
+     */
+    private void appendSetting(StringBuilder sb, String name, Object value) {
+        if (value != null && !sb.toString().toUpperCase().contains(";" + name + "=")) {
+            sb.append(';').append(name).append('=').append(value);
+        }
+    }
+
+    /**
+     * Returns a pooled connection, recording the time spent waiting for it and, if slow statement
+     * logging is enabled, wrapping it to time statement execution.
+     */
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        metrics.connectionAcquired(System.nanoTime() - start);
+        return metrics.wrap(connection);
+    }
+
+    /**
+     * Returns a connection for the specified user, recording the time spent waiting for it and, if
+     * slow statement logging is enabled, wrapping it to time statement execution.
+     */
+    @Override
+    public Connection getConnection(String user, String pass) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(user, pass);
+        metrics.connectionAcquired(System.nanoTime() - start);
+        return metrics.wrap(connection);
+    }
+
     public void destroy() throws Exception {
         close();
     }
@@ -100,6 +167,89 @@ public class H2DataSource extends BasicDataSource {
         dbMode = StringUtils.isEmpty(value) ? DBMode.EMBEDDED : DBMode.valueOf(value.toUpperCase());
     }
 
+    /**
+     * Returns the H2 page cache size in KB.
+     *
+     * @return The cache size in KB, or null to use the database default.
+     */
+    public Integer getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * Sets the H2 page cache size in KB.
+     *
+     * @param cacheSize The cache size in KB, or null to use the database default.
+     */
+    public void setCacheSize(Integer cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    /**
+     * Returns the H2 page size in bytes. This only has effect when the database is created.
+     *
+     * @return The page size in bytes, or null to use the database default.
+     */
+    public Integer getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Sets the H2 page size in bytes. This only has effect when the database is created.
+     *
+     * @param pageSize The page size in bytes, or null to use the database default.
+     */
+    public void setPageSize(Integer pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Returns the delay in milliseconds before changes are written to the database file.
+     *
+     * @return The write delay in milliseconds, or null to use the database default.
+     */
+    public Integer getWriteDelay() {
+        return writeDelay;
+    }
+
+    /**
+     * Sets the delay in milliseconds before changes are written to the database file.
+     *
+     * @param writeDelay The write delay in milliseconds, or null to use the database default.
+     */
+    public void setWriteDelay(Integer writeDelay) {
+        this.writeDelay = writeDelay;
+    }
+
+    /**
+     * Returns whether the file-backed MVStore storage engine is to be used.
+     *
+     * @return True to use the MVStore, false to use the page store, null to use the database
+     *         default.
+     */
+    public Boolean getMvStore() {
+        return mvStore;
+    }
+
+    /**
+     * Sets whether the file-backed MVStore storage engine is to be used.
+     *
+     * @param mvStore True to use the MVStore, false to use the page store, null to use the
+     *            database default.
+     */
+    public void setMvStore(Boolean mvStore) {
+        this.mvStore = mvStore;
+    }
+
+    /**
+     * Returns the connection pool and statement metrics for this data source.
+     *
+     * @return The metrics.
+     */
+    public H2DataSourceMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void close() throws SQLException {
         super.close();
@@ -0,0 +1,253 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.hibernate.h2;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Collects connection pool and statement execution metrics for an H2 data source and exposes them
+ * via JMX.
+ */
+@ManagedResource(description = "H2 data source metrics.")
+public class H2DataSourceMetrics {
+
+    private static final Log log = LogFactory.getLog(H2DataSourceMetrics.class);
+
+    private final H2DataSource dataSource;
+
+    private final LongAdder connectionRequests = new LongAdder();
+
+    private final LongAdder totalWaitNanos = new LongAdder();
+
+    private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+    private final LongAdder slowStatementCount = new LongAdder();
+
+    private volatile long slowStatementThreshold;
+
+    private volatile String lastSlowStatement;
+
+    /**
+     * Create metrics for the specified data source.
+     *
+     * @param dataSource The data source.
+     */
+    public H2DataSourceMetrics(H2DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Records the acquisition of a pooled connection.
+     *
+     * @param waitNanos Time spent waiting for the connection, in nanoseconds.
+     */
+    protected void connectionAcquired(long waitNanos) {
+        connectionRequests.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulate(waitNanos);
+    }
+
+    /**
+     * If slow statement logging is enabled, wraps the connection so that statements created from
+     * it are timed.
+     *
+     * @param connection The connection to wrap.
+     * @return The original or wrapped connection.
+     */
+    protected Connection wrap(Connection connection) {
+        return slowStatementThreshold <= 0 ? connection
+                : wrap(connection, Connection.class, new ConnectionHandler(connection));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T wrap(T target, Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, handler);
+    }
+
+    /**
+     * Records the execution time of a statement, logging it if it exceeds the threshold.
+     *
+     * @param sql The SQL that was executed (may be null).
+     * @param elapsedNanos The execution time in nanoseconds.
+     */
+    private void statementExecuted(String sql, long elapsedNanos) {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+
+        if (slowStatementThreshold > 0 && elapsed >= slowStatementThreshold) {
+            slowStatementCount.increment();
+            lastSlowStatement = sql;
+            log.warn("Slow statement (" + elapsed + " ms): " + sql);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of active connections.")
+    public int getNumActive() {
+        return dataSource.getNumActive();
+    }
+
+    @ManagedAttribute(description = "Number of idle connections.")
+    public int getNumIdle() {
+        return dataSource.getNumIdle();
+    }
+
+    @ManagedAttribute(description = "Maximum number of active connections.")
+    public int getMaxTotal() {
+        return dataSource.getMaxTotal();
+    }
+
+    @ManagedAttribute(description = "Number of connection requests.")
+    public long getConnectionRequests() {
+        return connectionRequests.sum();
+    }
+
+    @ManagedAttribute(description = "Average time in milliseconds spent waiting for a connection.")
+    public double getAverageWaitMillis() {
+        long requests = connectionRequests.sum();
+        return requests == 0 ? 0 : totalWaitNanos.sum() / (requests * 1000000.0);
+    }
+
+    @ManagedAttribute(description = "Maximum time in milliseconds spent waiting for a connection.")
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1000000.0;
+    }
+
+    @ManagedAttribute(description = "Number of statements exceeding the slow statement threshold.")
+    public long getSlowStatementCount() {
+        return slowStatementCount.sum();
+    }
+
+    @ManagedAttribute(description = "The most recent slow statement.")
+    public String getLastSlowStatement() {
+        return lastSlowStatement;
+    }
+
+    @ManagedAttribute(description = "Slow statement threshold in milliseconds (0 to disable).")
+    public long getSlowStatementThreshold() {
+        return slowStatementThreshold;
+    }
+
+    @ManagedAttribute
+    public void setSlowStatementThreshold(long slowStatementThreshold) {
+        this.slowStatementThreshold = slowStatementThreshold;
+    }
+
+    @ManagedOperation(description = "Resets all counters.")
+    public void reset() {
+        connectionRequests.reset();
+        totalWaitNanos.reset();
+        maxWaitNanos.reset();
+        slowStatementCount.reset();
+        lastSlowStatement = null;
+    }
+
+    /**
+     * Wraps statements created by a connection.
+     */
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(connection, method, args);
+            String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+
+            if (result instanceof CallableStatement) {
+                return wrap((CallableStatement) result, CallableStatement.class, new StatementHandler(result, sql));
+            }
+
+            if (result instanceof PreparedStatement) {
+                return wrap((PreparedStatement) result, PreparedStatement.class, new StatementHandler(result, sql));
+            }
+
+            if (result instanceof Statement) {
+                return wrap((Statement) result, Statement.class, new StatementHandler(result, sql));
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Times statement execution.
+     */
+    private class StatementHandler implements InvocationHandler {
+
+        private final Object statement;
+
+        private final String sql;
+
+        StatementHandler(Object statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().startsWith("execute")) {
+                return invokeTarget(statement, method, args);
+            }
+
+            long start = System.nanoTime();
+
+            try {
+                return invokeTarget(statement, method, args);
+            } finally {
+                boolean hasSql = args != null && args.length > 0 && args[0] instanceof String;
+                statementExecuted(hasSql ? (String) args[0] : sql, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.hibernate.h2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Measures property reads and writes per second under concurrent sessions against a tuned H2 data
+ * source. Not run as part of the normal build; run explicitly with
+ * <code>mvn test -Dtest=H2Benchmark</code>.
+ */
+public class H2Benchmark {
+    
+    private static final Log log = LogFactory.getLog(H2Benchmark.class);
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void benchmark() throws Exception {
+        H2DataSource h2 = new H2DataSource();
+        h2.setUrl("jdbc:h2:" + new File(folder.getRoot(), "benchmark").getAbsolutePath());
+        h2.setCacheSize(4096);
+        h2.setWriteDelay(100);
+        h2.setMvStore(true);
+        h2.setPoolPreparedStatements(true);
+        int sessions = 8;
+        int iterations = 500;
+        
+        try (H2DataSource ds = h2.init()) {
+            createTable(ds);
+            long start = System.currentTimeMillis();
+            runWorkload(ds, sessions, iterations);
+            long elapsed = Math.max(1, System.currentTimeMillis() - start);
+            long operations = sessions * iterations;
+            log.info("H2 benchmark: " + sessions + " sessions, " + operations + " reads and " + operations
+                    + " writes in " + elapsed + " ms (" + (operations * 2000 / elapsed)
+                    + " operations/sec), average connection wait " + ds.getMetrics().getAverageWaitMillis() + " ms");
+        }
+    }
+    
+    /**
+     * Creates the table used by the workload.
+     * 
+     * @param ds The data source.
+     * @throws Exception Unspecified exception.
+     */
+    static void createTable(H2DataSource ds) throws Exception {
+        try (Connection connection = ds.getConnection();
+                PreparedStatement ps = connection.prepareStatement(
+                    "CREATE TABLE IF NOT EXISTS BENCHMARK (NAME VARCHAR(32) PRIMARY KEY, VAL VARCHAR(32))")) {
+            ps.execute();
+        }
+    }
+    
+    /**
+     * Performs alternating writes and reads of a property from concurrent sessions, verifying that
+     * each read returns the value just written.
+     * 
+     * @param ds The data source.
+     * @param sessions Number of concurrent sessions.
+     * @param iterations Number of write/read pairs per session.
+     * @throws Exception Unspecified exception.
+     */
+    static void runWorkload(H2DataSource ds, int sessions, int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(sessions);
+        List<Future<?>> futures = new ArrayList<>();
+        
+        try {
+            for (int session = 0; session < sessions; session++) {
+                String name = "prop" + session;
+                
+                futures.add(executor.submit((Callable<Void>) () -> {
+                    for (int i = 0; i < iterations; i++) {
+                        try (Connection connection = ds.getConnection();
+                                PreparedStatement ps = connection
+                                        .prepareStatement("MERGE INTO BENCHMARK (NAME, VAL) VALUES (?, ?)")) {
+                            ps.setString(1, name);
+                            ps.setString(2, "value" + i);
+                            ps.executeUpdate();
+                        }
+                        
+                        try (Connection connection = ds.getConnection();
+                                PreparedStatement ps = connection
+                                        .prepareStatement("SELECT VAL FROM BENCHMARK WHERE NAME=?")) {
+                            ps.setString(1, name);
+                            
+                            try (ResultSet rs = ps.executeQuery()) {
+                                assertTrue(rs.next());
+                                assertEquals("value" + i, rs.getString(1));
+                            }
+                        }
+                    }
+                    
+                    return null;
+                }));
+            }
+            
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -30,6 +30,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
 import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -39,7 +40,9 @@ import java.util.Map;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.carewebframework.hibernate.h2.H2DataSource.DBMode;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class TestH2 {
     
@@ -96,4 +99,42 @@ public class TestH2 {
             assertTrue(error, error.contains(expectedException));
         }
     }
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testTuning() throws Exception {
+        String database = new File(folder.getRoot(), "tuning").getAbsolutePath();
+        H2DataSource h2 = new H2DataSource();
+        h2.setUrl("jdbc:h2:" + database + ";CACHE_SIZE=8192");
+        h2.setCacheSize(4096);
+        h2.setWriteDelay(100);
+        h2.setMvStore(true);
+        h2.setPoolPreparedStatements(true);
+        h2.getMetrics().setSlowStatementThreshold(60000);
+        
+        try (H2DataSource ds = h2.init()) {
+            // An explicit URL setting takes precedence over the corresponding property.
+            assertEquals("jdbc:h2:" + database + ";CACHE_SIZE=8192;WRITE_DELAY=100;MV_STORE=TRUE", ds.getUrl());
+            assertTrue(ds.isPoolPreparedStatements());
+            
+            try (Connection connection = ds.getConnection();
+                    PreparedStatement ps = connection.prepareStatement("SELECT VALUE FROM INFORMATION_SCHEMA.SETTINGS WHERE NAME=?")) {
+                ps.setString(1, "WRITE_DELAY");
+                
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals("100", rs.getString(1));
+                }
+            }
+            
+            H2Benchmark.createTable(ds);
+            H2Benchmark.runWorkload(ds, 4, 50);
+            H2DataSourceMetrics metrics = ds.getMetrics();
+            assertEquals(0, metrics.getNumActive());
+            assertEquals(2 + 4 * 50 * 2, metrics.getConnectionRequests());
+            assertEquals(0, metrics.getSlowStatementCount());
+        }
+    }
 }
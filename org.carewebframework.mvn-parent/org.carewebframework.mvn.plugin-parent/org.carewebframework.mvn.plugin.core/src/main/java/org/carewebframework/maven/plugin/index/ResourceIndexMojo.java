@@ -0,0 +1,113 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.maven.plugin.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Goal which writes an index of all resources in the build output directory. The index is packaged
+ * with the artifact and allows the runtime resource resolver to match resource patterns against
+ * the index rather than enumerating the entries of the jar file.
+ */
+@Mojo(name = "resource-index", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true)
+public class ResourceIndexMojo extends AbstractMojo {
+    
+    /**
+     * Location of the resource index within the artifact. Must match the location expected by the
+     * runtime resolver.
+     */
+    public static final String INDEX_PATH = "META-INF/cwf-resource.index";
+    
+    /**
+     * Directory whose contents are to be indexed.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}", required = true)
+    private File outputDirectory;
+    
+    /**
+     * If true, skip creation of the index.
+     */
+    @Parameter(property = "maven.carewebframework.index.skip", defaultValue = "false")
+    private boolean skip;
+    
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip || !outputDirectory.isDirectory()) {
+            getLog().info("Skipping resource index creation.");
+            return;
+        }
+        
+        List<String> entries = new ArrayList<>();
+        listFiles(outputDirectory, "", entries);
+        entries.remove(INDEX_PATH);
+        Collections.sort(entries);
+        File indexFile = new File(outputDirectory, INDEX_PATH);
+        
+        try {
+            FileUtils.writeLines(indexFile, "UTF-8", entries, IOUtils.LINE_SEPARATOR_UNIX);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error writing resource index.", e);
+        }
+        
+        getLog().info("Wrote resource index with " + entries.size() + " entries.");
+    }
+    
+    /**
+     * Recurse over the directory subtree, adding the relative path of each file to the entry list.
+     * 
+     * @param directory Directory to list.
+     * @param prefix Relative path of the directory.
+     * @param entries List to receive entries.
+     */
+    private void listFiles(File directory, String prefix, List<String> entries) {
+        File[] children = directory.listFiles();
+        
+        if (children != null) {
+            for (File child : children) {
+                String path = prefix + child.getName();
+                
+                if (child.isDirectory()) {
+                    listFiles(child, path + "/", entries);
+                } else {
+                    entries.add(path);
+                }
+            }
+        }
+    }
+    
+}
@@ -98,7 +98,18 @@ public class MainController extends PluginController {
         
         @Override
         public void newFileLine(String line) {
-            logFileBuffer.add(line.concat("\n"));
+            synchronized (logFileBuffer) {
+                logFileBuffer.add(line.concat("\n"));
+            }
+        }
+        
+        @Override
+        public void newFileLines(List<String> lines) {
+            synchronized (logFileBuffer) {
+                for (String line : lines) {
+                    logFileBuffer.add(line.concat("\n"));
+                }
+            }
         }
         
         @Override
@@ -147,10 +158,11 @@ public class MainController extends PluginController {
             for (String line : logFileBuffer) {
                 lines.append(line);
             }
+            
+            logFileBuffer.clear();
         }
         
         txtOutput.setValue(txtOutput.getValue().concat(lines.toString()));
-        logFileBuffer.clear();
         
         //check for state change of Tailer
         if (isTailerTerminated) {
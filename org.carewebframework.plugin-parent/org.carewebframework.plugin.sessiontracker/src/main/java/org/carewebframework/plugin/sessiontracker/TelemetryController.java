@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.plugin.sessiontracker;
+
+import java.util.Map;
+
+import org.carewebframework.shell.plugins.PluginController;
+import org.carewebframework.shell.plugins.PluginTelemetry;
+import org.carewebframework.shell.plugins.TimingHistogram;
+import org.fujion.annotation.EventHandler;
+import org.fujion.annotation.WiredComponent;
+import org.fujion.common.StrUtil;
+import org.fujion.component.Grid;
+import org.fujion.component.Row;
+import org.fujion.component.Rows;
+import org.fujion.model.IComponentRenderer;
+import org.fujion.model.ListModel;
+
+/**
+ * Controller class for plugin telemetry view.
+ */
+public class TelemetryController extends PluginController {
+    
+    private final PluginTelemetry telemetry = PluginTelemetry.getInstance();
+    
+    private final ListModel<TelemetryItem> model = new ListModel<>();
+    
+    private IComponentRenderer<Row, TelemetryItem> telemetryRenderer;
+    
+    @WiredComponent
+    private Grid grid;
+    
+    @Override
+    public void refresh() {
+        model.clear();
+        
+        for (String pluginId : telemetry.getPluginIds()) {
+            for (Map.Entry<String, TimingHistogram> entry : telemetry.getHistograms(pluginId).entrySet()) {
+                model.add(new TelemetryItem(pluginId, entry.getKey(), entry.getValue()));
+            }
+        }
+        
+        Rows rows = grid.getRows();
+        rows.setRenderer(telemetryRenderer);
+        rows.setModel(model);
+        grid.setTitle(StrUtil.formatMessage("@cwf.sessiontracker.telemetry.msg.plugins.total",
+            telemetry.getPluginIds().size()));
+    }
+    
+    @EventHandler(value = "click", target = "btnRefresh")
+    private void onClick$btnRefresh() {
+        refresh();
+    }
+    
+    @EventHandler(value = "click", target = "btnReset")
+    private void onClick$btnReset() {
+        telemetry.reset();
+        refresh();
+    }
+    
+    @Override
+    public void onActivate() {
+        super.onActivate();
+        refresh();
+    }
+    
+    /**
+     * Setter for telemetry renderer
+     *
+     * @param telemetryRenderer The telemetry renderer.
+     */
+    public void setTelemetryRenderer(IComponentRenderer<Row, TelemetryItem> telemetryRenderer) {
+        this.telemetryRenderer = telemetryRenderer;
+    }
+    
+}
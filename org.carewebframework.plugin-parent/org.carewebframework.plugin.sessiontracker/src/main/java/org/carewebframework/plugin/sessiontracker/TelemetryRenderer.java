@@ -0,0 +1,61 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.plugin.sessiontracker;
+
+import org.carewebframework.shell.plugins.TimingHistogram;
+import org.fujion.component.Cell;
+import org.fujion.component.Row;
+import org.fujion.model.IComponentRenderer;
+
+/**
+ * RowRenderer to define rows within the plugin telemetry grid.
+ */
+public class TelemetryRenderer implements IComponentRenderer<Row, TelemetryItem> {
+    
+    @Override
+    public Row render(TelemetryItem item) {
+        Row row = new Row();
+        TimingHistogram histogram = item.getHistogram();
+        createCell(row, item.getPluginId());
+        createCell(row, item.getMetric());
+        createCell(row, Long.toString(histogram.getCount()));
+        createCell(row, format(histogram.getAverageMillis()));
+        createCell(row, format(histogram.getPercentileMillis(95)));
+        createCell(row, format(histogram.getMaxMillis()));
+        createCell(row, format(histogram.getTotalMillis()));
+        return row;
+    }
+    
+    private String format(double millis) {
+        return String.format("%.2f", millis);
+    }
+    
+    private void createCell(Row row, String label) {
+        Cell cell = new Cell();
+        cell.setLabel(label);
+        row.addChild(cell);
+    }
+}
@@ -27,6 +27,9 @@ package org.carewebframework.security;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLEncoder;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.CharEncoding;
 import org.apache.commons.lang.math.NumberUtils;
@@ -60,21 +63,58 @@ public abstract class AbstractSecurityService implements ISecurityService {
 
     private static final Log log = LogFactory.getLog(AbstractSecurityService.class);
 
+    private static final String ATTR_DECISION_CACHE = AbstractSecurityService.class.getName() + ".decisionCache";
+
     private String logoutTarget;
 
     private final AliasType authorityAlias = AliasTypeRegistry.getType(ALIAS_TYPE_AUTHORITY);
 
+    private final AtomicInteger aliasGeneration = new AtomicInteger();
+
+    /**
+     * Per-session cache of authorization decisions, keyed by the authority list being checked.
+     * Valid only for the authentication and authority alias generation in effect when it was
+     * created.
+     */
+    private static class DecisionCache {
+
+        private final Authentication authentication;
+
+        private final int aliasGeneration;
+
+        private final Map<String, Boolean> decisions = new ConcurrentHashMap<>();
+
+        DecisionCache(Authentication authentication, int aliasGeneration) {
+            this.authentication = authentication;
+            this.aliasGeneration = aliasGeneration;
+        }
+
+        boolean isValid(Authentication authentication, int aliasGeneration) {
+            return this.authentication == authentication && this.aliasGeneration == aliasGeneration;
+        }
+    }
+
     /**
      * Returns the security context from the execution context.
      *
      * @return The security context, or null if one cannot be determined.
      */
     public static SecurityContext getSecurityContext() {
+        Map<String, Object> attributes = getSessionAttributes();
+        return attributes == null ? null
+                : (SecurityContext) attributes.get(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+    }
+    
+    /**
+     * Returns the attributes of the web socket session from the execution context.
+     *
+     * @return The session attributes, or null if they cannot be determined.
+     */
+    private static Map<String, Object> getSessionAttributes() {
         Session session = ExecutionContext.getSession();
         @SuppressWarnings("resource")
         WebSocketSession ws = session == null ? null : session.getSocket();
-        return ws == null ? null
-                : (SecurityContext) ws.getAttributes().get(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        return ws == null ? null : ws.getAttributes();
     }
     
     /**
@@ -151,6 +191,7 @@ public abstract class AbstractSecurityService implements ISecurityService {
     @Override
     public void setAuthorityAlias(String authority, String alias) {
         authorityAlias.register(authority, alias);
+        aliasGeneration.incrementAndGet();
     }
 
     /**
@@ -211,7 +252,22 @@ public abstract class AbstractSecurityService implements ISecurityService {
      */
     @Override
     public boolean isGranted(String grantedAuthority) {
-        return isGranted(grantedAuthority, getAuthentication());
+        Authentication authentication = getAuthentication();
+        Map<String, Boolean> decisions = getDecisions(authentication);
+        
+        if (decisions == null || grantedAuthority == null) {
+            return isGranted(grantedAuthority, authentication);
+        }
+        
+        String key = "=" + grantedAuthority;
+        Boolean result = decisions.get(key);
+        
+        if (result == null) {
+            result = isGranted(grantedAuthority, authentication);
+            decisions.put(key, result);
+        }
+        
+        return result;
     }
 
     /**
@@ -236,6 +292,30 @@ public abstract class AbstractSecurityService implements ISecurityService {
             return false;
         }
 
+        Map<String, Boolean> decisions = getDecisions(authentication);
+        String key = (checkAllRoles ? "&" : "|") + grantedAuthorities;
+        Boolean result = decisions == null ? null : decisions.get(key);
+
+        if (result == null) {
+            result = isGranted(grantedAuthorities, checkAllRoles, authentication);
+
+            if (decisions != null) {
+                decisions.put(key, result);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Evaluates a comma-delimited list of authorities against the authentication context.
+     *
+     * @param grantedAuthorities Comma-delimited string of granted authorities
+     * @param checkAllRoles If true, all authorities must be granted; if false, any one suffices.
+     * @param authentication The authentication context.
+     * @return True if Authentication is granted authorities
+     */
+    private boolean isGranted(String grantedAuthorities, boolean checkAllRoles, Authentication authentication) {
         for (String desiredAuthority : grantedAuthorities.split(",")) {
             if (!desiredAuthority.isEmpty()) {
                 if (isGranted(desiredAuthority, authentication) != checkAllRoles) {
@@ -247,6 +327,31 @@ public abstract class AbstractSecurityService implements ISecurityService {
         return checkAllRoles;
     }
 
+    /**
+     * Returns the authorization decision cache for the current session, creating a new one if
+     * none exists or if the authentication or authority aliases have changed since it was created.
+     *
+     * @param authentication The current authentication context.
+     * @return The decision cache, or null if there is no session or authentication.
+     */
+    private Map<String, Boolean> getDecisions(Authentication authentication) {
+        Map<String, Object> attributes = authentication == null ? null : getSessionAttributes();
+
+        if (attributes == null) {
+            return null;
+        }
+
+        int generation = aliasGeneration.get();
+        DecisionCache cache = (DecisionCache) attributes.get(ATTR_DECISION_CACHE);
+
+        if (cache == null || !cache.isValid(authentication, generation)) {
+            cache = new DecisionCache(authentication, generation);
+            attributes.put(ATTR_DECISION_CACHE, cache);
+        }
+
+        return cache.decisions;
+    }
+
     /**
      * Determine if the granted authority exists within the authentication context.
      *
@@ -0,0 +1,155 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.security;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.fujion.client.ExecutionContext;
+import org.fujion.test.MockClientRequest;
+import org.fujion.test.MockServletContext;
+import org.fujion.test.MockSession;
+import org.fujion.test.MockWebSocketSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SecurityServiceTest {
+    
+    /**
+     * Authentication that counts retrievals of its granted authorities, each of which corresponds
+     * to an uncached authorization decision.
+     */
+    private static class TestAuthentication extends UsernamePasswordAuthenticationToken {
+        
+        private static final long serialVersionUID = 1L;
+        
+        private int lookups;
+        
+        TestAuthentication(String... authorities) {
+            super("user", "password", AuthorityUtils.createAuthorityList(authorities));
+        }
+        
+        @Override
+        public Collection<GrantedAuthority> getAuthorities() {
+            lookups++;
+            return super.getAuthorities();
+        }
+    }
+    
+    private static class TestSecurityService extends AbstractSecurityService {
+        
+        @Override
+        public boolean validatePassword(String password) {
+            return false;
+        }
+        
+        @Override
+        public String changePassword(String oldPassword, String newPassword) {
+            return null;
+        }
+    }
+    
+    private final TestSecurityService securityService = new TestSecurityService();
+    
+    private final SecurityContextImpl securityContext = new SecurityContextImpl();
+    
+    private MockSession session;
+    
+    @Before
+    public void before() throws Exception {
+        MockWebSocketSession socket = new MockWebSocketSession();
+        session = new MockSession(new MockServletContext(), socket);
+        Map<String, Object> request = new HashMap<>();
+        request.put("data", new HashMap<>());
+        request.put("pid", session.getPage().getId());
+        request.put("type", "mock");
+        ExecutionContext.put(ExecutionContext.ATTR_REQUEST, new MockClientRequest(session, request));
+        socket.getAttributes().put(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
+    }
+    
+    @After
+    public void after() {
+        ExecutionContext.clear();
+    }
+    
+    @Test
+    public void testDecisionCache() {
+        TestAuthentication authentication = new TestAuthentication("PRIV_A", "PRIV_B");
+        securityContext.setAuthentication(authentication);
+        assertTrue(securityService.isGranted("PRIV_A"));
+        assertTrue(securityService.isGranted("PRIV_A"));
+        assertEquals(1, authentication.lookups);
+        assertFalse(securityService.isGranted("PRIV_C"));
+        assertFalse(securityService.isGranted("PRIV_C"));
+        assertEquals(2, authentication.lookups);
+        assertTrue(securityService.isGranted("PRIV_A,PRIV_B", true));
+        assertTrue(securityService.isGranted("PRIV_A,PRIV_B", true));
+        assertFalse(securityService.isGranted("PRIV_A,PRIV_C", true));
+        assertTrue(securityService.isGranted("PRIV_A,PRIV_C", false));
+        int lookups = authentication.lookups;
+        assertFalse(securityService.isGranted("PRIV_A,PRIV_C", true));
+        assertTrue(securityService.isGranted("PRIV_A,PRIV_C", false));
+        assertEquals(lookups, authentication.lookups);
+    }
+    
+    @Test
+    public void testAliasInvalidation() {
+        TestAuthentication authentication = new TestAuthentication("PRIV_A");
+        securityContext.setAuthentication(authentication);
+        assertFalse(securityService.isGranted("PRIV_D"));
+        assertEquals(1, authentication.lookups);
+        securityService.setAuthorityAlias("PRIV_D", "PRIV_A");
+        assertTrue(securityService.isGranted("PRIV_D"));
+        assertTrue(securityService.isGranted("PRIV_D"));
+        assertEquals(3, authentication.lookups);
+        securityService.setAuthorityAlias("PRIV_D", null);
+        assertFalse(securityService.isGranted("PRIV_D"));
+    }
+    
+    @Test
+    public void testAuthenticationInvalidation() {
+        securityContext.setAuthentication(new TestAuthentication("PRIV_A"));
+        assertTrue(securityService.isGranted("PRIV_A"));
+        TestAuthentication authentication = new TestAuthentication("PRIV_B");
+        securityContext.setAuthentication(authentication);
+        assertFalse(securityService.isGranted("PRIV_A"));
+        assertTrue(securityService.isGranted("PRIV_B"));
+        assertEquals(2, authentication.lookups);
+    }
+    
+}
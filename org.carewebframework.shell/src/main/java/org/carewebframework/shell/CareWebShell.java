@@ -54,6 +54,7 @@ import org.carewebframework.shell.elements.ElementPlugin;
 import org.carewebframework.shell.layout.Layout;
 import org.carewebframework.shell.layout.LayoutParser;
 import org.carewebframework.shell.plugins.PluginDefinition;
+import org.carewebframework.shell.plugins.PluginPreloader;
 import org.carewebframework.shell.plugins.PluginResourceHelp;
 import org.carewebframework.ui.command.CommandEvent;
 import org.carewebframework.ui.command.CommandRegistry;
@@ -272,6 +273,7 @@ public class CareWebShell extends Div implements INamespace {
         }
         
         startupRoutines.execute();
+        PluginPreloader.getInstance().schedule(this);
     }
     
     /**
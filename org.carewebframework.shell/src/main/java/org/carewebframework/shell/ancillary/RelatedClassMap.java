@@ -25,16 +25,18 @@
  */
 package org.carewebframework.shell.ancillary;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.carewebframework.shell.elements.ElementBase;
 
 /**
  * Defines cardinality relationships between layout elements. This is used to constrain parent-child
- * relationships.
+ * relationships. Lookups are resolved once per source class and per source/target class pair and
+ * then cached, so that subsequent checks are constant time. The cache is discarded whenever a new
+ * relationship is registered.
  */
 public class RelatedClassMap {
     
@@ -74,7 +76,7 @@ public class RelatedClassMap {
      */
     private static class Cardinalities {
 
-        private final List<Cardinality> cardinalities = new ArrayList<>();
+        private final List<Cardinality> cardinalities = new CopyOnWriteArrayList<>();
 
         private int total;
         
@@ -105,7 +107,22 @@ public class RelatedClassMap {
         }
     }
     
-    private final Map<Class<? extends ElementBase>, Cardinalities> map = new HashMap<>();
+    /**
+     * Marker for a source class with no cardinalities.
+     */
+    private static final Cardinalities NONE = new Cardinalities();
+    
+    private final Map<Class<? extends ElementBase>, Cardinalities> map = new ConcurrentHashMap<>();
+    
+    /**
+     * Resolved cardinalities by source class.
+     */
+    private final Map<Class<? extends ElementBase>, Cardinalities> resolvedCardinalities = new ConcurrentHashMap<>();
+    
+    /**
+     * Resolved cardinality by source class and target class.
+     */
+    private final Map<Class<? extends ElementBase>, Map<Class<? extends ElementBase>, Cardinality>> resolvedCardinality = new ConcurrentHashMap<>();
     
     /**
      * Returns the cardinalities associated with this class or a superclass.
@@ -114,6 +131,22 @@ public class RelatedClassMap {
      * @return The cardinalities, or null if none found.
      */
     public Cardinalities getCardinalities(Class<? extends ElementBase> sourceClass) {
+        Cardinalities cardinalities = resolvedCardinalities.get(sourceClass);
+        
+        if (cardinalities == null) {
+            cardinalities = resolvedCardinalities.computeIfAbsent(sourceClass, this::resolveCardinalities);
+        }
+        
+        return cardinalities == NONE ? null : cardinalities;
+    }
+    
+    /**
+     * Finds the cardinalities associated with this class or a superclass.
+     *
+     * @param sourceClass Class whose relation is sought.
+     * @return The cardinalities, or NONE if none found.
+     */
+    private Cardinalities resolveCardinalities(Class<? extends ElementBase> sourceClass) {
         Class<?> clazz = sourceClass;
         Cardinalities cardinalities = null;
         
@@ -122,7 +155,7 @@ public class RelatedClassMap {
             clazz = clazz == ElementBase.class ? null : clazz.getSuperclass();
         }
         
-        return cardinalities;
+        return cardinalities == null ? NONE : cardinalities;
     }
 
     /**
@@ -152,6 +185,8 @@ public class RelatedClassMap {
                                int maxOccurrences) {
         Cardinality cardinality = new Cardinality(sourceClass, targetClass, maxOccurrences);
         getOrCreateCardinalities(sourceClass).addCardinality(cardinality);
+        resolvedCardinalities.clear();
+        resolvedCardinality.clear();
     }
     
     /**
@@ -195,6 +230,26 @@ public class RelatedClassMap {
      * @return The cardinality in the class relationship (never null).
      */
     public Cardinality getCardinality(Class<? extends ElementBase> sourceClass, Class<? extends ElementBase> targetClass) {
+        Map<Class<? extends ElementBase>, Cardinality> targets = resolvedCardinality.get(sourceClass);
+        
+        if (targets == null) {
+            targets = resolvedCardinality.computeIfAbsent(sourceClass, key -> new ConcurrentHashMap<>());
+        }
+        
+        Cardinality cardinality = targets.get(targetClass);
+        return cardinality != null ? cardinality
+                : targets.computeIfAbsent(targetClass, key -> resolveCardinality(sourceClass, targetClass));
+    }
+    
+    /**
+     * Finds the cardinality between two element classes.
+     *
+     * @param sourceClass The primary class.
+     * @param targetClass The class to test.
+     * @return The cardinality in the class relationship (never null).
+     */
+    private Cardinality resolveCardinality(Class<? extends ElementBase> sourceClass,
+                                           Class<? extends ElementBase> targetClass) {
         Cardinalities cardinalities = getCardinalities(sourceClass);
         Cardinality cardinality = cardinalities == null ? null : cardinalities.getCardinality(targetClass);
         return cardinality == null ? new Cardinality(sourceClass, targetClass, 0) : cardinality;
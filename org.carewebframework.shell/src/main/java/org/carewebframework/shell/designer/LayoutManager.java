@@ -45,6 +45,7 @@ import java.util.Map;
 import org.carewebframework.api.FrameworkUtil;
 import org.fujion.common.StrUtil;
 import org.carewebframework.shell.layout.Layout;
+import org.carewebframework.shell.layout.LayoutCodec;
 import org.carewebframework.shell.layout.LayoutIdentifier;
 import org.carewebframework.shell.layout.LayoutParser;
 import org.carewebframework.shell.layout.LayoutUtil;
@@ -200,7 +201,7 @@ public class LayoutManager implements IAutoWired {
     }
     
     public static void exportLayout(LayoutIdentifier layout) {
-        String content = LayoutUtil.getLayoutContent(layout);
+        String content = LayoutCodec.toXML(LayoutUtil.getLayoutContent(layout));
         ClientUtil.saveToFile(content, "text/xml", layout.name + ".xml");
     }
     
@@ -26,7 +26,9 @@
 package org.carewebframework.shell.elements;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -66,6 +68,8 @@ public abstract class ElementBase {
     
     private final List<ElementBase> children = new ArrayList<>();
     
+    private final Map<Class<?>, Integer> childCounts = new HashMap<>();
+    
     private final int maxChildren;
     
     private ElementBase parent;
@@ -170,6 +174,7 @@ public abstract class ElementBase {
         }
         
         children.add(child);
+        updateChildCounts(child, 1);
         child.updateParent(this);
         
         if (doEvent) {
@@ -217,6 +222,7 @@ public abstract class ElementBase {
         if (!isLocked) {
             beforeRemoveChild(child);
             children.remove(child);
+            updateChildCounts(child, -1);
             child.updateParent(null);
             afterRemoveChild(child);
         }
@@ -497,15 +503,20 @@ public abstract class ElementBase {
             return getChildCount();
         }
         
-        int count = 0;
-        
-        for (ElementBase child : children) {
-            if (clazz.isInstance(child)) {
-                count++;
-            }
+        Integer count = childCounts.get(clazz);
+        return count == null ? 0 : count;
+    }
+    
+    /**
+     * Updates the count of children for the child's class and each of its superclasses.
+     *
+     * @param child The child that was added or removed.
+     * @param delta 1 if the child was added, -1 if removed.
+     */
+    private void updateChildCounts(ElementBase child, int delta) {
+        for (Class<?> clazz = child.getClass(); clazz != ElementBase.class; clazz = clazz.getSuperclass()) {
+            childCounts.merge(clazz, delta, (c1, c2) -> c1 + c2 == 0 ? null : c1 + c2);
         }
-        
-        return count;
     }
     
     /**
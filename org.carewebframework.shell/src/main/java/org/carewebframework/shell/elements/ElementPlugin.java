@@ -27,6 +27,7 @@ package org.carewebframework.shell.elements;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -44,6 +45,8 @@ import org.carewebframework.shell.plugins.PluginDefinition;
 import org.carewebframework.shell.plugins.PluginEvent;
 import org.carewebframework.shell.plugins.PluginEvent.PluginAction;
 import org.carewebframework.shell.plugins.PluginException;
+import org.carewebframework.shell.plugins.PluginLazyInitializer;
+import org.carewebframework.shell.plugins.PluginTelemetry;
 import org.carewebframework.shell.property.IPropertyAccessor;
 import org.carewebframework.shell.property.PropertyInfo;
 import org.carewebframework.shell.property.PropertyProxy;
@@ -59,6 +62,9 @@ import org.fujion.component.BaseUIComponent;
 import org.fujion.component.Namespace;
 import org.fujion.event.EventUtil;
 import org.fujion.page.PageUtil;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 import org.springframework.util.StringUtils;
 
 /**
@@ -100,8 +106,12 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
 
     private Map<String, Object> registeredBeans;
 
+    private Map<String, Boolean> pendingBeans;
+
     private boolean initialized;
 
+    private boolean activatedOnce;
+
     private String busyMessage;
 
     private boolean busyPending;
@@ -150,9 +160,24 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
      * Activate the plugin.
      */
     public void activate() {
+        boolean loaded = initialized;
+        long start = System.nanoTime();
         load();
         executeAction(PluginAction.ACTIVATE, true);
         container.setVisible(true);
+
+        long elapsed = System.nanoTime() - start;
+        PluginTelemetry telemetry = PluginTelemetry.getInstance();
+        telemetry.record(getDefinition(), PluginTelemetry.ACTIVATE, elapsed);
+
+        if (!activatedOnce) {
+            activatedOnce = true;
+            telemetry.record(getDefinition(), PluginTelemetry.FIRST_ACTIVATE, elapsed);
+
+            if (loaded) {
+                telemetry.record(getDefinition(), PluginTelemetry.FIRST_ACTIVATE_PRELOADED, elapsed);
+            }
+        }
     }
 
     /**
@@ -208,6 +233,8 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
             registeredBeans = null;
         }
 
+        pendingBeans = null;
+
         if (registeredComponents != null) {
             for (BaseComponent component : registeredComponents) {
                 component.destroy();
@@ -449,6 +476,7 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
         PluginException exception = null;
         PluginAction action = event.getAction();
         boolean debug = log.isDebugEnabled();
+        long start = System.nanoTime();
 
         if (pluginEventListeners1 != null) {
             for (IPluginEvent listener : new ArrayList<>(pluginEventListeners1)) {
@@ -498,6 +526,8 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
             doAfterLoad();
         }
 
+        PluginTelemetry.getInstance().record(getDefinition(), action, System.nanoTime() - start);
+
         if (exception != null) {
             throw exception;
         }
@@ -546,6 +576,15 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
         return wrapper;
     }
 
+    /**
+     * Returns true if the plugin has been loaded.
+     *
+     * @return True if the plugin has been loaded.
+     */
+    public boolean isLoaded() {
+        return initialized;
+    }
+
     /**
      * Initializes a plugin, if not already done. This loads the plugin's principal cwf page,
      * attaches any event listeners, and sends a load event to subscribers.
@@ -554,10 +593,12 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
         PluginDefinition definition = getDefinition();
 
         if (!initialized && definition != null) {
+            long start = System.nanoTime();
             BaseComponent top;
 
             try {
                 initialized = true;
+                registerPendingBeans();
                 top = container.getFirstChild();
 
                 if (top == null) {
@@ -576,6 +617,7 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
 
             findListeners(container);
             executeAction(PluginAction.LOAD, true);
+            PluginTelemetry.getInstance().record(definition, PluginTelemetry.LOAD, System.nanoTime() - start);
         }
     }
 
@@ -794,7 +836,10 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
     }
 
     /**
-     * Registers a helper bean with this container.
+     * Registers a helper bean with this container. If the plugin is lazily loaded and has not yet
+     * been loaded, and the bean is declared lazy-init (see {@link PluginLazyInitializer}),
+     * registration is deferred until the plugin is loaded so that the bean need not be created until
+     * it is needed. Otherwise, the bean is registered immediately.
      *
      * @param beanId The bean's id.
      * @param isRequired If true and the bean is not found, an exception is raised.
@@ -804,6 +849,17 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
             return;
         }
 
+        PluginDefinition definition = getDefinition();
+
+        if (!initialized && definition != null && definition.isLazyLoad() && isLazyInit(beanId)) {
+            if (pendingBeans == null) {
+                pendingBeans = new LinkedHashMap<>();
+            }
+
+            pendingBeans.put(beanId, isRequired);
+            return;
+        }
+
         Object bean = SpringUtil.getBean(beanId);
 
         if (bean == null && isRequired) {
@@ -832,7 +888,39 @@ public class ElementPlugin extends ElementUI implements IDisable, IPropertyAcces
     }
 
     /**
-     * Returns a bean that has been associated (via registerBean) with this plugin.
+     * Returns true if the named bean is declared lazy-init in the current application context.
+     *
+     * @param beanId The bean's id.
+     * @return True if the bean is declared lazy-init.
+     */
+    private boolean isLazyInit(String beanId) {
+        ApplicationContext appContext = SpringUtil.getAppContext();
+
+        if (!(appContext instanceof ConfigurableApplicationContext)) {
+            return false;
+        }
+
+        ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) appContext).getBeanFactory();
+        return beanFactory.containsBeanDefinition(beanId) && beanFactory.getBeanDefinition(beanId).isLazyInit();
+    }
+
+    /**
+     * Registers any helper beans whose registration was deferred until the plugin was loaded.
+     */
+    private void registerPendingBeans() {
+        if (pendingBeans != null) {
+            Map<String, Boolean> beans = pendingBeans;
+            pendingBeans = null;
+
+            for (Map.Entry<String, Boolean> entry : beans.entrySet()) {
+                registerBean(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Returns a bean that has been associated (via registerBean) with this plugin. Note that for a
+     * lazily loaded plugin, beans are not associated until the plugin is loaded.
      *
      * @param beanId The id of the bean.
      * @return The bean instance, or null if not found.
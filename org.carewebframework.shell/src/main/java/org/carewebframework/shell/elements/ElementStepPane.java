@@ -128,6 +128,14 @@ public class ElementStepPane extends ElementUI {
         return getLabel();
     }
     
+    /**
+     * Only the active step pane displays its children, so their materialization may be deferred.
+     */
+    @Override
+    public boolean canDeferChild(Class<? extends ElementBase> childClass) {
+        return true;
+    }
+    
     /**
      * Apply color changes to button and pane only.
      *
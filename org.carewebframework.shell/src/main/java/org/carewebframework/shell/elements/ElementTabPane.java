@@ -66,6 +66,14 @@ public class ElementTabPane extends ElementUI {
         return getLabel();
     }
 
+    /**
+     * Only the active tab pane displays its children, so their materialization may be deferred.
+     */
+    @Override
+    public boolean canDeferChild(Class<? extends ElementBase> childClass) {
+        return true;
+    }
+    
     /**
      * Sets the visibility and selection state of the tab.
      */
@@ -179,6 +179,15 @@ public class ElementTreePane extends ElementUI {
         }
     }
 
+    /**
+     * Only the active tree pane displays its main child, so its materialization may be deferred.
+     * Child tree panes are never deferred, since they form part of the visible tree structure.
+     */
+    @Override
+    public boolean canDeferChild(Class<? extends ElementBase> childClass) {
+        return !ElementTreePane.class.isAssignableFrom(childClass);
+    }
+    
     /**
      * Apply/remove the design context menu to/from both the pane and its associated node.
      *
@@ -323,6 +332,7 @@ public class ElementTreePane extends ElementUI {
             activate(false);
             activeChild = null;
         } else {
+            materializeDeferredChildren();
             activeChild = mainChild;
             ElementUI child = this;
             ElementUI parent = getParent();
@@ -120,11 +120,21 @@ public class ElementTrigger extends ElementBase {
     }
 
     public void addTarget(ElementUI target) {
-        targets.add(target);
+        if (targets.add(target)) {
+            targetsChanged();
+        }
     }
     
     public void removeTarget(ElementUI target) {
-        targets.remove(target);
+        if (targets.remove(target)) {
+            targetsChanged();
+        }
+    }
+    
+    private void targetsChanged() {
+        if (condition != null) {
+            condition.onTargetsChanged();
+        }
     }
     
     public Set<ElementUI> getTargets() {
@@ -61,6 +61,12 @@ public abstract class ElementTriggerCondition extends ElementBase implements ITr
         return Collections.unmodifiableSet(callbacks);
     }
 
+    /**
+     * Called by the owning trigger when its set of targets changes.
+     */
+    protected void onTargetsChanged() {
+    }
+
     protected void invokeCallbacks() {
         if (isEnabled() && !isDesignMode()) {
             for (ITriggerCallback callback : callbacks) {
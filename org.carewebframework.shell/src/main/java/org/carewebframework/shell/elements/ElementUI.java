@@ -25,6 +25,7 @@
  */
 package org.carewebframework.shell.elements;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
@@ -39,6 +40,7 @@ import org.carewebframework.shell.designer.DesignContextMenu;
 import org.carewebframework.shell.designer.DesignMask;
 import org.carewebframework.shell.designer.DesignMask.MaskMode;
 import org.carewebframework.shell.designer.PropertyEditorTriggers;
+import org.carewebframework.shell.layout.DeferredMaterialization;
 import org.carewebframework.shell.property.PropertyTypeRegistry;
 import org.carewebframework.ui.util.CWFUtil;
 import org.fujion.component.BaseComponent;
@@ -88,6 +90,8 @@ public abstract class ElementUI extends ElementBase {
     
     private String color;
     
+    private Runnable deferredChildren;
+    
     /**
      * Returns the UI element that registered the CWF component.
      *
@@ -194,6 +198,10 @@ public abstract class ElementUI extends ElementBase {
      */
     @Override
     public void setDesignMode(boolean designMode) {
+        if (designMode) {
+            materializeDeferredChildren();
+        }
+        
         super.setDesignMode(designMode);
 
         for (ElementTrigger trigger : triggers) {
@@ -310,9 +318,24 @@ public abstract class ElementUI extends ElementBase {
     @Override
     public void destroy() {
         unbind();
+        destroyTriggers();
         super.destroy();
     }
     
+    /**
+     * Detaches this element from its triggers, destroying any trigger left without targets so that
+     * its condition releases its event subscription.
+     */
+    private void destroyTriggers() {
+        for (ElementTrigger trigger : new ArrayList<>(triggers)) {
+            removeTrigger(trigger);
+            
+            if (trigger.getTargets().isEmpty()) {
+                trigger.removeChildren();
+            }
+        }
+    }
+    
     /**
      * Override to bind wrapped components to the UI.
      */
@@ -401,6 +424,10 @@ public abstract class ElementUI extends ElementBase {
      * @param activate The activate status.
      */
     public void activate(boolean activate) {
+        if (activate && materializeDeferredChildren()) {
+            DeferredMaterialization.getInstance().prefetch(this);
+        }
+        
         activateChildren(activate);
         activated = activate;
         updateVisibility();
@@ -411,6 +438,63 @@ public abstract class ElementUI extends ElementBase {
         }
     }
     
+    /**
+     * Returns true if materialization of a child of the specified class may be deferred until this
+     * element is first activated. The default is to disallow deferral. Container panes that show
+     * only one child at a time should override this.
+     *
+     * @param childClass Class of the child element.
+     * @return True if materialization of the child may be deferred.
+     */
+    public boolean canDeferChild(Class<? extends ElementBase> childClass) {
+        return false;
+    }
+    
+    /**
+     * Sets the callback that will materialize this element's children upon first activation.
+     *
+     * @param deferredChildren Callback to materialize children (may be null).
+     */
+    public void setDeferredChildren(Runnable deferredChildren) {
+        this.deferredChildren = deferredChildren;
+        updateState();
+    }
+    
+    /**
+     * Returns true if this element has children whose materialization has been deferred.
+     *
+     * @return True if this element has deferred children.
+     */
+    public boolean hasDeferredChildren() {
+        return deferredChildren != null;
+    }
+    
+    /**
+     * Materializes any deferred children.
+     *
+     * @return True if deferred children were materialized.
+     */
+    public boolean materializeDeferredChildren() {
+        Runnable deferred = deferredChildren;
+        
+        if (deferred == null) {
+            return false;
+        }
+        
+        deferredChildren = null;
+        deferred.run();
+        return true;
+    }
+    
+    /**
+     * Deferred children are materialized before serialization.
+     */
+    @Override
+    public Iterable<ElementBase> getSerializableChildren() {
+        materializeDeferredChildren();
+        return super.getSerializableChildren();
+    }
+    
     /**
      * Default behavior is to pass activation/inactivation event to children. Override to restrict
      * propagation of the event.
@@ -684,7 +768,7 @@ public abstract class ElementUI extends ElementBase {
      * <li>If all children are disabled, the parent is also disabled (set autoEnable to false to
      * turn off).</li>
      * <li>If all children are hidden or there are no children and design mode is not active, the
-     * parent is also hidden (set autoHide to false to turn off).
+     * parent is also hidden unless it has deferred children (set autoHide to false to turn off).
      * </ul>
      */
     @Override
@@ -694,7 +778,7 @@ public abstract class ElementUI extends ElementBase {
         }
         
         boolean anyEnabled = !autoEnable || getChildCount() == 0;
-        boolean anyVisible = !autoHide || isDesignMode();
+        boolean anyVisible = !autoHide || isDesignMode() || hasDeferredChildren();
         
         for (ElementUI child : getChildren(ElementUI.class)) {
             if (anyEnabled && anyVisible) {
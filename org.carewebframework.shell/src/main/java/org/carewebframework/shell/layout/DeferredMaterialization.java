@@ -0,0 +1,167 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.layout;
+
+import org.carewebframework.shell.elements.ElementBase;
+import org.carewebframework.shell.elements.ElementUI;
+import org.fujion.component.BaseComponent;
+import org.fujion.event.EventUtil;
+import org.fujion.event.IEventListener;
+
+/**
+ * Controls deferred materialization of layout subtrees. When enabled, the children of a container
+ * pane (e.g., a tab pane that is not initially selected) are not created when the layout is
+ * materialized, but rather the first time the pane is activated. Optionally, once a deferred pane
+ * has been materialized, a number of its following siblings may be materialized in the background
+ * (i.e., after the current request completes) in anticipation of their activation.
+ */
+public class DeferredMaterialization {
+    
+    private static final String EVENT_PREFETCH = "cwfDeferredPrefetch";
+    
+    private static final DeferredMaterialization instance = new DeferredMaterialization();
+    
+    private final IEventListener prefetchListener = (event) -> {
+        doPrefetch(ElementUI.getAssociatedElement(event.getTarget()));
+    };
+    
+    private boolean enabled;
+    
+    private int prefetch = 1;
+    
+    public static DeferredMaterialization getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Enforce singleton instance.
+     */
+    private DeferredMaterialization() {
+    }
+    
+    /**
+     * Returns true if deferred materialization is enabled.
+     *
+     * @return True if deferred materialization is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Enables or disables deferred materialization.
+     *
+     * @param enabled If true, deferred materialization is enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Returns the number of siblings to materialize in the background after a deferred pane has been
+     * materialized.
+     *
+     * @return Number of siblings to prefetch. A value of zero disables prefetching.
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+    
+    /**
+     * Sets the number of siblings to materialize in the background after a deferred pane has been
+     * materialized.
+     *
+     * @param prefetch Number of siblings to prefetch. A value of zero disables prefetching.
+     */
+    public void setPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+    }
+    
+    /**
+     * Returns true if materialization of the layout node's children may be deferred. This is the
+     * case if deferral is enabled, the node has children, and the element will accept deferral of
+     * every one of them.
+     *
+     * @param element The element created from the layout node.
+     * @param node The layout node.
+     * @return True if materialization of the node's children may be deferred.
+     */
+    /*package*/ boolean canDefer(ElementBase element, LayoutElement node) {
+        if (!enabled || !(element instanceof ElementUI) || node.getChildren().isEmpty()) {
+            return false;
+        }
+        
+        ElementUI ui = (ElementUI) element;
+        
+        for (LayoutNode child : node.getChildren()) {
+            if (!ui.canDeferChild(child.getDefinition().getClazz())) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Schedules materialization of the siblings that follow the specified element. Does nothing if
+     * prefetching is disabled or the element is not attached to a page.
+     *
+     * @param element An element whose deferred children were just materialized on activation.
+     */
+    public void prefetch(ElementUI element) {
+        BaseComponent component = prefetch <= 0 ? null : element.getOuterComponent();
+        
+        if (component == null || component.getPage() == null) {
+            return;
+        }
+        
+        if (!component.hasEventListener(EVENT_PREFETCH)) {
+            component.addEventListener(EVENT_PREFETCH, prefetchListener);
+        }
+        
+        EventUtil.post(EVENT_PREFETCH, component, null);
+    }
+    
+    /**
+     * Materializes the deferred children of up to <code>prefetch</code> siblings following the
+     * specified element.
+     *
+     * @param element An element whose deferred children were previously materialized.
+     */
+    private void doPrefetch(ElementUI element) {
+        int count = prefetch;
+        ElementUI sibling = element == null ? null : element.getNextSibling(false);
+        
+        while (count > 0 && sibling != null) {
+            if (sibling.hasDeferredChildren()) {
+                sibling.materializeDeferredChildren();
+                count--;
+            }
+            
+            sibling = sibling.getNextSibling(false);
+        }
+    }
+}
@@ -81,6 +81,7 @@ public class Layout implements IClipboardAware<Layout> {
         }
 
         materializeChildren(parent, root, !isDesktop);
+        materializeTriggers(parent, root);
         ElementUI element = parent.getLastVisibleChild();
         
         if (element != null) {
@@ -103,10 +104,36 @@ public class Layout implements IClipboardAware<Layout> {
             ElementBase element = ignoreInternal && def.isInternal() ? null : createElement(parent, child);
 
             if (element != null) {
-                materializeChildren(element, (LayoutElement) child, false);
+                materializeElement(element, (LayoutElement) child);
             }
         }
-
+    }
+    
+    /**
+     * Materializes the children and triggers of a newly created element. If permitted, creation of
+     * the children is deferred until the element is first activated. Since the layout tree may be
+     * shared and is never modified once frozen, it is safe to retain a reference to it until then.
+     *
+     * @param element The newly created element.
+     * @param node The layout element from which it was created.
+     */
+    private void materializeElement(ElementBase element, LayoutElement node) {
+        if (DeferredMaterialization.getInstance().canDefer(element, node)) {
+            ((ElementUI) element).setDeferredChildren(() -> materializeChildren(element, node, false));
+        } else {
+            materializeChildren(element, node, false);
+        }
+        
+        materializeTriggers(element, node);
+    }
+    
+    /**
+     * Materializes the triggers of a layout element.
+     *
+     * @param parent The UI element to which the triggers apply.
+     * @param node The layout element.
+     */
+    private void materializeTriggers(ElementBase parent, LayoutElement node) {
         for (LayoutTrigger trigger : node.getTriggers()) {
             ElementTrigger trg = new ElementTrigger();
             trg.addTarget((ElementUI) parent);
@@ -120,6 +147,15 @@ public class Layout implements IClipboardAware<Layout> {
         return layoutNode == null ? null : layoutNode.getDefinition().createElement(parent, layoutNode, true);
     }
     
+    /**
+     * Returns the root layout element.
+     *
+     * @return The root layout element (may be null).
+     */
+    protected LayoutRoot getRoot() {
+        return root;
+    }
+    
     /**
      * Returns the name of the currently loaded layout, or null if none loaded.
      *
@@ -138,6 +174,7 @@ public class Layout implements IClipboardAware<Layout> {
         layoutName = value;
         
         if (root != null) {
+            root = root.isFrozen() ? root.copy() : root;
             root.getAttributes().put("name", value);
         }
     }
@@ -0,0 +1,274 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.layout;
+
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.messaging.ConsumerService;
+import org.carewebframework.api.messaging.IMessageConsumer.IMessageCallback;
+import org.carewebframework.api.messaging.Message;
+import org.carewebframework.api.messaging.ProducerService;
+import org.carewebframework.shell.layout.LayoutElement.LayoutRoot;
+import org.fujion.common.MiscUtil;
+import org.fujion.common.StrUtil;
+
+/**
+ * Cache of parsed layouts, keyed by layout identifier and a hash of the layout content. Cached
+ * layout trees are frozen (immutable) and shared across sessions, so that a layout need only be
+ * parsed once regardless of how many desktops load it. Entries for a layout are discarded when the
+ * layout is saved or deleted. If messaging is available, invalidations are broadcast so that
+ * other nodes may discard their entries as well.
+ */
+public class LayoutCache implements IMessageCallback {
+    
+    private static final Log log = LogFactory.getLog(LayoutCache.class);
+    
+    public static final String CHANNEL = "cwf-layout-cache";
+    
+    private static final String MESSAGE_TYPE = "invalidate";
+    
+    private static final String APP_PREFIX = "app:";
+    
+    private static final LayoutCache instance = new LayoutCache();
+    
+    private final Map<String, LayoutRoot> cache = new LinkedHashMap<String, LayoutRoot>(16, 0.75f, true) {
+        
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, LayoutRoot> eldest) {
+            return size() > maxSize;
+        }
+    };
+    
+    private boolean enabled;
+    
+    private int maxSize = 200;
+    
+    private ProducerService producer;
+    
+    private ConsumerService consumer;
+    
+    public static LayoutCache getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Returns the identifier used to cache a stored layout.
+     *
+     * @param layoutId The layout identifier.
+     * @return The cache identifier.
+     */
+    public static String getId(LayoutIdentifier layoutId) {
+        return (layoutId.shared ? "shared:" : "private:") + layoutId.name;
+    }
+    
+    /**
+     * Returns the identifier used to cache a layout associated with an application id.
+     *
+     * @param appId The application id.
+     * @return The cache identifier.
+     */
+    public static String getAppId(String appId) {
+        return APP_PREFIX + appId;
+    }
+    
+    /**
+     * Enforce singleton instance.
+     */
+    private LayoutCache() {
+    }
+    
+    /**
+     * Subscribes to invalidation messages from other nodes.
+     */
+    public void init() {
+        if (consumer != null) {
+            consumer.subscribe(CHANNEL, this);
+        }
+    }
+    
+    /**
+     * Unsubscribes from invalidation messages and clears the cache.
+     */
+    public void destroy() {
+        if (consumer != null) {
+            consumer.unsubscribe(CHANNEL, this);
+        }
+        
+        clear();
+    }
+    
+    /**
+     * Returns the cached layout tree for the specified layout content, parsing and caching it if
+     * not already cached.
+     *
+     * @param id The layout's cache identifier.
+     * @param content The layout content.
+     * @param parser Parses the layout content if not cached.
+     * @return The layout tree. If caching is enabled, this will be a frozen, shared tree.
+     */
+    public LayoutRoot get(String id, String content, Supplier<LayoutRoot> parser) {
+        if (!enabled || content == null) {
+            return parser.get();
+        }
+        
+        String key = id + "#" + hash(content);
+        LayoutRoot root;
+        
+        synchronized (cache) {
+            root = cache.get(key);
+        }
+        
+        if (root == null) {
+            root = parser.get();
+            root.freeze();
+            
+            synchronized (cache) {
+                cache.put(key, root);
+            }
+        }
+        
+        return root;
+    }
+    
+    /**
+     * Discards cached entries for the specified layout on this and other nodes. Since the
+     * association between application ids and shared layouts is not known, entries for application
+     * layouts are discarded whenever a shared layout is invalidated.
+     *
+     * @param layoutId The layout identifier.
+     */
+    public void invalidate(LayoutIdentifier layoutId) {
+        String id = getId(layoutId);
+        invalidate(id);
+        
+        if (producer != null) {
+            producer.publish(CHANNEL, new Message(MESSAGE_TYPE, id));
+        }
+    }
+    
+    /**
+     * Discards cached entries for the specified cache identifier on this node.
+     *
+     * @param id The cache identifier.
+     */
+    private void invalidate(String id) {
+        String prefix = id + "#";
+        boolean shared = id.startsWith("shared:");
+        
+        synchronized (cache) {
+            Iterator<String> iter = cache.keySet().iterator();
+            
+            while (iter.hasNext()) {
+                String key = iter.next();
+                
+                if (key.startsWith(prefix) || (shared && key.startsWith(APP_PREFIX))) {
+                    iter.remove();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Discards all cached entries on this node.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+    
+    /**
+     * Returns the number of cached layouts.
+     *
+     * @return The number of cached layouts.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+    
+    /**
+     * Processes invalidation messages from other nodes.
+     */
+    @Override
+    public void onMessage(String channel, Message message) {
+        if (MESSAGE_TYPE.equals(message.getType()) && message.getPayload() instanceof String) {
+            if (log.isDebugEnabled()) {
+                log.debug("Received layout cache invalidation for " + message.getPayload());
+            }
+            
+            invalidate((String) message.getPayload());
+        }
+    }
+    
+    private String hash(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return new BigInteger(1, digest.digest(content.getBytes(StrUtil.UTF8))).toString(16);
+        } catch (Exception e) {
+            throw MiscUtil.toUnchecked(e);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        
+        if (!enabled) {
+            clear();
+        }
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+    
+    public void setProducer(ProducerService producer) {
+        this.producer = producer;
+    }
+    
+    public void setConsumer(ConsumerService consumer) {
+        this.consumer = consumer;
+    }
+    
+}
@@ -0,0 +1,304 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.layout;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.carewebframework.shell.layout.LayoutElement.LayoutRoot;
+import org.carewebframework.shell.plugins.PluginDefinition;
+import org.carewebframework.shell.plugins.PluginRegistry;
+import org.fujion.common.MiscUtil;
+import org.fujion.common.StrUtil;
+
+/**
+ * Compact binary encoding of a layout tree. Plugin ids, attribute names and attribute values are
+ * stored once in a string table and referenced by index from the tree. The encoded form is
+ * compressed and rendered as base 64 text prefixed with a content type marker, so that it may be
+ * stored wherever XML layouts are stored and distinguished from them on retrieval.
+ * <p>
+ * Encoded layout format (version 1, all integers are unsigned variable length):
+ *
+ * <pre>
+ * version:byte  string_count  string*  node
+ * string: length utf8_bytes
+ * node:   kind:byte  plugin_index+1  attribute_count  (name_index  value_index+1)*  child_count  node*
+ * </pre>
+ */
+public class LayoutCodec {
+    
+    /**
+     * Content type marker that prefixes an encoded layout.
+     */
+    public static final String CONTENT_TYPE = "application/x-cwf-layout";
+    
+    private static final int VERSION = 1;
+    
+    private static final String PREFIX = CONTENT_TYPE + ";v=" + VERSION + ",";
+    
+    private static final int ROOT = 0, ELEMENT = 1, TRIGGER = 2, CONDITION = 3, ACTION = 4;
+    
+    /**
+     * Returns true if the content is an encoded layout.
+     *
+     * @param content The layout content.
+     * @return True if the content is an encoded layout.
+     */
+    public static boolean isEncoded(String content) {
+        return content != null && content.startsWith(CONTENT_TYPE);
+    }
+    
+    /**
+     * Encodes a layout.
+     *
+     * @param layout The layout.
+     * @return The encoded layout.
+     */
+    public static String encode(Layout layout) {
+        return encode(layout.getRoot());
+    }
+    
+    /**
+     * Encodes a layout tree.
+     *
+     * @param root The root of the layout tree.
+     * @return The encoded layout.
+     */
+    public static String encode(LayoutRoot root) {
+        try {
+            Map<String, Integer> strings = new LinkedHashMap<>();
+            ByteArrayOutputStream tree = new ByteArrayOutputStream();
+            writeNode(new DataOutputStream(tree), root, ROOT, strings);
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(bytes)))) {
+                out.writeByte(VERSION);
+                writeInt(out, strings.size());
+                
+                for (String value : strings.keySet()) {
+                    byte[] utf8 = value.getBytes(StrUtil.UTF8);
+                    writeInt(out, utf8.length);
+                    out.write(utf8);
+                }
+                
+                tree.writeTo(out);
+            }
+            
+            return PREFIX + Base64.getEncoder().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw MiscUtil.toUnchecked(e);
+        }
+    }
+    
+    /**
+     * Decodes an encoded layout.
+     *
+     * @param content The encoded layout.
+     * @return The root of the layout tree.
+     */
+    public static LayoutRoot decode(String content) {
+        if (!content.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Unsupported layout encoding: "
+                    + content.substring(0, Math.min(content.length(), content.indexOf(',') + 1)));
+        }
+        
+        byte[] bytes = Base64.getDecoder().decode(content.substring(PREFIX.length()));
+        
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes))))) {
+            int version = in.readUnsignedByte();
+            
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported layout encoding version: " + version);
+            }
+            
+            int count = readInt(in);
+            List<String> strings = new ArrayList<>(count);
+            
+            for (int i = 0; i < count; i++) {
+                byte[] utf8 = new byte[readInt(in)];
+                in.readFully(utf8);
+                strings.add(new String(utf8, StrUtil.UTF8));
+            }
+            
+            return (LayoutRoot) readNode(in, null, strings);
+        } catch (IOException e) {
+            throw MiscUtil.toUnchecked(e);
+        }
+    }
+    
+    /**
+     * Converts layout content in either format to XML.
+     *
+     * @param content The layout content.
+     * @return The layout content as XML.
+     */
+    public static String toXML(String content) {
+        return isEncoded(content) ? new Layout(decode(content)).toString() : content;
+    }
+    
+    private static void writeNode(DataOutputStream out, LayoutNode node, int kind,
+                                  Map<String, Integer> strings) throws IOException {
+        out.writeByte(kind);
+        PluginDefinition def = kind == ROOT || kind == TRIGGER ? null : node.getDefinition();
+        writeInt(out, def == null ? 0 : getIndex(def.getId(), strings) + 1);
+        Map<String, String> attributes = node.getAttributes();
+        writeInt(out, attributes.size());
+        
+        for (Map.Entry<String, String> entry : attributes.entrySet()) {
+            writeInt(out, getIndex(entry.getKey(), strings));
+            writeInt(out, entry.getValue() == null ? 0 : getIndex(entry.getValue(), strings) + 1);
+        }
+        
+        if (node instanceof LayoutElement) {
+            List<LayoutTrigger> triggers = ((LayoutElement) node).getTriggers();
+            writeInt(out, node.getChildren().size() + triggers.size());
+            
+            for (LayoutNode child : node.getChildren()) {
+                writeNode(out, child, ELEMENT, strings);
+            }
+            
+            for (LayoutTrigger trigger : triggers) {
+                writeNode(out, trigger, TRIGGER, strings);
+            }
+        } else {
+            writeInt(out, node.getChildren().size());
+            
+            for (LayoutNode child : node.getChildren()) {
+                writeNode(out, child, child instanceof LayoutTriggerCondition ? CONDITION : ACTION, strings);
+            }
+        }
+    }
+    
+    private static LayoutNode readNode(DataInputStream in, LayoutNode parent, List<String> strings) throws IOException {
+        int kind = in.readUnsignedByte();
+        int defIndex = readInt(in);
+        PluginDefinition def = defIndex == 0 ? null : getDefinition(strings.get(defIndex - 1));
+        LayoutNode node;
+        
+        switch (kind) {
+            case ROOT:
+                node = new LayoutRoot();
+                break;
+            
+            case ELEMENT:
+                node = new LayoutElement(def, (LayoutElement) parent);
+                break;
+            
+            case TRIGGER:
+                node = new LayoutTrigger();
+                ((LayoutElement) parent).getTriggers().add((LayoutTrigger) node);
+                break;
+            
+            case CONDITION:
+                node = new LayoutTriggerCondition((LayoutTrigger) parent, def);
+                break;
+            
+            case ACTION:
+                node = new LayoutTriggerAction((LayoutTrigger) parent, def);
+                break;
+            
+            default:
+                throw new IllegalArgumentException("Unrecognized node kind in encoded layout: " + kind);
+        }
+        
+        int count = readInt(in);
+        
+        for (int i = 0; i < count; i++) {
+            String name = strings.get(readInt(in));
+            int valueIndex = readInt(in);
+            node.getAttributes().put(name, valueIndex == 0 ? null : strings.get(valueIndex - 1));
+        }
+        
+        count = readInt(in);
+        
+        for (int i = 0; i < count; i++) {
+            readNode(in, node, strings);
+        }
+        
+        return node;
+    }
+    
+    private static PluginDefinition getDefinition(String id) {
+        PluginDefinition def = PluginRegistry.getInstance().get(id);
+        
+        if (def == null) {
+            throw new IllegalArgumentException("Unrecognized element type: " + id);
+        }
+        
+        return def;
+    }
+    
+    private static int getIndex(String value, Map<String, Integer> strings) {
+        Integer index = strings.get(value);
+        
+        if (index == null) {
+            strings.put(value, index = strings.size());
+        }
+        
+        return index;
+    }
+    
+    private static void writeInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        
+        out.writeByte(value);
+    }
+    
+    private static int readInt(DataInputStream in) throws IOException {
+        int value = 0;
+        
+        for (int shift = 0;; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+    }
+    
+    /**
+     * Enforce static class.
+     */
+    private LayoutCodec() {
+    }
+}
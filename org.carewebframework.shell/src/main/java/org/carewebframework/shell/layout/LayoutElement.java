@@ -26,6 +26,7 @@
 package org.carewebframework.shell.layout;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.carewebframework.shell.plugins.PluginDefinition;
@@ -41,9 +42,22 @@ public class LayoutElement extends LayoutNode {
         public LayoutRoot() {
             super();
         }
+        
+        /**
+         * Returns a mutable copy of this root node. Descendant elements are copied as well, so that
+         * navigating from the copy never reaches the original tree. Triggers, which do not refer to
+         * their owning element, are shared with the original.
+         *
+         * @return Copy of this root node.
+         */
+        protected LayoutRoot copy() {
+            LayoutRoot copy = new LayoutRoot();
+            ((LayoutElement) copy).copyFrom(this);
+            return copy;
+        }
     }
     
-    private final List<LayoutTrigger> triggers = new ArrayList<>();
+    private List<LayoutTrigger> triggers = new ArrayList<>();
 
     private LayoutElement() {
         super("layout", null, PluginRegistry.getInstance().get("_desktop"));
@@ -52,9 +66,37 @@ public class LayoutElement extends LayoutNode {
     public LayoutElement(PluginDefinition pluginDefinition, LayoutElement parent) {
         super("element", parent, pluginDefinition);
     }
+    
+    /**
+     * Copies the attributes, triggers, and (recursively) the child elements of another element to
+     * this one.
+     *
+     * @param source The element to copy.
+     */
+    private void copyFrom(LayoutElement source) {
+        getAttributes().putAll(source.getAttributes());
+        triggers.addAll(source.getTriggers());
+        
+        for (LayoutNode child : source.getChildren()) {
+            LayoutElement element = (LayoutElement) child;
+            new LayoutElement(element.getDefinition(), this).copyFrom(element);
+        }
+    }
 
     protected List<LayoutTrigger> getTriggers() {
         return triggers;
     }
+    
+    @Override
+    protected void freeze() {
+        if (!isFrozen()) {
+            super.freeze();
+            triggers = Collections.unmodifiableList(new ArrayList<>(triggers));
+            
+            for (LayoutTrigger trigger : triggers) {
+                trigger.freeze();
+            }
+        }
+    }
 
 }
@@ -26,6 +26,7 @@
 package org.carewebframework.shell.layout;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -43,15 +44,17 @@ public abstract class LayoutNode implements IPropertyProvider {
 
     protected static final String NULL_VALUE = "\\null\\";
     
-    private final Map<String, String> attributes = new HashMap<>();
+    private Map<String, String> attributes = new HashMap<>();
 
     private final String tagName;
     
     private final LayoutNode parent;
     
-    private final List<LayoutNode> children = new ArrayList<>();
+    private List<LayoutNode> children = new ArrayList<>();
 
     private final PluginDefinition pluginDefinition;
+    
+    private boolean frozen;
 
     protected LayoutNode(String tagName, LayoutNode parent, PluginDefinition pluginDefinition) {
         this.tagName = tagName;
@@ -103,6 +106,38 @@ public abstract class LayoutNode implements IPropertyProvider {
         return attributes;
     }
 
+    /**
+     * Makes this node and its descendants immutable, allowing the layout tree to be shared. Attribute
+     * names and values are interned in the process.
+     */
+    protected void freeze() {
+        if (!frozen) {
+            frozen = true;
+            Map<String, String> map = new HashMap<>(attributes.size());
+            
+            for (Map.Entry<String, String> entry : attributes.entrySet()) {
+                String value = entry.getValue();
+                map.put(entry.getKey().intern(), value == null ? null : value.intern());
+            }
+            
+            attributes = Collections.unmodifiableMap(map);
+            children = Collections.unmodifiableList(new ArrayList<>(children));
+            
+            for (LayoutNode child : children) {
+                child.freeze();
+            }
+        }
+    }
+    
+    /**
+     * Returns true if this node has been frozen.
+     *
+     * @return True if this node is immutable.
+     */
+    protected boolean isFrozen() {
+        return frozen;
+    }
+    
     /**
      * @see org.carewebframework.api.property.IPropertyProvider#getProperty(java.lang.String)
      */
@@ -26,7 +26,16 @@
 package org.carewebframework.shell.layout;
 
 import java.io.InputStream;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.carewebframework.shell.ancillary.CWFException;
@@ -38,14 +47,15 @@ import org.carewebframework.shell.plugins.PluginRegistry;
 import org.carewebframework.shell.property.PropertyInfo;
 import org.fujion.client.ExecutionContext;
 import org.fujion.common.MiscUtil;
+import org.fujion.common.StrUtil;
 import org.fujion.common.Version;
-import org.fujion.common.XMLUtil;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
 /**
- * Parses an XML layout. A number of data sources are supported.
+ * Parses an XML layout. A number of data sources are supported. XML text and streams are parsed
+ * in a single pass using a StAX reader. Parsing from a DOM document is also supported.
  */
 public class LayoutParser {
     
@@ -61,6 +71,22 @@ public class LayoutParser {
         }
 
     }
+    
+    private static final Map<String, Tag> tagMap = new HashMap<>();
+    
+    static {
+        for (Tag tag : Tag.values()) {
+            tagMap.put(tag.name().toLowerCase(), tag);
+        }
+    }
+    
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    
+    static {
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        inputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
 
     private final Version newVersion = new Version("4.0");
     
@@ -90,18 +116,26 @@ public class LayoutParser {
             throw new CWFException("Unable to locate layout resource: " + resource);
         }
         
-        return parseStream(strm);
+        try (InputStream is = strm) {
+            return parseShared("resource:" + resource, IOUtils.toString(is, StrUtil.UTF8));
+        } catch (Exception e) {
+            throw MiscUtil.toUnchecked(e);
+        }
     }
 
     /**
-     * Parse the layout from XML content.
+     * Parse the layout from XML content or from an encoded layout (see {@link LayoutCodec}).
      *
-     * @param xml The XML content to parse.
+     * @param xml The XML content or encoded layout to parse.
      * @return The root layout element.
      */
     public static Layout parseText(String xml) {
+        if (LayoutCodec.isEncoded(xml)) {
+            return new Layout(LayoutCodec.decode(xml));
+        }
+        
         try {
-            return parseDocument(XMLUtil.parseXMLFromString(xml));
+            return parseReader(inputFactory.createXMLStreamReader(new StringReader(xml)));
         } catch (Exception e) {
             throw MiscUtil.toUnchecked(e);
         }
@@ -115,7 +149,7 @@ public class LayoutParser {
      */
     public static Layout parseStream(InputStream stream) {
         try (InputStream is = stream) {
-            return parseDocument(XMLUtil.parseXMLFromStream(is));
+            return parseReader(inputFactory.createXMLStreamReader(is));
         } catch (Exception e) {
             throw MiscUtil.toUnchecked(e);
         }
@@ -128,7 +162,7 @@ public class LayoutParser {
      * @return The root layout element.
      */
     public static Layout parseProperty(LayoutIdentifier layoutId) {
-        return parseText(LayoutUtil.getLayoutContent(layoutId));
+        return parseShared(LayoutCache.getId(layoutId), LayoutUtil.getLayoutContent(layoutId));
     }
     
     /**
@@ -138,7 +172,19 @@ public class LayoutParser {
      * @return The root layout element.
      */
     public static Layout parseAppId(String appId) {
-        return parseText(LayoutUtil.getLayoutContentByAppId(appId));
+        return parseShared(LayoutCache.getAppId(appId), LayoutUtil.getLayoutContentByAppId(appId));
+    }
+    
+    /**
+     * Parse the layout from XML content, using the layout cache. The returned layout is backed by
+     * a shared, immutable layout tree.
+     *
+     * @param id Identifies the source of the layout (see {@link LayoutCache}).
+     * @param xml The XML content to parse.
+     * @return The root layout element.
+     */
+    public static Layout parseShared(String id, String xml) {
+        return new Layout(LayoutCache.getInstance().get(id, xml, () -> parseText(xml).getRoot()));
     }
     
     /**
@@ -151,6 +197,21 @@ public class LayoutParser {
         return new Layout(instance.parseChildren(document, null, Tag.LAYOUT));
     }
     
+    /**
+     * Parse the layout from a StAX reader. The reader is closed upon completion.
+     *
+     * @param reader The StAX reader.
+     * @return The root layout element.
+     * @throws XMLStreamException XML parsing exception.
+     */
+    private static Layout parseReader(XMLStreamReader reader) throws XMLStreamException {
+        try {
+            return new Layout(instance.parseRoot(reader));
+        } finally {
+            reader.close();
+        }
+    }
+    
     /**
      * Parse the layout from the UI.
      *
@@ -168,7 +229,7 @@ public class LayoutParser {
         Element node = getFirstChild(parentNode);
         
         while (node != null) {
-            Tag tag = getTag(node, tags);
+            Tag tag = getTag(node.getTagName(), tags);
             
             switch (tag) {
                 case LAYOUT:
@@ -253,11 +314,14 @@ public class LayoutParser {
     }
     
     private PluginDefinition getDefinition(String type, Element node) {
-        type = type != null ? type : getRequiredAttribute(node, "_type");
+        return getDefinition(type != null ? type : getRequiredAttribute(node, "_type"), node.getTagName());
+    }
+    
+    private PluginDefinition getDefinition(String type, String tagName) {
         PluginDefinition pluginDefinition = PluginRegistry.getInstance().get(type);
 
         if (pluginDefinition == null) {
-            throw new IllegalArgumentException("Unrecognized " + node.getTagName() + " type: " + type);
+            throw new IllegalArgumentException("Unrecognized " + tagName + " type: " + type);
         }
 
         return pluginDefinition;
@@ -284,10 +348,20 @@ public class LayoutParser {
      * @return The attribute value.
      */
     private String getRequiredAttribute(Element node, String name) {
-        String value = node.getAttribute(name);
-        
-        if (value.isEmpty()) {
-            throw new IllegalArgumentException("Missing " + name + " attribute on node: " + node.getTagName());
+        return checkRequiredAttribute(node.getAttribute(name), name, node.getTagName());
+    }
+    
+    /**
+     * Validates the value of a required attribute, throwing an exception if missing.
+     *
+     * @param value The attribute value.
+     * @param name The attribute name.
+     * @param tagName The tag name of the containing node.
+     * @return The attribute value.
+     */
+    private String checkRequiredAttribute(String value, String name, String tagName) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + name + " attribute on node: " + tagName);
         }
         
         return value;
@@ -329,16 +403,18 @@ public class LayoutParser {
      * Return and validate the tag type, throwing an exception if the tag is unknown or among the
      * allowable types.
      *
-     * @param node The DOM node.
+     * @param name The tag name.
      * @param tags The allowable tag types.
      * @return The tag type.
      */
-    private Tag getTag(Element node, Tag... tags) {
-        String name = node.getTagName();
+    private Tag getTag(String name, Tag... tags) {
         String error = null;
+        Tag tag = tagMap.get(name);
+        tag = tag != null ? tag : tagMap.get(name.toLowerCase());
         
-        try {
-            Tag tag = Tag.valueOf(name.toUpperCase());
+        if (tag == null) {
+            error = "Unrecognized tag '%s' in layout";
+        } else {
             int i = ArrayUtils.indexOf(tags, tag);
 
             if (i < 0) {
@@ -350,8 +426,6 @@ public class LayoutParser {
 
                 return tag;
             }
-        } catch (IllegalArgumentException e) {
-            error = "Unrecognized tag '%s' in layout";
         }
 
         throw new IllegalArgumentException(getInvalidTagError(error, name, tags));
@@ -373,6 +447,135 @@ public class LayoutParser {
         return message + "; " + sb.toString();
     }
     
+    /**
+     * Parse the layout from a StAX reader positioned at the start of the document.
+     *
+     * @param reader The StAX reader.
+     * @return The root layout element, or null if the document has no root element.
+     * @throws XMLStreamException XML parsing exception.
+     */
+    private LayoutRoot parseRoot(XMLStreamReader reader) throws XMLStreamException {
+        if (!nextChild(reader)) {
+            return null;
+        }
+        
+        getTag(reader.getLocalName(), Tag.LAYOUT);
+        LayoutRoot root = new LayoutRoot();
+        LayoutUtil.copyAttributes(reader, root.getAttributes());
+        String version = reader.getAttributeValue(null, "version");
+        
+        if (new Version(checkRequiredAttribute(version, "version", reader.getLocalName())).compareTo(newVersion) >= 0) {
+            parseChildren(reader, root, Tag.ELEMENT);
+        } else {
+            parseLegacy(reader, root);
+        }
+        
+        return root;
+    }
+    
+    /**
+     * Parse the child nodes of the current node from a StAX reader. Upon return, the reader is
+     * positioned at the end tag of the current node.
+     *
+     * @param reader The StAX reader.
+     * @param parent The parent layout node.
+     * @param tags The allowable tag types.
+     * @throws XMLStreamException XML parsing exception.
+     */
+    private void parseChildren(XMLStreamReader reader, LayoutNode parent, Tag... tags) throws XMLStreamException {
+        while (nextChild(reader)) {
+            Tag tag = getTag(reader.getLocalName(), tags);
+            
+            switch (tag) {
+                case ELEMENT:
+                    LayoutElement layoutElement = newLayoutElement(reader, (LayoutElement) parent, null);
+                    parseChildren(reader, layoutElement, Tag.ELEMENT, Tag.TRIGGER);
+                    break;
+                
+                case TRIGGER:
+                    LayoutTrigger trigger = new LayoutTrigger();
+                    ((LayoutElement) parent).getTriggers().add(trigger);
+                    parseChildren(reader, trigger, Tag.CONDITION, Tag.ACTION);
+                    break;
+                
+                case ACTION:
+                    new LayoutTriggerAction((LayoutTrigger) parent, getDefinition(reader));
+                    skipChildren(reader);
+                    break;
+                
+                case CONDITION:
+                    new LayoutTriggerCondition((LayoutTrigger) parent, getDefinition(reader));
+                    skipChildren(reader);
+                    break;
+                
+                default:
+                    break;
+            }
+        }
+    }
+    
+    /**
+     * Parse the child nodes of the current node in legacy format from a StAX reader.
+     *
+     * @param reader The StAX reader.
+     * @param parent The parent layout element.
+     * @throws XMLStreamException XML parsing exception.
+     */
+    private void parseLegacy(XMLStreamReader reader, LayoutElement parent) throws XMLStreamException {
+        while (nextChild(reader)) {
+            LayoutElement ele = newLayoutElement(reader, parent, reader.getLocalName());
+            parseLegacy(reader, ele);
+        }
+    }
+    
+    private LayoutElement newLayoutElement(XMLStreamReader reader, LayoutElement parent, String type) {
+        PluginDefinition pluginDefinition = type != null ? getDefinition(type, reader.getLocalName())
+                : getDefinition(reader);
+        LayoutElement layoutElement = new LayoutElement(pluginDefinition, parent);
+        LayoutUtil.copyAttributes(reader, layoutElement.getAttributes());
+        return layoutElement;
+    }
+    
+    private PluginDefinition getDefinition(XMLStreamReader reader) {
+        String tagName = reader.getLocalName();
+        String type = checkRequiredAttribute(reader.getAttributeValue(null, "_type"), "_type", tagName);
+        return getDefinition(type, tagName);
+    }
+    
+    /**
+     * Advances the reader to the start of the next child node of the current node.
+     *
+     * @param reader The StAX reader.
+     * @return True if positioned at the start of a child node, or false if positioned at the end
+     *         of the current node (or of the document).
+     * @throws XMLStreamException XML parsing exception.
+     */
+    private boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    return true;
+                
+                case XMLStreamConstants.END_ELEMENT:
+                    return false;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Skips any children of the current node, leaving the reader positioned at its end tag.
+     *
+     * @param reader The StAX reader.
+     * @throws XMLStreamException XML parsing exception.
+     */
+    private void skipChildren(XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            skipChildren(reader);
+        }
+    }
+    
     /**
      * Parse the layout from the UI element tree.
      *
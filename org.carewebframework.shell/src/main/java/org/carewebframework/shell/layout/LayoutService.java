@@ -43,11 +43,28 @@ public class LayoutService implements ILayoutService {
     private static final String PROPERTY_LAYOUT_ASSOCIATION = "CAREWEB.LAYOUT.ASSOCIATION";
 
     private final IPropertyService propertyService;
+    
+    private boolean binaryFormat;
 
     public LayoutService(IPropertyService propertyService) {
         this.propertyService = propertyService;
     }
 
+    /**
+     * If true, layouts are stored in the compact binary format (see {@link LayoutCodec}).
+     * Otherwise, layouts are stored as XML. Layouts in either format may be read regardless of
+     * this setting.
+     *
+     * @return True if layouts are stored in binary format.
+     */
+    public boolean isBinaryFormat() {
+        return binaryFormat;
+    }
+    
+    public void setBinaryFormat(boolean binaryFormat) {
+        this.binaryFormat = binaryFormat;
+    }
+    
     /**
      * Validates a layout name.
      *
@@ -78,7 +95,12 @@ public class LayoutService implements ILayoutService {
      */
     @Override
     public void saveLayout(LayoutIdentifier layout, String content) {
+        if (binaryFormat && content != null && !LayoutCodec.isEncoded(content)) {
+            content = LayoutCodec.encode(LayoutParser.parseText(content));
+        }
+        
         propertyService.saveValue(getPropertyName(layout.shared), layout.name, layout.shared, content);
+        LayoutCache.getInstance().invalidate(layout);
     }
 
     /**
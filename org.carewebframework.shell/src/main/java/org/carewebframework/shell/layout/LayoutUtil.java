@@ -29,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import javax.xml.stream.XMLStreamReader;
+
 import org.carewebframework.api.spring.SpringUtil;
 import org.w3c.dom.Element;
 import org.w3c.dom.NamedNodeMap;
@@ -155,6 +157,20 @@ public class LayoutUtil {
         }
     }
 
+    /**
+     * Copy attributes from the current element of a StAX reader to a map.
+     *
+     * @param source StAX reader positioned at the start of an element.
+     * @param dest Destination map.
+     */
+    public static void copyAttributes(XMLStreamReader source, Map<String, String> dest) {
+        for (int i = 0; i < source.getAttributeCount(); i++) {
+            String prefix = source.getAttributePrefix(i);
+            String name = source.getAttributeLocalName(i);
+            dest.put(prefix == null || prefix.isEmpty() ? name : prefix + ":" + name, source.getAttributeValue(i));
+        }
+    }
+
     /**
      * Copy attributes from a map to a DOM node.
      *
@@ -26,7 +26,10 @@
 package org.carewebframework.shell.plugins;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.Manifest;
 
 import org.apache.commons.logging.Log;
@@ -101,6 +104,10 @@ public class PluginDefinition {
 
     private final List<Authority> authorities = new ArrayList<>();
 
+    private final Map<Class<?>, List<?>> typedResources = new ConcurrentHashMap<>();
+
+    private volatile String authorityList;
+
     private final List<PropertyInfo> properties = new ArrayList<>();
 
     private Manifest manifest;
@@ -280,30 +287,55 @@ public class PluginDefinition {
     /**
      * Returns the list of associated plugin resources. Never null.
      *
-     * @return List of associated resources.
+     * @return Unmodifiable list of associated resources. Use {@link #setResources} to add
+     *         resources.
      */
     public List<IPluginResource> getResources() {
-        return resources;
+        return Collections.unmodifiableList(resources);
     }
 
     /**
      * Returns the list of plugin resources belonging to the specified resource class. Never null.
+     * The list is computed once per resource class and cached until the resources are modified.
      *
      * @param <E> A subclass of PluginResource.
      * @param clazz The resource class being sought.
-     * @return List of associated resources.
+     * @return Unmodifiable list of associated resources.
      */
     @SuppressWarnings("unchecked")
     public <E extends IPluginResource> List<E> getResources(Class<E> clazz) {
-        List<E> list = new ArrayList<>();
+        List<?> list = typedResources.get(clazz);
+        return (List<E>) (list != null ? list : typedResources.computeIfAbsent(clazz, this::filterResources));
+    }
+
+    /**
+     * Precomputes the typed resource lists and the authority list. Called when the definition is
+     * registered.
+     */
+    void prepare() {
+        for (IPluginResource resource : resources) {
+            getResources(resource.getClass());
+        }
+
+        getAuthorityList();
+    }
+
+    /**
+     * Returns the resources that are instances of the specified class.
+     *
+     * @param clazz The resource class.
+     * @return Unmodifiable list of matching resources.
+     */
+    private List<?> filterResources(Class<?> clazz) {
+        List<IPluginResource> list = new ArrayList<>();
 
         for (IPluginResource resource : resources) {
             if (clazz.isInstance(resource)) {
-                list.add((E) resource);
+                list.add(resource);
             }
         }
 
-        return list;
+        return list.isEmpty() ? Collections.emptyList() : Collections.unmodifiableList(list);
     }
 
     /**
@@ -313,15 +345,16 @@ public class PluginDefinition {
      */
     public void setResources(List<IPluginResource> resources) {
         this.resources.addAll(resources);
+        typedResources.clear();
     }
 
     /**
      * Returns the list of authorities required for access to this plugin. Never null.
      *
-     * @return List of authorities.
+     * @return Unmodifiable list of authorities. Use {@link #setAuthorities} to add authorities.
      */
     public List<Authority> getAuthorities() {
-        return authorities;
+        return Collections.unmodifiableList(authorities);
     }
 
     /**
@@ -331,6 +364,7 @@ public class PluginDefinition {
      */
     public void setAuthorities(List<Authority> authorities) {
         this.authorities.addAll(authorities);
+        authorityList = null;
     }
 
     /**
@@ -542,17 +576,29 @@ public class PluginDefinition {
             return false; // If no restrictions, return false
         }
 
-        boolean result = true;
+        String list = getAuthorityList();
+        return requiresAll ? !SecurityUtil.isGrantedAll(list) : SecurityUtil.isGrantedNone(list);
+    }
 
-        for (Authority priv : authorities) {
-            result = !SecurityUtil.isGranted(priv.name);
+    /**
+     * Returns the associated authorities as a comma-delimited list, computing it on first use.
+     *
+     * @return Comma-delimited list of authority names.
+     */
+    private String getAuthorityList() {
+        String list = authorityList;
+
+        if (list == null) {
+            StringBuilder sb = new StringBuilder();
 
-            if (requiresAll == result) {
-                break;
+            for (Authority authority : authorities) {
+                sb.append(sb.length() == 0 ? "" : ",").append(authority.name);
             }
+
+            authorityList = list = sb.toString();
         }
 
-        return result;
+        return list;
     }
 
     /**
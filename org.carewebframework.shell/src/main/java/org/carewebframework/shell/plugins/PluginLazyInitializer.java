@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.plugins;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.util.PatternMatchUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * Applies lazy initialization defaults to singleton bean definitions in a child application
+ * context. This is opt-in: by default, no bean definitions are changed. When
+ * <code>pluginBeans</code> is enabled, beans that are declared as bean resources of lazily loaded
+ * plugins are made lazy, so that they are not created (and their registration with the plugin is
+ * deferred) until the plugin is first loaded. Note that this changes the order in which such beans
+ * are created and so the timing of any side effects of their creation. Additional bean families may
+ * be made lazy by name pattern, and infrastructure beans may be kept eager by name pattern
+ * regardless of other settings.
+ */
+public class PluginLazyInitializer implements BeanFactoryPostProcessor {
+
+    private boolean pluginBeans;
+
+    private String[] lazyBeans = {};
+
+    private String[] eagerBeans = {};
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+        Set<String> lazy = new HashSet<>();
+
+        if (pluginBeans) {
+            for (PluginDefinition definition : PluginRegistry.getInstance()) {
+                if (definition.isLazyLoad()) {
+                    for (PluginResourceBean resource : definition.getResources(PluginResourceBean.class)) {
+                        lazy.add(resource.getBean());
+                    }
+                }
+            }
+        }
+
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            if ((lazy.contains(beanName) || PatternMatchUtils.simpleMatch(lazyBeans, beanName))
+                    && !PatternMatchUtils.simpleMatch(eagerBeans, beanName)) {
+                BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
+
+                if (beanDefinition.isSingleton() && !beanDefinition.isAbstract()) {
+                    beanDefinition.setLazyInit(true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if bean resources of lazily loaded plugins are to be lazily initialized.
+     *
+     * @return True if plugin bean resources are to be lazily initialized.
+     */
+    public boolean isPluginBeans() {
+        return pluginBeans;
+    }
+
+    /**
+     * Set to true if bean resources of lazily loaded plugins are to be lazily initialized.
+     *
+     * @param pluginBeans True if plugin bean resources are to be lazily initialized.
+     */
+    public void setPluginBeans(boolean pluginBeans) {
+        this.pluginBeans = pluginBeans;
+    }
+
+    /**
+     * Sets the name patterns of additional beans to be lazily initialized.
+     *
+     * @param lazyBeans Comma-delimited list of bean name patterns (may use "*" wildcards).
+     */
+    public void setLazyBeans(String lazyBeans) {
+        this.lazyBeans = StringUtils.commaDelimitedListToStringArray(StringUtils.trimAllWhitespace(lazyBeans));
+    }
+
+    /**
+     * Sets the name patterns of beans that are always to be eagerly initialized. These take
+     * precedence over other settings.
+     *
+     * @param eagerBeans Comma-delimited list of bean name patterns (may use "*" wildcards).
+     */
+    public void setEagerBeans(String eagerBeans) {
+        this.eagerBeans = StringUtils.commaDelimitedListToStringArray(StringUtils.trimAllWhitespace(eagerBeans));
+    }
+
+}
@@ -0,0 +1,305 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.plugins;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.spring.SpringUtil;
+import org.carewebframework.help.HelpModule;
+import org.carewebframework.help.HelpSetCache;
+import org.carewebframework.shell.CareWebShell;
+import org.carewebframework.shell.elements.ElementPlugin;
+import org.carewebframework.ui.thread.ThreadEx;
+import org.carewebframework.ui.thread.ThreadEx.IRunnable;
+import org.fujion.event.EventUtil;
+import org.fujion.event.IEventListener;
+import org.fujion.page.PageUtil;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Preloads lazily loaded plugins in the background once the desktop has started, so that the
+ * first activation of a plugin does not incur the full cost of loading it. Candidates are selected
+ * from the plugins that have not yet been loaded, ordered by how often plugins of the same type
+ * have been activated in the past and then by layout order. Their page definitions, bean
+ * definitions and help sets are resolved on a background thread. No beans are created there, as
+ * bean initialization may expect the desktop's execution context. The plugins are then loaded,
+ * creating their components and bean resources, one plugin at a time, each in its own event cycle
+ * on the desktop's event thread. Usage history is taken from the first activation counts recorded
+ * by {@link PluginTelemetry}.
+ */
+public class PluginPreloader {
+    
+    private static final Log log = LogFactory.getLog(PluginPreloader.class);
+    
+    private static final String EVENT_RESOLVED = "cwfPluginPreloadResolved";
+    
+    private static final String EVENT_LOAD = "cwfPluginPreloadLoad";
+    
+    private static final String ATTR_PLUGINS = "plugins";
+    
+    private static final PluginPreloader instance = new PluginPreloader();
+    
+    /**
+     * Resolves the definitions of the plugins to be preloaded on a background thread.
+     */
+    private static class Resolver implements IRunnable {
+        
+        private final Set<PluginDefinition> definitions = new LinkedHashSet<>();
+        
+        private volatile boolean aborted;
+        
+        Resolver(List<ElementPlugin> plugins) {
+            for (ElementPlugin plugin : plugins) {
+                definitions.add(plugin.getDefinition());
+            }
+        }
+        
+        @Override
+        public void run(ThreadEx thread) throws Exception {
+            ApplicationContext appContext = SpringUtil.getAppContext();
+            
+            for (PluginDefinition definition : definitions) {
+                if (aborted) {
+                    break;
+                }
+                
+                try {
+                    resolve(definition, appContext);
+                } catch (Exception e) {
+                    log.warn("Error preloading plugin " + definition.getId(), e);
+                }
+            }
+        }
+        
+        /**
+         * Resolves the page definition, bean resource definitions and help sets of a plugin. Bean
+         * definitions are merged and their classes loaded (without initialization), but the beans
+         * themselves are created only when the plugin is loaded.
+         *
+         * @param definition The plugin definition.
+         * @param appContext The desktop's application context.
+         * @throws ClassNotFoundException If a bean class cannot be loaded.
+         */
+        private void resolve(PluginDefinition definition,
+                             ApplicationContext appContext) throws ClassNotFoundException {
+            if (definition.getUrl() != null) {
+                PageUtil.getPageDefinition(definition.getUrl());
+            }
+            
+            if (appContext instanceof ConfigurableApplicationContext) {
+                ConfigurableListableBeanFactory beanFactory = ((ConfigurableApplicationContext) appContext)
+                        .getBeanFactory();
+                
+                for (PluginResourceBean resource : definition.getResources(PluginResourceBean.class)) {
+                    String beanId = resource.getBean();
+                    
+                    if (beanFactory.containsBean(beanId) && !beanFactory.containsSingleton(beanId)) {
+                        String className = beanFactory.getMergedBeanDefinition(beanId).getBeanClassName();
+                        
+                        if (className != null) {
+                            ClassUtils.forName(className, beanFactory.getBeanClassLoader());
+                        }
+                    }
+                }
+            }
+            
+            for (PluginResourceHelp resource : definition.getResources(PluginResourceHelp.class)) {
+                HelpModule module = HelpModule.getModule(resource.getModule());
+                
+                if (module != null) {
+                    HelpSetCache.getInstance().get(module);
+                }
+            }
+        }
+        
+        @Override
+        public void abort() {
+            aborted = true;
+        }
+    }
+    
+    private final IEventListener resolvedListener = (event) -> {
+        ThreadEx thread = (ThreadEx) event.getData();
+        @SuppressWarnings("unchecked")
+        Deque<ElementPlugin> plugins = (Deque<ElementPlugin>) thread.getAttribute(ATTR_PLUGINS);
+        loadNext((CareWebShell) event.getTarget(), plugins);
+    };
+    
+    private final IEventListener loadListener = (event) -> {
+        @SuppressWarnings("unchecked")
+        Deque<ElementPlugin> plugins = (Deque<ElementPlugin>) event.getData();
+        loadNext((CareWebShell) event.getTarget(), plugins);
+    };
+    
+    private boolean enabled;
+    
+    private int maxPlugins = 3;
+    
+    public static PluginPreloader getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Enforce singleton instance.
+     */
+    private PluginPreloader() {
+    }
+    
+    /**
+     * Schedules preloading of plugins for the specified shell. Called once the desktop has started
+     * and the initially visible plugins have been loaded.
+     *
+     * @param shell The CareWeb shell.
+     */
+    public void schedule(CareWebShell shell) {
+        if (!enabled || maxPlugins <= 0 || shell.getPage() == null) {
+            return;
+        }
+        
+        List<ElementPlugin> candidates = getCandidates(shell);
+        
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        if (!shell.hasEventListener(EVENT_RESOLVED)) {
+            shell.addEventListener(EVENT_RESOLVED, resolvedListener);
+            shell.addEventListener(EVENT_LOAD, loadListener);
+        }
+        
+        ThreadEx thread = new ThreadEx(new Resolver(candidates), shell, EVENT_RESOLVED);
+        thread.setAttribute(ATTR_PLUGINS, new ArrayDeque<>(candidates));
+        thread.start();
+    }
+    
+    /**
+     * Returns the plugins to be preloaded. These are the lazily loaded plugins that have not yet
+     * been loaded, ordered first by the number of times plugins of the same type have been
+     * activated and then by layout order.
+     *
+     * @param shell The CareWeb shell.
+     * @return List of plugins to preload (never null).
+     */
+    public List<ElementPlugin> getCandidates(CareWebShell shell) {
+        List<ElementPlugin> candidates = new ArrayList<>();
+        
+        for (ElementPlugin plugin : shell.getLoadedPlugins()) {
+            PluginDefinition definition = plugin.getDefinition();
+            
+            if (!plugin.isLoaded() && definition != null && definition.isLazyLoad()) {
+                candidates.add(plugin);
+            }
+        }
+        
+        // Stable sort, so layout order is preserved among plugins with equal usage.
+        Collections.sort(candidates, (p1, p2) -> Long.compare(getUsage(p2), getUsage(p1)));
+        return candidates.size() > maxPlugins ? candidates.subList(0, maxPlugins) : candidates;
+    }
+    
+    /**
+     * Loads the next plugin in the queue and, if any remain, posts an event to load the next.
+     * Loading a plugin creates its components and any bean resources whose creation was deferred.
+     *
+     * @param shell The CareWeb shell.
+     * @param plugins The plugins remaining to be loaded.
+     */
+    private void loadNext(CareWebShell shell, Deque<ElementPlugin> plugins) {
+        ElementPlugin plugin;
+        
+        while ((plugin = plugins.poll()) != null) {
+            if (!plugin.isLoaded() && plugin.getParent() != null) {
+                try {
+                    plugin.load();
+                } catch (Exception e) {
+                    log.warn("Error preloading plugin " + plugin.getDefinition().getId(), e);
+                }
+                
+                break;
+            }
+        }
+        
+        if (!plugins.isEmpty()) {
+            EventUtil.post(EVENT_LOAD, shell, plugins);
+        }
+    }
+    
+    /**
+     * Returns the number of first activations recorded for the plugin's type.
+     *
+     * @param plugin The plugin.
+     * @return The usage count.
+     */
+    private long getUsage(ElementPlugin plugin) {
+        return PluginTelemetry.getInstance().getCount(plugin.getDefinition().getId(), PluginTelemetry.FIRST_ACTIVATE);
+    }
+    
+    /**
+     * Returns true if background preloading is enabled.
+     *
+     * @return True if background preloading is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Enables or disables background preloading.
+     *
+     * @param enabled If true, background preloading is enabled.
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    /**
+     * Returns the maximum number of plugins to preload per desktop.
+     *
+     * @return The maximum number of plugins to preload.
+     */
+    public int getMaxPlugins() {
+        return maxPlugins;
+    }
+    
+    /**
+     * Sets the maximum number of plugins to preload per desktop.
+     *
+     * @param maxPlugins The maximum number of plugins to preload.
+     */
+    public void setMaxPlugins(int maxPlugins) {
+        this.maxPlugins = maxPlugins;
+    }
+}
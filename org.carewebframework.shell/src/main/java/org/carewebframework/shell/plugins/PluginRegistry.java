@@ -57,6 +57,7 @@ public class PluginRegistry extends BeanRegistry<String, PluginDefinition> {
     
     @Override
     public void register(PluginDefinition item) {
+        item.prepare();
         super.register(item);
         classRegistry.register(item);
     }
@@ -0,0 +1,187 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.plugins;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * Collects timings and counts of plugin lifecycle operations, aggregated by plugin id across all
+ * sessions. Data is exposed via JMX and may be used, for example, to decide which plugins should
+ * be loaded eagerly rather than lazily. Recording is disabled by default and may be enabled via
+ * the <code>org.carewebframework.shell.plugin.telemetry</code> property or JMX.
+ */
+@ManagedResource(description = "Plugin usage telemetry.")
+public class PluginTelemetry {
+    
+    /**
+     * Time to load a plugin, including creation of its components and notification of listeners.
+     */
+    public static final String LOAD = "load";
+    
+    /**
+     * Time to activate a plugin, including loading it if not already loaded.
+     */
+    public static final String ACTIVATE = "activate";
+    
+    /**
+     * Time to activate a plugin for the first time.
+     */
+    public static final String FIRST_ACTIVATE = "firstActivate";
+    
+    /**
+     * Time to activate a plugin for the first time, where the plugin had already been loaded.
+     */
+    public static final String FIRST_ACTIVATE_PRELOADED = "firstActivatePreloaded";
+    
+    /**
+     * Prefix for the time to deliver a plugin action to listeners and controllers.
+     */
+    public static final String ACTION_PREFIX = "action.";
+    
+    private static final PluginTelemetry instance = new PluginTelemetry();
+    
+    private final ConcurrentMap<String, ConcurrentMap<String, TimingHistogram>> metrics = new ConcurrentHashMap<>();
+    
+    private volatile boolean enabled;
+    
+    public static PluginTelemetry getInstance() {
+        return instance;
+    }
+    
+    /**
+     * Enforce singleton instance.
+     */
+    private PluginTelemetry() {
+    }
+    
+    /**
+     * Records a timing for a plugin.
+     *
+     * @param definition The plugin definition (may be null).
+     * @param metric The metric name.
+     * @param nanos Elapsed time in nanoseconds.
+     */
+    public void record(PluginDefinition definition, String metric, long nanos) {
+        if (enabled && definition != null) {
+            metrics.computeIfAbsent(definition.getId(), key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(metric, key -> new TimingHistogram()).record(nanos);
+        }
+    }
+    
+    /**
+     * Records the timing of a plugin action.
+     *
+     * @param definition The plugin definition (may be null).
+     * @param action The plugin action.
+     * @param nanos Elapsed time in nanoseconds.
+     */
+    public void record(PluginDefinition definition, PluginEvent.PluginAction action, long nanos) {
+        record(definition, ACTION_PREFIX + action.name().toLowerCase(), nanos);
+    }
+    
+    /**
+     * Returns the histogram for a plugin metric.
+     *
+     * @param pluginId The plugin id.
+     * @param metric The metric name.
+     * @return The histogram, or null if nothing has been recorded.
+     */
+    public TimingHistogram getHistogram(String pluginId, String metric) {
+        Map<String, TimingHistogram> pluginMetrics = metrics.get(pluginId);
+        return pluginMetrics == null ? null : pluginMetrics.get(metric);
+    }
+    
+    /**
+     * Returns the number of recorded timings for a plugin metric.
+     *
+     * @param pluginId The plugin id.
+     * @param metric The metric name.
+     * @return The number of recorded timings.
+     */
+    public long getCount(String pluginId, String metric) {
+        TimingHistogram histogram = getHistogram(pluginId, metric);
+        return histogram == null ? 0 : histogram.getCount();
+    }
+    
+    /**
+     * Returns all histograms for a plugin, sorted by metric name.
+     *
+     * @param pluginId The plugin id.
+     * @return Histograms keyed by metric name (never null).
+     */
+    public Map<String, TimingHistogram> getHistograms(String pluginId) {
+        Map<String, TimingHistogram> pluginMetrics = metrics.get(pluginId);
+        return pluginMetrics == null ? Collections.emptyMap() : new TreeMap<>(pluginMetrics);
+    }
+    
+    @ManagedAttribute(description = "Ids of plugins for which telemetry has been recorded.")
+    public List<String> getPluginIds() {
+        List<String> ids = new ArrayList<>(metrics.keySet());
+        Collections.sort(ids);
+        return ids;
+    }
+    
+    @ManagedAttribute(description = "True if telemetry is being recorded.")
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    @ManagedAttribute
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    @ManagedAttribute(description = "Summary of recorded timings, one line per plugin metric.")
+    public List<String> getSummary() {
+        List<String> summary = new ArrayList<>();
+        
+        for (String pluginId : getPluginIds()) {
+            for (Map.Entry<String, TimingHistogram> entry : getHistograms(pluginId).entrySet()) {
+                TimingHistogram histogram = entry.getValue();
+                summary.add(String.format("%s %s: count=%d avg=%.2fms p95=%.2fms max=%.2fms", pluginId, entry.getKey(),
+                    histogram.getCount(), histogram.getAverageMillis(), histogram.getPercentileMillis(95),
+                    histogram.getMaxMillis()));
+            }
+        }
+        
+        return summary;
+    }
+    
+    @ManagedOperation(description = "Discards all recorded timings.")
+    public void reset() {
+        metrics.clear();
+    }
+}
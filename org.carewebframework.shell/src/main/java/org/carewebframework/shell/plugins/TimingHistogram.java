@@ -0,0 +1,140 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.plugins;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of elapsed times. Times are counted in buckets whose upper bounds are
+ * successive powers of two in microseconds, so that percentiles may be estimated with a relative
+ * error of no more than a factor of two.
+ */
+public class TimingHistogram {
+    
+    private static final int BUCKETS = 32;
+    
+    private final LongAdder count = new LongAdder();
+    
+    private final LongAdder totalNanos = new LongAdder();
+    
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+    
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    
+    /**
+     * Records an elapsed time.
+     *
+     * @param nanos Elapsed time in nanoseconds.
+     */
+    public void record(long nanos) {
+        long micros = Math.max(0, nanos / 1000);
+        int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+    }
+    
+    /**
+     * Returns the number of recorded times.
+     *
+     * @return The number of recorded times.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Returns the sum of all recorded times.
+     *
+     * @return The total time in milliseconds.
+     */
+    public double getTotalMillis() {
+        return totalNanos.sum() / 1000000.0;
+    }
+    
+    /**
+     * Returns the average of all recorded times.
+     *
+     * @return The average time in milliseconds.
+     */
+    public double getAverageMillis() {
+        long n = count.sum();
+        return n == 0 ? 0 : totalNanos.sum() / (n * 1000000.0);
+    }
+    
+    /**
+     * Returns the maximum recorded time.
+     *
+     * @return The maximum time in milliseconds.
+     */
+    public double getMaxMillis() {
+        return maxNanos.get() / 1000000.0;
+    }
+    
+    /**
+     * Returns an estimate of the specified percentile. This is the upper bound of the bucket
+     * containing the percentile, limited by the maximum recorded time.
+     *
+     * @param percentile The percentile (0 - 100).
+     * @return The estimated percentile in milliseconds.
+     */
+    public double getPercentileMillis(double percentile) {
+        long n = count.sum();
+        
+        if (n == 0) {
+            return 0;
+        }
+        
+        long target = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0);
+        long cumulative = 0;
+        
+        for (int i = 0; i < BUCKETS; i++) {
+            cumulative += buckets.get(i);
+            
+            if (cumulative >= Math.max(1, target)) {
+                return Math.min(getMaxMillis(), (1L << i) / 1000.0);
+            }
+        }
+        
+        return getMaxMillis();
+    }
+    
+    /**
+     * Resets the histogram.
+     */
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+}
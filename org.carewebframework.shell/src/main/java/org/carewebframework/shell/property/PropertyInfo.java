@@ -25,7 +25,7 @@
  */
 package org.carewebframework.shell.property;
 
-import java.lang.reflect.Method;
+import java.lang.invoke.MethodHandle;
 import java.util.Properties;
 
 import org.apache.commons.lang.StringUtils;
@@ -195,9 +195,9 @@ public class PropertyInfo {
                 return ((IPropertyAccessor) instance).getPropertyValue(this);
             }
             
-            Method method = PropertyUtil.findGetter(getter, instance, null);
-            return method == null ? null : method.invoke(instance);
-        } catch (Exception e) {
+            MethodHandle handle = PropertyUtil.findGetterHandle(getter, instance, null);
+            return handle == null ? null : (Object) handle.invokeExact(instance);
+        } catch (Throwable e) {
             throw MiscUtil.toUnchecked(e);
         }
     }
@@ -227,24 +227,18 @@ public class PropertyInfo {
                 return;
             }
             
-            Method method = null;
-            
-            try {
-                method = PropertyUtil.findSetter(setter, instance, value == null ? null : value.getClass());
-            } catch (Exception e) {
-                if (value != null) {
-                    PropertySerializer<?> serializer = getPropertyType().getSerializer();
-                    value = value instanceof String ? serializer.deserialize((String) value) : serializer.serialize(value);
-                    method = PropertyUtil.findSetter(setter, instance, value.getClass());
-                } else {
-                    throw e;
-                }
+            if (setter == null) {
+                return;
             }
             
-            if (method != null) {
-                method.invoke(instance, value);
+            if (value != null && !PropertyUtil.hasSetter(setter, instance, value.getClass())) {
+                PropertySerializer<?> serializer = getPropertyType().getSerializer();
+                value = value instanceof String ? serializer.deserialize((String) value) : serializer.serialize(value);
             }
-        } catch (Exception e) {
+            
+            MethodHandle handle = PropertyUtil.findSetterHandle(setter, instance, value == null ? null : value.getClass());
+            handle.invokeExact(instance, value);
+        } catch (Throwable e) {
             throw MiscUtil.toUnchecked(e);
         }
     }
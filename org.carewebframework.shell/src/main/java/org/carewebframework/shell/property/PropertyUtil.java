@@ -25,15 +25,90 @@
  */
 package org.carewebframework.shell.property;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.springframework.util.TypeUtils;
 
 /**
- * Utility methods for manipulating properties.
+ * Utility methods for manipulating properties. Accessor lookups are cached by class, method name,
+ * and value type, and accessors are invoked through method handles rather than reflection.
  */
 public class PropertyUtil {
     
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    
+    /**
+     * Marker for a failed lookup.
+     */
+    private static final Accessor MISSING = new Accessor(null, null);
+    
+    /**
+     * Cached accessors for each class.
+     */
+    private static final ClassValue<ConcurrentMap<AccessorKey, Accessor>> accessors = new ClassValue<ConcurrentMap<AccessorKey, Accessor>>() {
+        
+        @Override
+        protected ConcurrentMap<AccessorKey, Accessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+        
+    };
+    
+    /**
+     * A method and its corresponding method handle, adapted to a generic signature.
+     */
+    private static class Accessor {
+        
+        final Method method;
+        
+        final MethodHandle handle;
+        
+        Accessor(Method method, MethodHandle handle) {
+            this.method = method;
+            this.handle = handle;
+        }
+    }
+    
+    /**
+     * Key for an accessor lookup.
+     */
+    private static class AccessorKey {
+        
+        final String methodName;
+        
+        final Class<?> valueClass;
+        
+        final boolean setter;
+        
+        AccessorKey(String methodName, Class<?> valueClass, boolean setter) {
+            this.methodName = methodName;
+            this.valueClass = valueClass;
+            this.setter = setter;
+        }
+        
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof AccessorKey)) {
+                return false;
+            }
+            
+            AccessorKey key = (AccessorKey) object;
+            return key.setter == setter && key.valueClass == valueClass && key.methodName.equals(methodName);
+        }
+        
+        @Override
+        public int hashCode() {
+            return methodName.hashCode() * 31 + (valueClass == null ? 0 : valueClass.hashCode()) + (setter ? 1 : 0);
+        }
+    }
+    
     /**
      * Returns the requested setter method from an object instance.
      * 
@@ -44,7 +119,8 @@ public class PropertyUtil {
      * @throws NoSuchMethodException If method was not found.
      */
     public static Method findSetter(String methodName, Object instance, Class<?> valueClass) throws NoSuchMethodException {
-        return findMethod(methodName, instance, valueClass, true);
+        Accessor accessor = findAccessor(methodName, instance, valueClass, true);
+        return accessor == null ? null : accessor.method;
     }
     
     /**
@@ -57,28 +133,136 @@ public class PropertyUtil {
      * @throws NoSuchMethodException If method was not found.
      */
     public static Method findGetter(String methodName, Object instance, Class<?> valueClass) throws NoSuchMethodException {
-        return findMethod(methodName, instance, valueClass, false);
+        Accessor accessor = findAccessor(methodName, instance, valueClass, false);
+        return accessor == null ? null : accessor.method;
     }
     
     /**
-     * Returns the requested method from an object instance.
+     * Returns a method handle for the requested setter method from an object instance. The handle
+     * has the generic signature <code>(Object, Object)void</code>.
      * 
      * @param methodName Name of the setter method.
      * @param instance Object instance to search.
-     * @param valueClass The desired property return type (null if don't care).
+     * @param valueClass The setter parameter type (null if don't care).
+     * @return The setter method handle.
+     * @throws NoSuchMethodException If method was not found.
+     */
+    public static MethodHandle findSetterHandle(String methodName, Object instance,
+                                                Class<?> valueClass) throws NoSuchMethodException {
+        Accessor accessor = findAccessor(methodName, instance, valueClass, true);
+        return accessor == null ? null : accessor.handle;
+    }
+    
+    /**
+     * Returns a method handle for the requested getter method from an object instance. The handle
+     * has the generic signature <code>(Object)Object</code>.
+     * 
+     * @param methodName Name of the getter method.
+     * @param instance Object instance to search.
+     * @param valueClass The return value type (null if don't care).
+     * @return The getter method handle.
+     * @throws NoSuchMethodException If method was not found.
+     */
+    public static MethodHandle findGetterHandle(String methodName, Object instance,
+                                                Class<?> valueClass) throws NoSuchMethodException {
+        Accessor accessor = findAccessor(methodName, instance, valueClass, false);
+        return accessor == null ? null : accessor.handle;
+    }
+    
+    /**
+     * Returns true if the object instance has a compatible setter method.
+     * 
+     * @param methodName Name of the setter method.
+     * @param instance Object instance to search.
+     * @param valueClass The setter parameter type (null if don't care).
+     * @return True if a compatible setter method exists.
+     */
+    public static boolean hasSetter(String methodName, Object instance, Class<?> valueClass) {
+        return methodName != null && lookup(methodName, instance.getClass(), valueClass, true) != MISSING;
+    }
+    
+    /**
+     * Returns the requested accessor from an object instance.
+     * 
+     * @param methodName Name of the accessor method.
+     * @param instance Object instance to search.
+     * @param valueClass The desired property type (null if don't care).
      * @param setter If true, search for setter method signature. If false, getter method signature.
-     * @return The requested method.
+     * @return The requested accessor, or null if the method name is null.
      * @throws NoSuchMethodException If method was not found.
      */
-    private static Method findMethod(String methodName, Object instance, Class<?> valueClass, boolean setter)
-                                                                                                             throws NoSuchMethodException {
+    private static Accessor findAccessor(String methodName, Object instance, Class<?> valueClass,
+                                         boolean setter) throws NoSuchMethodException {
         if (methodName == null) {
             return null;
         }
         
+        Accessor accessor = lookup(methodName, instance.getClass(), valueClass, setter);
+        
+        if (accessor == MISSING) {
+            throw new NoSuchMethodException("Compatible method not found: " + methodName);
+        }
+        
+        return accessor;
+    }
+    
+    /**
+     * Returns the cached accessor for a class, creating it if necessary.
+     * 
+     * @param methodName Name of the accessor method.
+     * @param clazz Class to search.
+     * @param valueClass The desired property type (null if don't care).
+     * @param setter If true, search for setter method signature. If false, getter method signature.
+     * @return The requested accessor, or MISSING if not found.
+     */
+    private static Accessor lookup(String methodName, Class<?> clazz, Class<?> valueClass, boolean setter) {
+        return accessors.get(clazz).computeIfAbsent(new AccessorKey(methodName, valueClass, setter),
+            key -> createAccessor(findMethod(methodName, clazz, valueClass, setter), setter));
+    }
+    
+    /**
+     * Creates an accessor for the specified method.
+     * 
+     * @param method The accessor method (may be null).
+     * @param setter If true, the method is a setter.
+     * @return The new accessor, or MISSING if the method was null.
+     */
+    private static Accessor createAccessor(Method method, boolean setter) {
+        if (method == null) {
+            return MISSING;
+        }
+        
+        MethodHandle handle;
+        
+        try {
+            handle = MethodHandles.publicLookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            // A public method declared by a non-public class.
+            method.setAccessible(true);
+            
+            try {
+                handle = MethodHandles.lookup().unreflect(method);
+            } catch (IllegalAccessException e2) {
+                throw new IllegalStateException(e2);
+            }
+        }
+        
+        return new Accessor(method, handle.asType(setter ? SETTER_TYPE : GETTER_TYPE));
+    }
+    
+    /**
+     * Returns the requested method from a class.
+     * 
+     * @param methodName Name of the accessor method.
+     * @param clazz Class to search.
+     * @param valueClass The desired property return type (null if don't care).
+     * @param setter If true, search for setter method signature. If false, getter method signature.
+     * @return The requested method, or null if not found.
+     */
+    private static Method findMethod(String methodName, Class<?> clazz, Class<?> valueClass, boolean setter) {
         int paramCount = setter ? 1 : 0;
         
-        for (Method method : instance.getClass().getMethods()) {
+        for (Method method : clazz.getMethods()) {
             if (method.getName().equals(methodName) && method.getParameterTypes().length == paramCount) {
                 Class<?> targetClass = setter ? method.getParameterTypes()[0] : method.getReturnType();
                 
@@ -88,8 +272,7 @@ public class PropertyUtil {
             }
         }
         
-        throw new NoSuchMethodException("Compatible method not found: " + methodName);
-        
+        return null;
     }
     
     /**
@@ -25,6 +25,8 @@
  */
 package org.carewebframework.shell.triggers;
 
+import java.util.Collection;
+
 import org.carewebframework.shell.elements.ElementTrigger;
 import org.carewebframework.shell.elements.ElementUI;
 
@@ -37,6 +39,16 @@ public class TriggerConditionActivate extends TriggerConditionGenericEvent {
         super(ElementUI.EVENT_ELEMENT_ACTIVATE);
     }
 
+    /**
+     * Indexes this condition by the trigger's targets, so that it is evaluated only when one of
+     * them is activated.
+     */
+    @Override
+    protected Collection<?> getConditionKeys() {
+        ElementTrigger trigger = getTrigger();
+        return trigger == null ? null : trigger.getTargets();
+    }
+
     @Override
     protected boolean excludeEvent(Object eventObject) {
         ElementTrigger trigger = getTrigger();
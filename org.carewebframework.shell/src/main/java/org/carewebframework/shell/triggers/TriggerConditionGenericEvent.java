@@ -25,57 +25,96 @@
  */
 package org.carewebframework.shell.triggers;
 
+import java.util.Collection;
+
 import org.carewebframework.api.event.EventManager;
-import org.carewebframework.api.event.IGenericEvent;
+import org.carewebframework.api.event.IEventManager;
 import org.carewebframework.shell.elements.ElementTriggerCondition;
 
 /**
- * Condition that triggers based on a generic event.
+ * Condition that triggers based on a generic event. Event subscription and dispatch are delegated
+ * to the {@link TriggerEngine}.
  */
 public class TriggerConditionGenericEvent extends ElementTriggerCondition {
     
     private final String eventName;
     
-    private boolean subscribed;
-
-    private final IGenericEvent<Object> eventListener = (eventName, eventObject) -> {
-        if (!excludeEvent(eventObject)) {
-            invokeCallbacks();
-        }
-    };
+    private IEventManager eventManager;
+    
+    private TriggerEngine engine;
 
     public TriggerConditionGenericEvent(String eventName) {
         this.eventName = eventName;
     }
 
+    public String getEventName() {
+        return eventName;
+    }
+
     protected boolean excludeEvent(Object eventObject) {
         return false;
     }
 
+    /**
+     * Returns the keys under which this condition is indexed by the trigger engine. Only events
+     * whose event object matches one of these keys will be evaluated by this condition. A null
+     * value (the default) means the condition is evaluated for every event object.
+     *
+     * @return The condition keys, or null to match all event objects.
+     */
+    protected Collection<?> getConditionKeys() {
+        return null;
+    }
+
+    /**
+     * Adds this condition's callbacks to the engine's pending set if the event is not excluded.
+     *
+     * @param eventObject The event object.
+     * @param pending Receives the callbacks to be executed.
+     */
+    void collectCallbacks(Object eventObject, Collection<ITriggerCallback> pending) {
+        if (isEnabled() && !isDesignMode() && !excludeEvent(eventObject)) {
+            pending.addAll(getCallbacks());
+        }
+    }
+
     @Override
     public void registerCallback(ITriggerCallback callback) {
         super.registerCallback(callback);
-        updateSubscription();
+        updateSubscription(false);
     }
 
     @Override
     public void unregisterCallback(ITriggerCallback callback) {
         super.unregisterCallback(callback);
-        updateSubscription();
+        updateSubscription(false);
     }
 
-    private void updateSubscription() {
-        boolean hasCallbacks = getCallbacks().size() > 0;
-        
-        if (hasCallbacks != subscribed) {
-            if (hasCallbacks) {
-                EventManager.getInstance().subscribe(eventName, eventListener);
-            } else {
-                EventManager.getInstance().unsubscribe(eventName, eventListener);
+    @Override
+    protected void onTargetsChanged() {
+        updateSubscription(true);
+    }
 
+    /**
+     * Registers or unregisters this condition with the trigger engine according to whether any
+     * callbacks are present.
+     *
+     * @param reindex If true and already registered, refresh the condition keys.
+     */
+    private void updateSubscription(boolean reindex) {
+        boolean hasCallbacks = !getCallbacks().isEmpty();
+        
+        if (hasCallbacks && (engine == null || reindex)) {
+            if (engine == null) {
+                eventManager = EventManager.getInstance();
+                engine = TriggerEngine.getInstance(eventManager);
             }
             
-            subscribed = hasCallbacks;
+            engine.register(eventManager, this);
+        } else if (!hasCallbacks && engine != null) {
+            engine.unregister(eventManager, this);
+            engine = null;
+            eventManager = null;
         }
     }
 
@@ -0,0 +1,295 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.triggers;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.carewebframework.api.event.IEventManager;
+import org.carewebframework.api.event.IGenericEvent;
+
+/**
+ * Dispatches generic events to trigger conditions. Rather than each condition subscribing
+ * separately, the engine maintains a single subscription per event name and indexes the
+ * registered conditions by their condition keys, so that only the conditions interested in a
+ * given event object are evaluated. Callbacks triggered while an event is being dispatched
+ * (including those triggered by events raised from within trigger actions) are queued and
+ * executed in a single pass, each callback executing at most once per dispatch cycle.
+ * <p>
+ * Engines are held weakly by event manager. An engine holds no reference to its event manager, so
+ * the event manager (and with it the engine) may be reclaimed once its desktop is gone. The engine
+ * is also discarded once its last subscription is dropped.
+ */
+public class TriggerEngine {
+    
+    private static final Map<IEventManager, TriggerEngine> instances = new WeakHashMap<>();
+    
+    /**
+     * Conditions registered for a single event name.
+     */
+    private class Subscription implements IGenericEvent<Object> {
+        
+        private final String eventName;
+        
+        private final Map<Object, Set<TriggerConditionGenericEvent>> keyed = new HashMap<>();
+        
+        private final Set<TriggerConditionGenericEvent> unkeyed = new LinkedHashSet<>();
+        
+        Subscription(String eventName) {
+            this.eventName = eventName;
+        }
+        
+        @Override
+        public void eventCallback(String eventName, Object eventObject) {
+            dispatch(this, eventObject);
+        }
+        
+        void add(TriggerConditionGenericEvent condition, Collection<?> keys) {
+            if (keys == null) {
+                unkeyed.add(condition);
+            } else {
+                for (Object key : keys) {
+                    keyed.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(condition);
+                }
+            }
+        }
+        
+        void remove(TriggerConditionGenericEvent condition, Collection<?> keys) {
+            if (keys == null) {
+                unkeyed.remove(condition);
+            } else {
+                for (Object key : keys) {
+                    Set<TriggerConditionGenericEvent> conditions = keyed.get(key);
+                    
+                    if (conditions != null && conditions.remove(condition) && conditions.isEmpty()) {
+                        keyed.remove(key);
+                    }
+                }
+            }
+        }
+        
+        /**
+         * Returns a snapshot of the conditions that are candidates for the specified event object.
+         *
+         * @param eventObject The event object.
+         * @return Candidate conditions.
+         */
+        List<TriggerConditionGenericEvent> getCandidates(Object eventObject) {
+            Set<TriggerConditionGenericEvent> conditions = eventObject == null ? null : keyed.get(eventObject);
+            int size = unkeyed.size() + (conditions == null ? 0 : conditions.size());
+            List<TriggerConditionGenericEvent> candidates = new ArrayList<>(size);
+            candidates.addAll(unkeyed);
+            
+            if (conditions != null) {
+                candidates.addAll(conditions);
+            }
+            
+            return candidates;
+        }
+        
+        boolean isEmpty() {
+            return unkeyed.isEmpty() && keyed.isEmpty();
+        }
+    }
+    
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+    
+    private final Map<TriggerConditionGenericEvent, Collection<?>> registered = new HashMap<>();
+    
+    private final Set<ITriggerCallback> pending = new LinkedHashSet<>();
+    
+    private boolean dispatching;
+    
+    /**
+     * Returns the trigger engine associated with the specified event manager, creating one if
+     * necessary.
+     *
+     * @param eventManager The event manager.
+     * @return The trigger engine for the event manager.
+     */
+    public static TriggerEngine getInstance(IEventManager eventManager) {
+        synchronized (instances) {
+            return instances.computeIfAbsent(eventManager, key -> new TriggerEngine());
+        }
+    }
+    
+    private TriggerEngine() {
+    }
+    
+    /**
+     * Registers a condition under its event name and current condition keys. If the condition is
+     * already registered, its index entries are refreshed.
+     *
+     * @param eventManager The event manager with which this engine is associated.
+     * @param condition The condition to register.
+     */
+    public void register(IEventManager eventManager, TriggerConditionGenericEvent condition) {
+        synchronized (instances) {
+            synchronized (this) {
+                remove(eventManager, condition);
+                add(eventManager, condition);
+                instances.putIfAbsent(eventManager, this);
+            }
+        }
+    }
+    
+    /**
+     * Removes a condition from the index. The subscription for the condition's event name is
+     * dropped once no conditions remain, and the engine itself is discarded once no subscriptions
+     * remain.
+     *
+     * @param eventManager The event manager with which this engine is associated.
+     * @param condition The condition to unregister.
+     */
+    public void unregister(IEventManager eventManager, TriggerConditionGenericEvent condition) {
+        synchronized (instances) {
+            synchronized (this) {
+                remove(eventManager, condition);
+                
+                if (subscriptions.isEmpty()) {
+                    instances.remove(eventManager, this);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Adds a condition to the index, subscribing to its event name if necessary.
+     *
+     * @param eventManager The event manager.
+     * @param condition The condition to add.
+     */
+    private void add(IEventManager eventManager, TriggerConditionGenericEvent condition) {
+        Collection<?> keys = condition.getConditionKeys();
+        keys = keys == null ? null : new ArrayList<>(keys);
+        String eventName = condition.getEventName();
+        Subscription subscription = subscriptions.get(eventName);
+        
+        if (subscription == null) {
+            subscription = new Subscription(eventName);
+            subscriptions.put(eventName, subscription);
+            eventManager.subscribe(eventName, subscription);
+        }
+        
+        subscription.add(condition, keys);
+        registered.put(condition, keys);
+    }
+    
+    /**
+     * Removes a condition from the index, unsubscribing from its event name once no conditions for
+     * it remain.
+     *
+     * @param eventManager The event manager.
+     * @param condition The condition to remove.
+     */
+    private void remove(IEventManager eventManager, TriggerConditionGenericEvent condition) {
+        if (!registered.containsKey(condition)) {
+            return;
+        }
+        
+        Collection<?> keys = registered.remove(condition);
+        Subscription subscription = subscriptions.get(condition.getEventName());
+        
+        if (subscription != null) {
+            subscription.remove(condition, keys);
+            
+            if (subscription.isEmpty()) {
+                subscriptions.remove(subscription.eventName);
+                eventManager.unsubscribe(subscription.eventName, subscription);
+            }
+        }
+    }
+    
+    /**
+     * Returns true if the condition is currently registered.
+     *
+     * @param condition The condition.
+     * @return True if the condition is registered.
+     */
+    public synchronized boolean isRegistered(TriggerConditionGenericEvent condition) {
+        return registered.containsKey(condition);
+    }
+    
+    /**
+     * Returns the names of the events for which the engine currently holds a subscription.
+     *
+     * @return Subscribed event names.
+     */
+    public synchronized Set<String> getEventNames() {
+        return Collections.unmodifiableSet(new HashSet<>(subscriptions.keySet()));
+    }
+    
+    /**
+     * Evaluates the candidate conditions for an event and executes the resulting callbacks. If a
+     * dispatch is already in progress, the callbacks are queued and executed by the outer dispatch.
+     *
+     * @param subscription The subscription receiving the event.
+     * @param eventObject The event object.
+     */
+    private void dispatch(Subscription subscription, Object eventObject) {
+        List<TriggerConditionGenericEvent> candidates;
+        
+        synchronized (this) {
+            candidates = subscription.getCandidates(eventObject);
+        }
+        
+        for (TriggerConditionGenericEvent condition : candidates) {
+            condition.collectCallbacks(eventObject, pending);
+        }
+        
+        if (dispatching || pending.isEmpty()) {
+            return;
+        }
+        
+        Set<ITriggerCallback> executed = new HashSet<>();
+        dispatching = true;
+        
+        try {
+            while (!pending.isEmpty()) {
+                Iterator<ITriggerCallback> iter = pending.iterator();
+                ITriggerCallback callback = iter.next();
+                iter.remove();
+                
+                if (executed.add(callback)) {
+                    callback.onTrigger();
+                }
+            }
+        } finally {
+            pending.clear();
+            dispatching = false;
+        }
+    }
+    
+}
@@ -6,7 +6,8 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ LayoutParserTest.class, PluginDefinitionParserTest.class })
+@SuiteClasses({ LayoutParserTest.class, PluginDefinitionParserTest.class, PluginLazyInitializerTest.class,
+        TimingHistogramTest.class })
 public class AllTests extends MockUITest {
 
 }
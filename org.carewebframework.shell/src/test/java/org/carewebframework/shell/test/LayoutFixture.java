@@ -0,0 +1,84 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.test;
+
+/**
+ * Generates synthetic layouts of configurable size for layout tests and benchmarks.
+ */
+public class LayoutFixture {
+    
+    /**
+     * Creates a layout consisting of tree panes. If tabs is zero, the tree panes are placed within
+     * a single tree view at the top level. Otherwise, a tab view is created with the specified
+     * number of tab panes, each containing a tree view with the specified number of tree panes.
+     * 
+     * @param tabs Number of tab panes (may be zero).
+     * @param panes Number of tree panes per tree view.
+     * @param triggers If true, each tree pane is given a trigger that fires upon activation.
+     * @return The layout in XML format.
+     */
+    public static String createLayout(int tabs, int panes, boolean triggers) {
+        StringBuilder sb = new StringBuilder("<layout name=\"fixture\" version=\"4.0\">");
+        
+        if (tabs == 0) {
+            appendTreeView(sb, panes, triggers);
+        } else {
+            sb.append("<element _type=\"tabview\">");
+            
+            for (int i = 0; i < tabs; i++) {
+                sb.append("<element _type=\"tabpane\" label=\"Tab ").append(i).append("\">");
+                appendTreeView(sb, panes, triggers);
+                sb.append("</element>");
+            }
+            
+            sb.append("</element>");
+        }
+        
+        return sb.append("</layout>").toString();
+    }
+    
+    private static void appendTreeView(StringBuilder sb, int panes, boolean triggers) {
+        sb.append("<element _type=\"treeview\" open=\"true\">");
+        
+        for (int i = 0; i < panes; i++) {
+            sb.append("<element _type=\"treepane\" label=\"Pane ").append(i).append("\">");
+            
+            if (triggers) {
+                sb.append("<trigger><action _type=\"testAction\"/><condition _type=\"condition-activate\"/></trigger>");
+            }
+            
+            sb.append("</element>");
+        }
+        
+        sb.append("</element>");
+    }
+    
+    /**
+     * Enforce static class.
+     */
+    private LayoutFixture() {
+    }
+}
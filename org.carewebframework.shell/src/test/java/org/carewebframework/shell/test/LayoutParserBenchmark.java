@@ -0,0 +1,246 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.test;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.event.EventManager;
+import org.carewebframework.api.event.IEventManager;
+import org.carewebframework.shell.CareWebShell;
+import org.carewebframework.shell.elements.ElementBase;
+import org.carewebframework.shell.elements.ElementDesktop;
+import org.carewebframework.shell.elements.ElementTreePane;
+import org.carewebframework.shell.elements.ElementTreeView;
+import org.carewebframework.shell.elements.ElementUI;
+import org.carewebframework.shell.layout.Layout;
+import org.carewebframework.shell.layout.LayoutCodec;
+import org.carewebframework.shell.layout.LayoutParser;
+import org.carewebframework.shell.plugins.PluginDefinition;
+import org.carewebframework.shell.plugins.PluginRegistry;
+import org.carewebframework.shell.property.PropertyInfo;
+import org.carewebframework.ui.test.MockUITest;
+import org.fujion.common.XMLUtil;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Measures layout parsing, materialization, property access, designer checks, and trigger
+ * dispatch against large synthetic layouts. Not run as part of the normal build; run explicitly
+ * with <code>mvn test -Dtest=LayoutParserBenchmark</code>.
+ */
+public class LayoutParserBenchmark extends MockUITest {
+    
+    private static final Log log = LogFactory.getLog(LayoutParserBenchmark.class);
+    
+    private static CareWebShell shell;
+    
+    @Before
+    public void createShell() {
+        if (shell == null) {
+            shell = new CareWebShell();
+            shell.setParent(getMockEnvironment().getSession().getPage());
+        }
+    }
+    
+    @AfterClass
+    public static void destroyShell() {
+        shell = null;
+    }
+    
+    @Test
+    public void parserBenchmark() throws Exception {
+        String xml = LayoutFixture.createLayout(0, 5000, false);
+        String encoded = LayoutCodec.encode(LayoutParser.parseText(xml));
+        long domTime = Long.MAX_VALUE;
+        long staxTime = Long.MAX_VALUE;
+        long binaryTime = Long.MAX_VALUE;
+        
+        for (int i = 0; i < 10; i++) {
+            long start = System.nanoTime();
+            LayoutParser.parseDocument(XMLUtil.parseXMLFromString(xml));
+            domTime = Math.min(domTime, System.nanoTime() - start);
+            start = System.nanoTime();
+            LayoutParser.parseText(xml);
+            staxTime = Math.min(staxTime, System.nanoTime() - start);
+            start = System.nanoTime();
+            LayoutParser.parseText(encoded);
+            binaryTime = Math.min(binaryTime, System.nanoTime() - start);
+        }
+        
+        log.info("Parsed 5,000 element layout in " + domTime / 1000 + " us (DOM), " + staxTime / 1000 + " us (StAX), "
+                + binaryTime / 1000 + " us (binary). Layout size is " + xml.length() + " chars (XML), "
+                + encoded.length() + " chars (binary).");
+    }
+    
+    @Test
+    public void propertyBenchmark() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(0, 2000, false));
+        ElementDesktop root = shell.getDesktop();
+        long loadTime = Long.MAX_VALUE;
+        long saveTime = Long.MAX_VALUE;
+        
+        for (int i = 0; i < 5; i++) {
+            root.removeChildren();
+            long start = System.nanoTime();
+            layout.materialize(root);
+            loadTime = Math.min(loadTime, System.nanoTime() - start);
+            start = System.nanoTime();
+            LayoutParser.parseElement(root);
+            saveTime = Math.min(saveTime, System.nanoTime() - start);
+        }
+        
+        ElementTreePane pane = root.getChild(ElementTreeView.class, null).getChild(ElementTreePane.class, null);
+        PropertyInfo propInfo = LayoutParserTest.getPropertyInfo(pane, "label");
+        int iterations = 100000;
+        long start = System.nanoTime();
+        
+        for (int i = 0; i < iterations; i++) {
+            propInfo.setPropertyValue(pane, "label");
+            propInfo.getPropertyValue(pane);
+        }
+        
+        long handleTime = System.nanoTime() - start;
+        start = System.nanoTime();
+        
+        for (int i = 0; i < iterations; i++) {
+            for (Method method : pane.getClass().getMethods()) {
+                if (method.getName().equals(propInfo.getSetter()) && method.getParameterTypes().length == 1) {
+                    method.invoke(pane, "label");
+                    break;
+                }
+            }
+            
+            for (Method method : pane.getClass().getMethods()) {
+                if (method.getName().equals(propInfo.getGetter()) && method.getParameterTypes().length == 0) {
+                    method.invoke(pane);
+                    break;
+                }
+            }
+        }
+        
+        long reflectTime = System.nanoTime() - start;
+        root.removeChildren();
+        log.info("Loaded 2,000 element layout in " + loadTime / 1000 + " us, saved in " + saveTime / 1000
+                + " us. Property get/set: " + handleTime / iterations + " ns (cached handles), "
+                + reflectTime / iterations + " ns (method scan and reflection).");
+    }
+    
+    @Test
+    public void designerBenchmark() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(100, 20, false));
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        layout.materialize(root);
+        List<ElementBase> elements = new ArrayList<>();
+        collectElements(root, elements);
+        List<Class<? extends ElementBase>> classes = new ArrayList<>();
+        
+        for (PluginDefinition def : PluginRegistry.getInstance()) {
+            classes.add(def.getClazz());
+        }
+        
+        long tableTime = Long.MAX_VALUE;
+        long checkTime = Long.MAX_VALUE;
+        
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            
+            for (ElementBase element : elements) {
+                for (Class<? extends ElementBase> clazz : classes) {
+                    if (ElementBase.canAcceptChild(element.getClass(), clazz)) {
+                        ElementBase.canAcceptParent(clazz, element.getClass());
+                    }
+                }
+            }
+            
+            tableTime = Math.min(tableTime, System.nanoTime() - start);
+            start = System.nanoTime();
+            
+            for (ElementBase element : elements) {
+                for (Class<? extends ElementBase> clazz : classes) {
+                    element.canAcceptChild(clazz);
+                }
+            }
+            
+            checkTime = Math.min(checkTime, System.nanoTime() - start);
+        }
+        
+        root.removeChildren();
+        log.info("Checked " + elements.size() * classes.size() + " parent/child candidates in " + tableTime / 1000
+                + " us (class relationships), " + checkTime / 1000 + " us (including child counts).");
+    }
+    
+    @Test
+    public void triggerBenchmark() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(0, 1000, true));
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        layout.materialize(root);
+        List<ElementBase> panes = new ArrayList<>();
+        
+        for (ElementBase child : root.getChild(ElementTreeView.class, null).getChildren()) {
+            panes.add(child);
+        }
+        
+        IEventManager eventManager = EventManager.getInstance();
+        long dispatchTime = Long.MAX_VALUE;
+        
+        for (int i = 0; i < 10; i++) {
+            for (ElementBase pane : panes) {
+                ((ElementTreePane) pane).setHint(null);
+            }
+            
+            long start = System.nanoTime();
+            
+            for (ElementBase pane : panes) {
+                eventManager.fireLocalEvent(ElementUI.EVENT_ELEMENT_ACTIVATE, pane);
+            }
+            
+            dispatchTime = Math.min(dispatchTime, System.nanoTime() - start);
+        }
+        
+        assertEquals("triggered", ((ElementTreePane) panes.get(0)).getHint());
+        root.removeChildren();
+        log.info("Dispatched " + panes.size() + " activations to " + panes.size() + " triggers in " + dispatchTime / 1000
+                + " us.");
+    }
+    
+    private void collectElements(ElementBase element, List<ElementBase> elements) {
+        elements.add(element);
+        
+        for (ElementBase child : element.getChildren()) {
+            collectElements(child, elements);
+        }
+    }
+    
+}
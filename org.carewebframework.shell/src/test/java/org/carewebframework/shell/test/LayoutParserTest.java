@@ -28,9 +28,15 @@ package org.carewebframework.shell.test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
 
 import org.apache.commons.beanutils.PropertyUtils;
+import org.carewebframework.api.event.EventManager;
+import org.carewebframework.api.event.IEventManager;
 import org.carewebframework.shell.CareWebShell;
 import org.carewebframework.shell.elements.ElementBase;
 import org.carewebframework.shell.elements.ElementDesktop;
@@ -46,36 +52,238 @@ import org.carewebframework.shell.elements.ElementTreePane;
 import org.carewebframework.shell.elements.ElementTreeView;
 import org.carewebframework.shell.elements.ElementTrigger;
 import org.carewebframework.shell.elements.ElementUI;
+import org.carewebframework.shell.layout.DeferredMaterialization;
 import org.carewebframework.shell.layout.Layout;
+import org.carewebframework.shell.layout.LayoutCache;
+import org.carewebframework.shell.layout.LayoutCodec;
 import org.carewebframework.shell.layout.LayoutParser;
 import org.carewebframework.shell.plugins.PluginDefinition;
+import org.carewebframework.shell.plugins.PluginPreloader;
+import org.carewebframework.shell.plugins.PluginTelemetry;
 import org.carewebframework.shell.property.PropertyInfo;
 import org.carewebframework.shell.triggers.TriggerConditionActivate;
+import org.carewebframework.shell.triggers.TriggerEngine;
 import org.carewebframework.ui.controller.FrameworkController;
 import org.carewebframework.ui.test.MockUITest;
 import org.fujion.common.StrUtil;
+import org.fujion.common.XMLUtil;
 import org.fujion.event.ClickEvent;
 import org.fujion.event.EventUtil;
 import org.fujion.test.MockTest;
+import org.junit.AfterClass;
+import org.junit.Before;
 import org.junit.Test;
 
 public class LayoutParserTest extends MockUITest {
     
-    private CareWebShell shell;
-
+    private static CareWebShell shell;
+    
     private ElementUI element;
-
+    
+    @Before
+    public void createShell() {
+        PluginTelemetry.getInstance().setEnabled(true);
+        
+        if (shell == null) {
+            shell = new CareWebShell();
+            shell.setParent(getMockEnvironment().getSession().getPage());
+        }
+    }
+    
+    @AfterClass
+    public static void destroyShell() {
+        shell = null;
+        PluginTelemetry.getInstance().setEnabled(false);
+    }
+    
     @Test
     public void parserTest() throws Exception {
-        shell = new CareWebShell();
-        shell.setParent(getMockEnvironment().getSession().getPage());
         parserTestFile("layout-v3.xml", false);
         parserTestFile("layout-v4.xml", true);
     }
     
+    @Test
+    public void formatTest() throws Exception {
+        String xml = LayoutFixture.createLayout(2, 5, true);
+        Layout dom = LayoutParser.parseDocument(XMLUtil.parseXMLFromString(xml));
+        Layout stax = LayoutParser.parseText(xml);
+        Layout binary = LayoutParser.parseText(LayoutCodec.encode(stax));
+        assertEquals(dom.toString(), stax.toString());
+        assertEquals(dom.toString(), binary.toString());
+    }
+    
+    @Test
+    public void deferredTest() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(3, 1, false));
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        layout.materialize(root);
+        String expected = LayoutParser.parseElement(root).toString();
+        root.removeChildren();
+        DeferredMaterialization deferred = DeferredMaterialization.getInstance();
+        deferred.setEnabled(true);
+        deferred.setPrefetch(1);
+        
+        try {
+            layout.materialize(root);
+            ElementTabView tabview = root.getChild(ElementTabView.class, null);
+            ElementTabPane tab0 = (ElementTabPane) tabview.getChild(0);
+            ElementTabPane tab1 = (ElementTabPane) tabview.getChild(1);
+            ElementTabPane tab2 = (ElementTabPane) tabview.getChild(2);
+            assertFalse(tab0.hasDeferredChildren());
+            assertTrue(tab0.getFirstChild() instanceof ElementTreeView);
+            assertEquals(0, tab2.getChildCount());
+            assertTrue(tab2.hasDeferredChildren());
+            getMockEnvironment().flushEvents();
+            assertFalse(tab1.hasDeferredChildren());
+            assertEquals(1, tab1.getChildCount());
+            assertTrue(tab2.hasDeferredChildren());
+            assertEquals(expected, LayoutParser.parseElement(root).toString());
+            assertFalse(tab2.hasDeferredChildren());
+            tab2.bringToFront();
+            assertTrue(tab2.isActivated());
+            assertTrue(tab2.getFirstChild().getFirstChild() instanceof ElementTreePane);
+            root.removeChildren();
+        } finally {
+            deferred.setEnabled(false);
+        }
+    }
+    
+    @Test
+    public void propertyTest() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(0, 5, false));
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        layout.materialize(root);
+        ElementTreePane pane = root.getChild(ElementTreeView.class, null).getChild(ElementTreePane.class, null);
+        PropertyInfo propInfo = getPropertyInfo(pane, "label");
+        assertEquals("Pane 0", propInfo.getPropertyValue(pane));
+        propInfo.setPropertyValue(pane, "label");
+        assertEquals("label", propInfo.getPropertyValue(pane));
+        assertEquals("label", pane.getLabel());
+        root.removeChildren();
+    }
+    
+    @Test
+    public void designerTest() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(10, 2, false));
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        layout.materialize(root);
+        ElementTabView tabview = root.getChild(ElementTabView.class, null);
+        assertEquals(10, tabview.getChildCount(ElementTabPane.class));
+        assertEquals(10, tabview.getChildCount(ElementUI.class));
+        assertEquals(0, tabview.getChildCount(ElementTreePane.class));
+        assertTrue(ElementBase.canAcceptChild(ElementTabView.class, ElementTabPane.class));
+        assertTrue(ElementBase.canAcceptParent(ElementTabPane.class, ElementTabView.class));
+        assertTrue(tabview.canAcceptChild(ElementTabPane.class));
+        assertFalse(tabview.canAcceptChild(ElementTreePane.class));
+        ElementTreeView treeview = tabview.getChild(ElementTabPane.class, null).getChild(ElementTreeView.class, null);
+        assertTrue(treeview.canAcceptChild(ElementTreePane.class));
+        root.removeChildren();
+    }
+    
+    @Test
+    public void preloadTest() throws Exception {
+        String pane = "<tabpane><testplugin1 /></tabpane>";
+        String xml = "<layout name=\"preload\" version=\"3.0\"><tabview>" + pane + pane + pane + "</tabview></layout>";
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        LayoutParser.parseText(xml).materialize(root);
+        PluginPreloader preloader = PluginPreloader.getInstance();
+        // Only the plugin in the active (first) pane is loaded.
+        List<ElementPlugin> plugins = preloader.getCandidates(shell);
+        assertEquals(2, plugins.size());
+        assertFalse(plugins.get(0).isLoaded());
+        assertFalse(plugins.get(1).isLoaded());
+        
+        try {
+            preloader.setEnabled(true);
+            preloader.schedule(shell);
+            long timeout = System.currentTimeMillis() + 10000;
+            
+            while (!(plugins.get(0).isLoaded() && plugins.get(1).isLoaded()) && System.currentTimeMillis() < timeout) {
+                MockTest.getMockEnvironment().flushEvents();
+                Thread.sleep(10);
+            }
+        } finally {
+            preloader.setEnabled(false);
+        }
+        
+        assertTrue(plugins.get(0).isLoaded());
+        assertTrue(plugins.get(1).isLoaded());
+        assertTrue(preloader.getCandidates(shell).isEmpty());
+    }
+    
+    @Test
+    public void triggerTest() throws Exception {
+        Layout layout = LayoutParser.parseText(LayoutFixture.createLayout(0, 10, true));
+        ElementDesktop root = shell.getDesktop();
+        root.removeChildren();
+        layout.materialize(root);
+        ElementTreeView treeview = root.getChild(ElementTreeView.class, null);
+        assertEquals(10, treeview.getChildCount());
+        IEventManager eventManager = EventManager.getInstance();
+        TriggerEngine engine = TriggerEngine.getInstance(eventManager);
+        assertTrue(engine.getEventNames().contains(ElementUI.EVENT_ELEMENT_ACTIVATE));
+        
+        for (ElementBase child : treeview.getChildren()) {
+            ElementTreePane pane = (ElementTreePane) child;
+            pane.setHint(null);
+            eventManager.fireLocalEvent(ElementUI.EVENT_ELEMENT_ACTIVATE, pane);
+            assertEquals("triggered", pane.getHint());
+        }
+        
+        root.removeChildren();
+        assertFalse(engine.getEventNames().contains(ElementUI.EVENT_ELEMENT_ACTIVATE));
+        assertNotSame(engine, TriggerEngine.getInstance(eventManager));
+    }
+    
+    /**
+     * Returns the named property of an element's plugin definition.
+     * 
+     * @param element The element.
+     * @param propertyName The property name.
+     * @return The property info.
+     */
+    static PropertyInfo getPropertyInfo(ElementBase element, String propertyName) {
+        for (PropertyInfo pi : element.getDefinition().getProperties()) {
+            if (pi.getId().equals(propertyName)) {
+                return pi;
+            }
+        }
+        
+        fail("Property not found: " + propertyName);
+        return null;
+    }
+    
     private void parserTestFile(String file, boolean hasTrigger) throws Exception {
         Layout layout = parserTestXML(getTextFromResource(file), hasTrigger);
         parserTestXML(layout.toString(), hasTrigger);
+        String encoded = LayoutCodec.encode(layout);
+        assertTrue(LayoutCodec.isEncoded(encoded));
+        assertEquals(layout.toString(), LayoutCodec.toXML(encoded));
+        parserTestXML(encoded, hasTrigger);
+        parserTestShared(file, layout.toString(), hasTrigger);
+    }
+    
+    private void parserTestShared(String id, String xml, boolean hasTrigger) throws Exception {
+        LayoutCache cache = LayoutCache.getInstance();
+        cache.setEnabled(true);
+        
+        try {
+            Layout layout1 = LayoutParser.parseShared(id, xml);
+            Layout layout2 = LayoutParser.parseShared(id, xml);
+            parserTestLayout(layout1, hasTrigger);
+            parserTestLayout(layout2, hasTrigger);
+            assertEquals(layout1.toString(), layout2.toString());
+            layout1.setName("renamed");
+            assertEquals("renamed", layout1.getName());
+            assertEquals(layout2.toString().replace("\"test\"", "\"renamed\""), layout1.toString());
+            assertEquals("test", LayoutParser.parseShared(id, xml).getName());
+        } finally {
+            cache.setEnabled(false);
+        }
     }
     
     private Layout parserTestXML(String xml, boolean hasTrigger) throws Exception {
@@ -128,6 +336,8 @@ public class LayoutParserTest extends MockUITest {
         assertNotNull(controller);
         assertEquals(plugin1, controller.getPlugin());
         testPlugin(controller, 1, 1, 0, 0);
+        assertTrue(PluginTelemetry.getInstance().getCount("testplugin1", PluginTelemetry.FIRST_ACTIVATE) > 0);
+        assertTrue(PluginTelemetry.getInstance().getCount("testplugin1", PluginTelemetry.LOAD) > 0);
         root.activate(false);
         testPlugin(controller, 1, 1, 1, 0);
         root.activate(true);
@@ -148,17 +358,7 @@ public class LayoutParserTest extends MockUITest {
     }
     
     private void testProperty(ElementPlugin plugin, String propertyName, Object expectedValue) throws Exception {
-        PluginDefinition def = plugin.getDefinition();
-        PropertyInfo propInfo = null;
-        
-        for (PropertyInfo pi : def.getProperties()) {
-            if (pi.getId().equals(propertyName)) {
-                propInfo = pi;
-                break;
-            }
-        }
-        
-        assertNotNull("Property not found: " + propertyName, propInfo);
+        PropertyInfo propInfo = getPropertyInfo(plugin, propertyName);
         assertEquals(expectedValue, plugin.getPropertyValue(propInfo));
     }
     
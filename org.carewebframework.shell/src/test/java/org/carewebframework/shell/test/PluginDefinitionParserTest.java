@@ -26,8 +26,12 @@
 package org.carewebframework.shell.test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.carewebframework.shell.plugins.PluginDefinition;
 import org.carewebframework.shell.plugins.PluginResourceButton;
 import org.carewebframework.shell.plugins.PluginResourceHelp;
@@ -50,6 +54,26 @@ public class PluginDefinitionParserTest extends MockUITest {
         assertTrue(def.getResources().get(1) instanceof PluginResourceButton);
         assertTrue(def.getResources().get(2) instanceof PluginResourceHelp);
         assertTrue(def.getResources().get(3) instanceof PluginResourcePropertyGroup);
+        assertEquals(2, def.getResources(PluginResourceButton.class).size());
+        assertEquals(1, def.getResources(PluginResourceHelp.class).size());
+        assertSame(def.getResources(PluginResourceHelp.class), def.getResources(PluginResourceHelp.class));
+    }
+    
+    @Test
+    public void resourceCacheTest() throws Exception {
+        PluginDefinition def = PluginXmlParser.fromXml(MockTest.getTextFromResource("pluginDefinition.xml"));
+        List<PluginResourceButton> buttons = def.getResources(PluginResourceButton.class);
+        assertSame(buttons, def.getResources(PluginResourceButton.class));
+        def.setResources(Collections.singletonList(new PluginResourceButton()));
+        assertEquals(5, def.getResources().size());
+        assertEquals(3, def.getResources(PluginResourceButton.class).size());
+        assertEquals(2, buttons.size());
+    }
+    
+    @Test(expected = UnsupportedOperationException.class)
+    public void resourceMutationTest() throws Exception {
+        PluginDefinition def = PluginXmlParser.fromXml(MockTest.getTextFromResource("pluginDefinition.xml"));
+        def.getResources().add(new PluginResourceHelp());
     }
     
 }
@@ -0,0 +1,110 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.carewebframework.shell.plugins.PluginDefinition;
+import org.carewebframework.shell.plugins.PluginLazyInitializer;
+import org.carewebframework.shell.plugins.PluginResourceBean;
+import org.carewebframework.ui.test.MockUITest;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+
+public class PluginLazyInitializerTest extends MockUITest {
+    
+    @Test
+    public void testDefaults() {
+        DefaultListableBeanFactory beanFactory = createBeanFactory();
+        new PluginLazyInitializer().postProcessBeanFactory(beanFactory);
+        
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            assertFalse(beanName, beanFactory.getBeanDefinition(beanName).isLazyInit());
+        }
+    }
+    
+    @Test
+    public void testPluginBeans() {
+        PluginDefinition definition = PluginDefinition.getDefinition("testplugin1");
+        assertTrue(definition.isLazyLoad());
+        assertEquals("pluginTestController", definition.getResources(PluginResourceBean.class).get(0).getBean());
+        DefaultListableBeanFactory beanFactory = createBeanFactory();
+        PluginLazyInitializer initializer = new PluginLazyInitializer();
+        initializer.setPluginBeans(true);
+        initializer.postProcessBeanFactory(beanFactory);
+        assertTrue(isLazy(beanFactory, "pluginTestController"));
+        assertFalse(isLazy(beanFactory, "cacheFoo"));
+        assertFalse(isLazy(beanFactory, "other"));
+    }
+    
+    @Test
+    public void testPatterns() {
+        DefaultListableBeanFactory beanFactory = createBeanFactory();
+        PluginLazyInitializer initializer = new PluginLazyInitializer();
+        initializer.setPluginBeans(true);
+        initializer.setLazyBeans("cache*, prototype, abstract");
+        initializer.setEagerBeans("cacheBar, pluginTestController");
+        initializer.postProcessBeanFactory(beanFactory);
+        assertTrue(isLazy(beanFactory, "cacheFoo"));
+        // Eager patterns take precedence.
+        assertFalse(isLazy(beanFactory, "cacheBar"));
+        assertFalse(isLazy(beanFactory, "pluginTestController"));
+        // Only concrete singletons are affected.
+        assertFalse(isLazy(beanFactory, "prototype"));
+        assertFalse(isLazy(beanFactory, "abstract"));
+        assertFalse(isLazy(beanFactory, "other"));
+    }
+    
+    private DefaultListableBeanFactory createBeanFactory() {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        
+        for (String beanName : new String[] { "pluginTestController", "cacheFoo", "cacheBar", "other" }) {
+            beanFactory.registerBeanDefinition(beanName, createBeanDefinition());
+        }
+        
+        GenericBeanDefinition prototype = createBeanDefinition();
+        prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+        beanFactory.registerBeanDefinition("prototype", prototype);
+        GenericBeanDefinition abstractDefinition = createBeanDefinition();
+        abstractDefinition.setAbstract(true);
+        beanFactory.registerBeanDefinition("abstract", abstractDefinition);
+        return beanFactory;
+    }
+    
+    private GenericBeanDefinition createBeanDefinition() {
+        GenericBeanDefinition beanDefinition = new GenericBeanDefinition();
+        beanDefinition.setBeanClassName("java.lang.Object");
+        return beanDefinition;
+    }
+    
+    private boolean isLazy(DefaultListableBeanFactory beanFactory, String beanName) {
+        return beanFactory.getBeanDefinition(beanName).isLazyInit();
+    }
+}
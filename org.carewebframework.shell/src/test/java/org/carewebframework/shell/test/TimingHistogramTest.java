@@ -0,0 +1,131 @@
+/*
+ * #%L
+ * carewebframework
+ * %%
+ * Copyright (C) 2008 - 2016 Regenstrief Institute, Inc.
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * This Source Code Form is also subject to the terms of the Health-Related
+ * Additional Disclaimer of Warranty and Limitation of Liability available at
+ *
+ *      http://www.carewebframework.org/licensing/disclaimer.
+ *
+ * #L%
+ */
+package org.carewebframework.shell.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.carewebframework.shell.plugins.PluginDefinition;
+import org.carewebframework.shell.plugins.PluginTelemetry;
+import org.carewebframework.shell.plugins.TimingHistogram;
+import org.junit.Test;
+
+public class TimingHistogramTest {
+    
+    private static final double DELTA = 1e-9;
+    
+    @Test
+    public void testEmpty() {
+        TimingHistogram histogram = new TimingHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalMillis(), DELTA);
+        assertEquals(0, histogram.getAverageMillis(), DELTA);
+        assertEquals(0, histogram.getMaxMillis(), DELTA);
+        assertEquals(0, histogram.getPercentileMillis(50), DELTA);
+    }
+    
+    @Test
+    public void testBuckets() {
+        TimingHistogram histogram = new TimingHistogram();
+        // Bucket upper bounds are powers of two in microseconds: [1, 2) -> 2us, [2, 4) -> 4us, [4, 8) -> 8us
+        histogram.record(1000);
+        histogram.record(2000);
+        histogram.record(3999);
+        histogram.record(4000);
+        histogram.record(1000000000);
+        assertEquals(5, histogram.getCount());
+        assertEquals(1000.010999, histogram.getTotalMillis(), DELTA);
+        assertEquals(200.0021998, histogram.getAverageMillis(), DELTA);
+        assertEquals(1000, histogram.getMaxMillis(), DELTA);
+        assertEquals(0.002, histogram.getPercentileMillis(0), DELTA);
+        assertEquals(0.002, histogram.getPercentileMillis(20), DELTA);
+        assertEquals(0.004, histogram.getPercentileMillis(40), DELTA);
+        assertEquals(0.004, histogram.getPercentileMillis(60), DELTA);
+        assertEquals(0.008, histogram.getPercentileMillis(80), DELTA);
+        // Upper bound of the last bucket (1048.576ms) is limited by the maximum
+        assertEquals(1000, histogram.getPercentileMillis(100), DELTA);
+        assertEquals(1000, histogram.getPercentileMillis(150), DELTA);
+    }
+    
+    @Test
+    public void testLimits() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(-5);
+        histogram.record(999);
+        assertEquals(2, histogram.getCount());
+        assertEquals(0.000999, histogram.getMaxMillis(), DELTA);
+        assertEquals(0.000999, histogram.getPercentileMillis(100), DELTA);
+        // Times beyond the range of the histogram are counted in the last bucket
+        histogram.reset();
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals((1L << 31) / 1000.0, histogram.getPercentileMillis(50), DELTA);
+    }
+    
+    @Test
+    public void testReset() {
+        TimingHistogram histogram = new TimingHistogram();
+        histogram.record(1000);
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getTotalMillis(), DELTA);
+        assertEquals(0, histogram.getMaxMillis(), DELTA);
+        assertEquals(0, histogram.getPercentileMillis(50), DELTA);
+        histogram.record(4000);
+        assertEquals(1, histogram.getCount());
+        assertEquals(0.004, histogram.getPercentileMillis(50), DELTA);
+    }
+    
+    @Test
+    public void testTelemetry() {
+        PluginTelemetry telemetry = PluginTelemetry.getInstance();
+        PluginDefinition definition = new PluginDefinition();
+        definition.setId("telemetrytest");
+        
+        try {
+            telemetry.setEnabled(false);
+            telemetry.record(definition, PluginTelemetry.LOAD, 1000);
+            assertNull(telemetry.getHistogram("telemetrytest", PluginTelemetry.LOAD));
+            telemetry.setEnabled(true);
+            telemetry.record(definition, PluginTelemetry.LOAD, 1000);
+            telemetry.record(definition, PluginTelemetry.LOAD, 3000);
+            telemetry.record(null, PluginTelemetry.LOAD, 1000);
+            assertEquals(2, telemetry.getCount("telemetrytest", PluginTelemetry.LOAD));
+            assertTrue(telemetry.getPluginIds().contains("telemetrytest"));
+            assertEquals(0.003, telemetry.getHistogram("telemetrytest", PluginTelemetry.LOAD).getPercentileMillis(95),
+                DELTA);
+            assertTrue(telemetry.getSummary().contains(String
+                    .format("telemetrytest load: count=2 avg=%.2fms p95=%.2fms max=%.2fms", 0.002, 0.003, 0.003)));
+            telemetry.reset();
+            assertEquals(0, telemetry.getCount("telemetrytest", PluginTelemetry.LOAD));
+            assertFalse(telemetry.getPluginIds().contains("telemetrytest"));
+        } finally {
+            telemetry.setEnabled(false);
+        }
+    }
+}
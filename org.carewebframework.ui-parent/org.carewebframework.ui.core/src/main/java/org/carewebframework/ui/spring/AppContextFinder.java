@@ -25,6 +25,8 @@
  */
 package org.carewebframework.ui.spring;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.carewebframework.api.spring.IAppContextFinder;
 import org.carewebframework.api.spring.SpringUtil;
 import org.fujion.client.ExecutionContext;
@@ -38,6 +40,8 @@ import org.springframework.web.context.support.XmlWebApplicationContext;
  */
 public class AppContextFinder implements IAppContextFinder {
     
+    private static final Log log = LogFactory.getLog(AppContextFinder.class);
+    
     protected static final String APP_CONTEXT_ATTRIB = "_CWFAppContext";
     
     protected static ApplicationContext rootContext;
@@ -55,9 +59,15 @@ public class AppContextFinder implements IAppContextFinder {
      * @return New application context
      */
     public static ApplicationContext createAppContext(Page page) {
+        long start = System.currentTimeMillis();
         XmlWebApplicationContext appContext = new FrameworkAppContext();
         new AppContextInitializer(page).initialize(appContext);
         appContext.refresh();
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Created application context for " + page + " in " + (System.currentTimeMillis() - start) + " ms.");
+        }
+        
         return appContext;
     }
     
@@ -25,6 +25,7 @@
  */
 package org.carewebframework.ui.spring;
 
+import java.io.IOException;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -32,6 +33,9 @@ import java.util.Set;
 import javax.servlet.ServletContext;
 
 import org.apache.commons.lang.ArrayUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.carewebframework.api.spring.BeanDefinitionCache;
 import org.carewebframework.api.spring.Constants;
 import org.carewebframework.api.spring.DomainPropertySource;
 import org.carewebframework.api.spring.LabelPropertySource;
@@ -43,11 +47,16 @@ import org.fujion.websocket.Session;
 import org.fujion.websocket.SessionInitException;
 import org.fujion.websocket.Sessions;
 import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.web.context.support.XmlWebApplicationContext;
 
 public class AppContextInitializer implements ApplicationContextInitializer<XmlWebApplicationContext> {
     
+    private static final Log log = LogFactory.getLog(AppContextInitializer.class);
+    
     public static final String[] DEFAULT_LOCATIONS = { "classpath*:/META-INF/*-spring.xml" };
     
     private final Page page;
@@ -76,11 +85,7 @@ public class AppContextInitializer implements ApplicationContextInitializer<XmlW
             page.setAttribute(AppContextFinder.APP_CONTEXT_ATTRIB, ctx);
             ServletContext sc = ExecutionContext.getSession().getServletContext();
             ctx.setDisplayName("Child XmlWebApplicationContext " + page);
-            ctx.setParent(AppContextFinder.rootContext);
-            ctx.setServletContext(sc);
-            env.setActiveProfiles(testConfig ? Constants.PROFILES_CHILD_TEST : Constants.PROFILES_CHILD_PROD);
-            env.setDefaultProfiles(Constants.PROFILE_CHILD_DEFAULT);
-            ctx.setConfigLocations(DEFAULT_LOCATIONS);
+            initChild(ctx, sc);
         } else {
             AppContextFinder.rootContext = ctx;
             Set<String> aps = new LinkedHashSet<>();
@@ -93,8 +98,56 @@ public class AppContextInitializer implements ApplicationContextInitializer<XmlW
             ctx.setConfigLocations((String[]) ArrayUtils.addAll(Constants.DEFAULT_LOCATIONS, ctx.getConfigLocations()));
             ClasspathMessageSource.getInstance().setResourceLoader(ctx);
             registerSessionListener();
+            registerContextListener(ctx);
         }
     }
+    
+    /**
+     * Initializes a child context.
+     *
+     * @param ctx The child context.
+     * @param sc The servlet context.
+     */
+    private void initChild(XmlWebApplicationContext ctx, ServletContext sc) {
+        ConfigurableEnvironment env = ctx.getEnvironment();
+        ctx.setParent(AppContextFinder.rootContext);
+        ctx.setServletContext(sc);
+        env.setActiveProfiles(testConfig ? Constants.PROFILES_CHILD_TEST : Constants.PROFILES_CHILD_PROD);
+        env.setDefaultProfiles(Constants.PROFILE_CHILD_DEFAULT);
+        ctx.setConfigLocations(DEFAULT_LOCATIONS);
+    }
+    
+    /**
+     * Manages the child context bean definition cache. If preloading is enabled, populates the
+     * cache once the root context has been refreshed so that the first session does not incur the
+     * cost of parsing the child context configuration. Clears the cache when the root context is
+     * closed.
+     *
+     * @param rootContext The root context.
+     */
+    private void registerContextListener(XmlWebApplicationContext rootContext) {
+        rootContext.addApplicationListener((ApplicationListener<ContextRefreshedEvent>) event -> {
+            BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+            
+            if (event.getApplicationContext() == rootContext && cache.isEnabled() && cache.isPreload()) {
+                FrameworkAppContext ctx = new FrameworkAppContext();
+                ctx.setDisplayName("Preloaded child XmlWebApplicationContext");
+                initChild(ctx, rootContext.getServletContext());
+                
+                try {
+                    ctx.preloadBeanDefinitions();
+                } catch (IOException e) {
+                    log.error("Error preloading child context bean definitions.", e);
+                }
+            }
+        });
+        
+        rootContext.addApplicationListener((ApplicationListener<ContextClosedEvent>) event -> {
+            if (event.getApplicationContext() == rootContext) {
+                BeanDefinitionCache.getInstance().clear();
+            }
+        });
+    }
 
     /**
      * Manages creation/destruction of child contexts.
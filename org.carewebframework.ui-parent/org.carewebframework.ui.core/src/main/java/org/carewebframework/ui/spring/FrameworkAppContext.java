@@ -25,15 +25,19 @@
  */
 package org.carewebframework.ui.spring;
 
+import java.io.IOException;
+
+import org.carewebframework.api.spring.BeanDefinitionCache;
 import org.carewebframework.api.spring.FrameworkBeanFactory;
 import org.carewebframework.api.spring.ResourceCache;
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.web.context.support.XmlWebApplicationContext;
 
 /**
- * Subclass application context to implement resource caching and to customize bean definition
- * override capability.
+ * Subclass application context to implement resource and bean definition caching and to customize
+ * bean definition override capability.
  */
 public class FrameworkAppContext extends XmlWebApplicationContext {
     
@@ -57,4 +61,40 @@ public class FrameworkAppContext extends XmlWebApplicationContext {
         return resourceCache == null ? resourceCache = new ResourceCache(this) : resourceCache;
     }
     
+    /**
+     * For child contexts, uses cached bean definitions if available. Otherwise, loads bean
+     * definitions from the configuration locations and caches them for subsequent child contexts.
+     */
+    @Override
+    protected void loadBeanDefinitions(DefaultListableBeanFactory beanFactory) throws BeansException, IOException {
+        BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+        
+        if (getParent() == null || !cache.isEnabled()) {
+            super.loadBeanDefinitions(beanFactory);
+            return;
+        }
+        
+        String key = BeanDefinitionCache.createKey(getConfigLocations(), getEnvironment().getActiveProfiles());
+        
+        if (!cache.restore(key, beanFactory)) {
+            super.loadBeanDefinitions(beanFactory);
+            cache.store(key, beanFactory);
+        }
+    }
+    
+    /**
+     * Loads and caches the bean definitions for this context without refreshing it. Has no effect
+     * if bean definition caching is disabled or the bean definitions have already been cached.
+     *
+     * @throws IOException If an error occurred reading a configuration location.
+     */
+    public void preloadBeanDefinitions() throws IOException {
+        BeanDefinitionCache cache = BeanDefinitionCache.getInstance();
+        String key = BeanDefinitionCache.createKey(getConfigLocations(), getEnvironment().getActiveProfiles());
+        
+        if (getParent() != null && cache.isEnabled() && !cache.contains(key)) {
+            loadBeanDefinitions(createBeanFactory());
+        }
+    }
+    
 }